@@ -0,0 +1,291 @@
+package org.jnaalisv.sqlmapper.loadharness;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jnaalisv.sqlmapper.SqlQueries;
+import org.jnaalisv.sqlmapper.entities.Product;
+import org.jnaalisv.sqlmapper.metrics.ConcurrentHistogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the {@link Operation} mix against H2 through HikariCP with an increasing number of threads and writes
+ * throughput, latency percentiles, allocation rate and monitor contention per thread count as JSON.
+ *
+ * <p>Configured through system properties: {@code harness.threads} (comma separated thread counts),
+ * {@code harness.warmupSeconds}, {@code harness.seconds}, {@code harness.poolSize}, {@code harness.rows}
+ * (seeded products), {@code harness.label} and {@code harness.output}.</p>
+ */
+public final class LoadHarness {
+
+    private static final int[] THREADS = Arrays.stream(System.getProperty("harness.threads", "1,2,4,8,16,32,64,128,256").split(","))
+            .mapToInt(value -> Integer.parseInt(value.trim()))
+            .toArray();
+    private static final int WARMUP_SECONDS = Integer.getInteger("harness.warmupSeconds", 5);
+    private static final int SECONDS = Integer.getInteger("harness.seconds", 15);
+    private static final int POOL_SIZE = Integer.getInteger("harness.poolSize", 32);
+    private static final int ROWS = Integer.getInteger("harness.rows", 10_000);
+    private static final String LABEL = System.getProperty("harness.label", "dev");
+    private static final Path OUTPUT = Paths.get(System.getProperty("harness.output", "build/reports/load-harness/results.json"));
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private LoadHarness() {}
+
+    public static void main(String[] args) throws Exception {
+        if (THREAD_MX_BEAN.isThreadContentionMonitoringSupported()) {
+            THREAD_MX_BEAN.setThreadContentionMonitoringEnabled(true);
+        }
+
+        try (HikariDataSource dataSource = dataSource()) {
+            createSchema(dataSource);
+            SqlQueries sqlQueries = new SqlQueries(dataSource);
+            seed(sqlQueries);
+
+            List<RunResult> results = new ArrayList<>();
+            for (int threads : THREADS) {
+                run(sqlQueries, threads, WARMUP_SECONDS);
+                RunResult result = run(sqlQueries, threads, SECONDS);
+                System.out.println(result.summary());
+                results.add(result);
+            }
+
+            writeJson(results);
+            System.out.println("Results written to " + OUTPUT.toAbsolutePath());
+        }
+    }
+
+    private static HikariDataSource dataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl("jdbc:h2:mem:loadharness;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(POOL_SIZE);
+        return new HikariDataSource(config);
+    }
+
+    private static void createSchema(HikariDataSource dataSource) throws IOException, SQLException {
+        String script;
+        try (InputStream in = LoadHarness.class.getResourceAsStream("/create-db.sql");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            script = scanner.useDelimiter("\\A").next();
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.trim().isEmpty()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static void seed(SqlQueries sqlQueries) {
+        List<Product> products = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            products.add(new Product("SEED" + i));
+        }
+        sqlQueries.insertListBatched(products);
+    }
+
+    private static RunResult run(SqlQueries sqlQueries, int threadCount, int seconds) throws InterruptedException {
+        Map<Operation, ConcurrentHistogram> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram());
+        }
+        LongAdder errors = new LongAdder();
+        ThreadStats totals = new ThreadStats();
+
+        CountDownLatch ready = new CountDownLatch(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+        long[] deadline = new long[1];
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread worker = new Thread(() -> {
+                ThreadStats before = ThreadStats.current();
+                ready.countDown();
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline[0]) {
+                        Operation operation = Operation.pick(random);
+                        long begin = System.nanoTime();
+                        try {
+                            operation.execute(sqlQueries, ROWS, random);
+                            latencies.get(operation).record(System.nanoTime() - begin);
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    totals.add(ThreadStats.current().minus(before));
+                    done.countDown();
+                }
+            }, "load-harness-" + i);
+            worker.start();
+        }
+
+        ready.await();
+        long begin = System.nanoTime();
+        deadline[0] = begin + TimeUnit.SECONDS.toNanos(seconds);
+        start.countDown();
+        done.await();
+
+        return new RunResult(threadCount, System.nanoTime() - begin, latencies, errors.sum(), totals);
+    }
+
+    private static void writeJson(List<RunResult> results) throws IOException {
+        if (OUTPUT.getParent() != null) {
+            Files.createDirectories(OUTPUT.getParent());
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(OUTPUT, StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.printf(Locale.ROOT, "  \"label\": \"%s\",%n", LABEL.replace("\"", "\\\""));
+            out.printf(Locale.ROOT, "  \"timestamp\": \"%s\",%n", Instant.now());
+            out.printf(Locale.ROOT, "  \"javaVersion\": \"%s\",%n", System.getProperty("java.version"));
+            out.printf(Locale.ROOT, "  \"availableProcessors\": %d,%n", Runtime.getRuntime().availableProcessors());
+            out.printf(Locale.ROOT, "  \"poolSize\": %d,%n", POOL_SIZE);
+            out.printf(Locale.ROOT, "  \"seconds\": %d,%n", SECONDS);
+            out.println("  \"runs\": [");
+            for (int i = 0; i < results.size(); i++) {
+                results.get(i).writeJson(out, i < results.size() - 1);
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    /**
+     * Allocation and monitor statistics of one thread, or the sum over several threads.
+     */
+    private static final class ThreadStats {
+        long allocatedBytes;
+        long blockedCount;
+        long blockedMillis;
+        long waitedCount;
+        long waitedMillis;
+
+        static ThreadStats current() {
+            ThreadStats stats = new ThreadStats();
+            long threadId = Thread.currentThread().getId();
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+                stats.allocatedBytes = ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(threadId);
+            }
+            ThreadInfo info = THREAD_MX_BEAN.getThreadInfo(threadId);
+            if (info != null) {
+                stats.blockedCount = info.getBlockedCount();
+                stats.blockedMillis = Math.max(0, info.getBlockedTime());
+                stats.waitedCount = info.getWaitedCount();
+                stats.waitedMillis = Math.max(0, info.getWaitedTime());
+            }
+            return stats;
+        }
+
+        ThreadStats minus(ThreadStats before) {
+            ThreadStats delta = new ThreadStats();
+            delta.allocatedBytes = allocatedBytes - before.allocatedBytes;
+            delta.blockedCount = blockedCount - before.blockedCount;
+            delta.blockedMillis = blockedMillis - before.blockedMillis;
+            delta.waitedCount = waitedCount - before.waitedCount;
+            delta.waitedMillis = waitedMillis - before.waitedMillis;
+            return delta;
+        }
+
+        synchronized void add(ThreadStats other) {
+            allocatedBytes += other.allocatedBytes;
+            blockedCount += other.blockedCount;
+            blockedMillis += other.blockedMillis;
+            waitedCount += other.waitedCount;
+            waitedMillis += other.waitedMillis;
+        }
+    }
+
+    private static final class RunResult {
+        private final int threads;
+        private final long elapsedNanos;
+        private final Map<Operation, ConcurrentHistogram> latencies;
+        private final long errors;
+        private final ThreadStats threadStats;
+
+        RunResult(int threads, long elapsedNanos, Map<Operation, ConcurrentHistogram> latencies, long errors, ThreadStats threadStats) {
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.threadStats = threadStats;
+        }
+
+        long operations() {
+            return latencies.values().stream().mapToLong(ConcurrentHistogram::getCount).sum();
+        }
+
+        double perSecond(long value) {
+            return value * 1e9 / elapsedNanos;
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT, "%4d threads: %10.0f ops/s, %8.1f MB/s allocated, %d blocked (%d ms), %d errors",
+                    threads, perSecond(operations()), perSecond(threadStats.allocatedBytes) / (1024 * 1024),
+                    threadStats.blockedCount, threadStats.blockedMillis, errors);
+        }
+
+        void writeJson(PrintWriter out, boolean more) {
+            out.println("    {");
+            out.printf(Locale.ROOT, "      \"threads\": %d,%n", threads);
+            out.printf(Locale.ROOT, "      \"elapsedMillis\": %d,%n", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            out.printf(Locale.ROOT, "      \"operations\": %d,%n", operations());
+            out.printf(Locale.ROOT, "      \"throughputPerSecond\": %.1f,%n", perSecond(operations()));
+            out.printf(Locale.ROOT, "      \"errors\": %d,%n", errors);
+            out.printf(Locale.ROOT, "      \"allocatedBytesPerSecond\": %.0f,%n", perSecond(threadStats.allocatedBytes));
+            out.printf(Locale.ROOT, "      \"allocatedBytesPerOperation\": %.0f,%n", operations() == 0 ? 0.0 : (double) threadStats.allocatedBytes / operations());
+            out.printf(Locale.ROOT, "      \"blockedCount\": %d,%n", threadStats.blockedCount);
+            out.printf(Locale.ROOT, "      \"blockedMillis\": %d,%n", threadStats.blockedMillis);
+            out.printf(Locale.ROOT, "      \"waitedCount\": %d,%n", threadStats.waitedCount);
+            out.printf(Locale.ROOT, "      \"waitedMillis\": %d,%n", threadStats.waitedMillis);
+            out.println("      \"latencyMicros\": {");
+            Operation[] operations = Operation.values();
+            for (int i = 0; i < operations.length; i++) {
+                ConcurrentHistogram histogram = latencies.get(operations[i]);
+                out.printf(Locale.ROOT, "        \"%s\": {\"count\": %d, \"p50\": %.1f, \"p99\": %.1f, \"p999\": %.1f, \"max\": %.1f}%s%n",
+                        operations[i].name(),
+                        histogram.getCount(),
+                        histogram.getValueAtPercentile(50) / 1000.0,
+                        histogram.getValueAtPercentile(99) / 1000.0,
+                        histogram.getValueAtPercentile(99.9) / 1000.0,
+                        histogram.getMax() / 1000.0,
+                        i < operations.length - 1 ? "," : "");
+            }
+            out.println("      }");
+            out.println(more ? "    }," : "    }");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.jnaalisv.sqlmapper.loadharness;
+
+import org.jnaalisv.sqlmapper.SqlQueries;
+import org.jnaalisv.sqlmapper.entities.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The operations of the workload mix and their relative weights.
+ */
+enum Operation {
+    QUERY_FOR_ONE_BY_ID(50) {
+        @Override
+        void execute(SqlQueries sqlQueries, long maxId, ThreadLocalRandom random) {
+            sqlQueries.queryForOneById(Product.class, randomId(maxId, random));
+        }
+    },
+    QUERY_BY_CLAUSE(20) {
+        @Override
+        void execute(SqlQueries sqlQueries, long maxId, ThreadLocalRandom random) {
+            long from = randomId(maxId, random);
+            sqlQueries.queryByClause(Product.class, "id BETWEEN ? AND ?", from, from + RANGE_SIZE);
+        }
+    },
+    INSERT_OBJECT(10) {
+        @Override
+        void execute(SqlQueries sqlQueries, long maxId, ThreadLocalRandom random) {
+            sqlQueries.insertObject(new Product(productCode(random)));
+        }
+    },
+    UPDATE_OBJECT(15) {
+        @Override
+        void execute(SqlQueries sqlQueries, long maxId, ThreadLocalRandom random) {
+            sqlQueries.updateObject(new Product(randomId(maxId, random), productCode(random)));
+        }
+    },
+    INSERT_LIST_BATCHED(5) {
+        @Override
+        void execute(SqlQueries sqlQueries, long maxId, ThreadLocalRandom random) {
+            List<Product> products = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                products.add(new Product(productCode(random)));
+            }
+            sqlQueries.insertListBatched(products);
+        }
+    };
+
+    private static final int RANGE_SIZE = 20;
+    private static final int BATCH_SIZE = 20;
+
+    private static final Operation[] BY_WEIGHT;
+
+    static {
+        List<Operation> operations = new ArrayList<>();
+        for (Operation operation : values()) {
+            for (int i = 0; i < operation.weight; i++) {
+                operations.add(operation);
+            }
+        }
+        BY_WEIGHT = operations.toArray(new Operation[0]);
+    }
+
+    private final int weight;
+
+    Operation(int weight) {
+        this.weight = weight;
+    }
+
+    abstract void execute(SqlQueries sqlQueries, long maxId, ThreadLocalRandom random);
+
+    static Operation pick(ThreadLocalRandom random) {
+        return BY_WEIGHT[random.nextInt(BY_WEIGHT.length)];
+    }
+
+    private static long randomId(long maxId, ThreadLocalRandom random) {
+        return 1 + random.nextLong(maxId);
+    }
+
+    private static String productCode(ThreadLocalRandom random) {
+        return "P" + random.nextInt(1_000_000);
+    }
+}
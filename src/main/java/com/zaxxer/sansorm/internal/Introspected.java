@@ -16,37 +16,44 @@
 
 package com.zaxxer.sansorm.internal;
 
+import org.jnaalisv.sqlmapper.internal.Association;
+import org.jnaalisv.sqlmapper.internal.SequenceIdAllocator;
 import org.jnaalisv.sqlmapper.internal.TableSpecs;
 import org.jnaalisv.sqlmapper.internal.TypeMapper;
-import org.postgresql.util.PGobject;
 
 import javax.persistence.*;
+import java.beans.ConstructorProperties;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.sql.Clob;
-import java.sql.Date;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Introspected implements TableSpecs {
+    private final Class<?> clazz;
     private String tableName;
 
     private Map<String, FieldColumnInfo> columnToField = new LinkedHashMap<>();
 
     private boolean isGeneratedId;
+    private SequenceIdAllocator idAllocator;
 
     private FieldColumnInfo[] idFieldColumnInfos;
     private String[] idColumnNames;
@@ -58,7 +65,16 @@ public class Introspected implements TableSpecs {
     private String[] insertableColumns;
     private String[] updatableColumns;
 
+    private final List<Association> associations = new ArrayList<>();
+    private boolean hasEagerAssociations;
+
+    private Constructor<?> creator;
+    private String[] creatorProperties;
+    private FieldColumnInfo[] creatorFields;
+    private Object[] creatorDefaults;
+
     Introspected(Class<?> clazz) throws IllegalAccessException, InstantiationException {
+        this.clazz = clazz;
 
         Table tableAnnotation = clazz.getAnnotation(Table.class);
         if (tableAnnotation != null) {
@@ -66,22 +82,44 @@ public class Introspected implements TableSpecs {
         }
         ArrayList<FieldColumnInfo> idFcInfos = new ArrayList<FieldColumnInfo>();
 
+        findCreator();
+        List<String> creatorPropertyList = creator == null ? Collections.emptyList() : Arrays.asList(creatorProperties);
+
         for (Field field : clazz.getDeclaredFields()) {
             int modifiers = field.getModifiers();
-            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers)) {
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                    || (Modifier.isFinal(modifiers) && !creatorPropertyList.contains(field.getName()))) {
                 continue;
             }
 
             field.setAccessible(true);
 
+            OneToMany oneToManyAnnotation = field.getAnnotation(OneToMany.class);
+            if (oneToManyAnnotation != null) {
+                addAssociation(oneToManyAssociation(field, oneToManyAnnotation));
+                continue;
+            }
+
             FieldColumnInfo fcInfo = new FieldColumnInfo(field);
 
             processColumnAnnotation(fcInfo);
 
+            ManyToOne manyToOneAnnotation = field.getAnnotation(ManyToOne.class);
+            if (manyToOneAnnotation != null) {
+                Class<?> targetClass = manyToOneAnnotation.targetEntity() != void.class ? manyToOneAnnotation.targetEntity() : field.getType();
+                fcInfo.referenceType = targetClass;
+                addAssociation(new Association(Association.Kind.MANY_TO_ONE, field, targetClass, manyToOneAnnotation.fetch(), fcInfo.columnName, null));
+            }
+
 
             Id idAnnotation = field.getAnnotation(Id.class);
             Version versionAnnotation = field.getAnnotation(Version.class);
 
+            if (Modifier.isFinal(modifiers) && (versionAnnotation != null || (idAnnotation != null && field.isAnnotationPresent(GeneratedValue.class)))) {
+                throw new IllegalStateException(clazz.getName() + "." + field.getName()
+                        + " is assigned after the entity is written and cannot be final");
+            }
+
             if (versionAnnotation != null) {
                 this.versionColumnName = field.getName().toLowerCase();
             } else if (idAnnotation != null) {
@@ -92,6 +130,9 @@ public class Introspected implements TableSpecs {
                 if (isGeneratedId && idFcInfos.size() > 1) {
                     throw new IllegalStateException("Cannot have multiple @Id annotations and @GeneratedValue at the same time.");
                 }
+                if (isGeneratedId && generatedAnnotation.strategy() == GenerationType.SEQUENCE) {
+                    idAllocator = sequenceIdAllocator(field, generatedAnnotation.generator());
+                }
             }
 
             Enumerated enumAnnotation = field.getAnnotation(Enumerated.class);
@@ -108,77 +149,221 @@ public class Introspected implements TableSpecs {
                 }
                 fcInfo.setConverter((AttributeConverter) converterClass.newInstance());
             }
+
+            int creatorIndex = creatorPropertyList.indexOf(field.getName());
+            if (creatorIndex >= 0) {
+                fcInfo.creatorIndex = creatorIndex;
+                creatorFields[creatorIndex] = fcInfo;
+            }
         }
 
         readColumnInfo(idFcInfos);
+        checkCreatorFields();
+        for (FieldColumnInfo fcInfo : columnToField.values()) {
+            fcInfo.resolveConverters();
+        }
 
         getInsertableColumns();
         getUpdatableColumns();
 
     }
 
-    public Object get(Object target, String columnName) throws IllegalAccessException {
-        FieldColumnInfo fcInfo = columnToField.get(columnName);
-        if (fcInfo == null) {
-            throw new RuntimeException("Cannot find field mapped to column " + columnName + " on type " + target.getClass().getCanonicalName());
+    private SequenceIdAllocator sequenceIdAllocator(Field field, String generator) {
+        SequenceGenerator sequenceGenerator = field.getAnnotation(SequenceGenerator.class);
+        if (sequenceGenerator == null) {
+            sequenceGenerator = clazz.getAnnotation(SequenceGenerator.class);
         }
+        if (sequenceGenerator == null || (!generator.isEmpty() && !generator.equals(sequenceGenerator.name()))) {
+            throw new IllegalStateException("@GeneratedValue(strategy = SEQUENCE) on " + clazz.getName() + "." + field.getName()
+                    + " needs a matching @SequenceGenerator on the field or the class");
+        }
+        String sequenceName = sequenceGenerator.sequenceName().isEmpty() ? sequenceGenerator.name() : sequenceGenerator.sequenceName();
+        if (!sequenceGenerator.schema().isEmpty()) {
+            sequenceName = sequenceGenerator.schema() + "." + sequenceName;
+        }
+        return new SequenceIdAllocator(sequenceName, sequenceGenerator.allocationSize());
+    }
 
-        Object value = fcInfo.field.get(target);
+    public Object get(Object target, String columnName) throws IllegalAccessException {
+        return getFieldColumnInfo(columnName).getFieldValue(target);
+    }
 
-        if (value == null) {
-            return value;
+    public void set(Object target, String columnName, Object value) throws IllegalAccessException, IOException, SQLException {
+        getFieldColumnInfo(columnName).setValue(target, value);
+    }
+
+    /**
+     * Picks the constructor annotated with {@code @ConstructorProperties}, if any. Its parameters are matched to
+     * fields by name, and such entities are created from the column values instead of through a no-arg
+     * constructor, which lets their fields be final. Generated ids and versions are written back into the
+     * entity after an insert or update, so those fields must stay non-final.
+     */
+    private void findCreator() {
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            ConstructorProperties properties = constructor.getAnnotation(ConstructorProperties.class);
+            if (properties == null) {
+                continue;
+            }
+            if (creator != null) {
+                throw new IllegalStateException(clazz.getName() + " has more than one @ConstructorProperties constructor");
+            }
+            if (properties.value().length != constructor.getParameterCount()) {
+                throw new IllegalStateException("@ConstructorProperties of " + clazz.getName() + " does not name every constructor parameter");
+            }
+
+            constructor.setAccessible(true);
+            creator = constructor;
+            creatorProperties = properties.value();
+            creatorFields = new FieldColumnInfo[creatorProperties.length];
+            creatorDefaults = new Object[creatorProperties.length];
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                creatorDefaults[i] = defaultValue(parameterTypes[i]);
+            }
+        }
+    }
+
+    private void checkCreatorFields() {
+        if (creator == null) {
+            return;
+        }
+        for (int i = 0; i < creatorFields.length; i++) {
+            FieldColumnInfo fcInfo = creatorFields[i];
+            if (fcInfo == null || columnToField.get(fcInfo.columnName) != fcInfo) {
+                throw new IllegalStateException("@ConstructorProperties of " + clazz.getName() + " names '" + creatorProperties[i]
+                        + "', which is not a field mapped to a column");
+            }
         }
+    }
 
-        // Fix-up column value for enums, integer as boolean, etc.
-        if (fcInfo.getConverter() != null) {
-            value = fcInfo.getConverter().convertToDatabaseColumn(value);
-        } else if (fcInfo.enumConstants != null) {
-            value = (fcInfo.enumType == EnumType.ORDINAL ? ((Enum<?>) value).ordinal() : ((Enum<?>) value).name());
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
         }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
 
-        return value;
+    public boolean hasCreator() {
+        return creator != null;
     }
 
-    public void set(Object target, String columnName, Object value) throws IllegalAccessException, IOException, SQLException {
+    /**
+     * @return a fresh argument array for {@link #create}, holding the default of each parameter type
+     */
+    public Object[] newCreatorArguments() {
+        return creatorDefaults.clone();
+    }
+
+    public Object create(Object[] arguments) throws InstantiationException, IllegalAccessException {
+        try {
+            return creator.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Constructor of " + clazz.getName() + " failed", e.getCause());
+        }
+    }
+
+    public FieldColumnInfo getFieldColumnInfo(String columnName) {
         FieldColumnInfo fcInfo = columnToField.get(columnName);
         if (fcInfo == null) {
-            throw new RuntimeException("Cannot find field mapped to column " + columnName + " on type " + target.getClass().getCanonicalName());
+            throw new RuntimeException("Cannot find field mapped to column " + columnName + " on type " + clazz.getCanonicalName());
         }
+        return fcInfo;
+    }
 
-        final Class<?> fieldType = fcInfo.fieldType;
-        Class<?> columnType = value.getClass();
-        Object columnValue = value;
+    public FieldColumnInfo findFieldColumnInfo(String columnName) {
+        return columnToField.get(columnName);
+    }
 
-        if (fcInfo.getConverter() != null) {
-            columnValue = fcInfo.getConverter().convertToEntityAttribute(columnValue);
-        } else if (fieldType != columnType) {
-            // Fix-up column value for enums, integer as boolean, etc.
-            if (fieldType == boolean.class && columnType == Integer.class) {
-                columnValue = (((Integer) columnValue) != 0);
-            } else if (columnType == BigDecimal.class) {
-                if (fieldType == BigInteger.class) {
-                    columnValue = ((BigDecimal) columnValue).toBigInteger();
-                } else if (fieldType == Integer.class) {
-                    columnValue = (int) ((BigDecimal) columnValue).longValue();
-                } else if (fieldType == Long.class) {
-                    columnValue = ((BigDecimal) columnValue).longValue();
-                }
-            } else if (fcInfo.enumConstants != null) {
-                columnValue = fcInfo.enumConstants.get(columnValue);
-            } else if (columnValue instanceof Clob) {
-                columnValue = TypeMapper.readClob((Clob) columnValue);
-            } else if ("PGobject".equals(columnType.getSimpleName()) && "citext".equalsIgnoreCase(((PGobject) columnValue).getType())) {
-                columnValue = ((PGobject) columnValue).getValue();
-            } else if (columnValue instanceof java.sql.Date && fieldType == LocalDate.class) {
-                java.sql.Date date = (Date) columnValue;
-                columnValue = date.toLocalDate();
-            } else if (columnValue instanceof java.sql.Timestamp && fieldType == LocalDateTime.class) {
-                java.sql.Timestamp timestamp = (Timestamp) columnValue;
-                columnValue = timestamp.toLocalDateTime();
+    public List<Association> getAssociations() {
+        return associations;
+    }
+
+    public Association getAssociation(String propertyName) {
+        for (Association association : associations) {
+            if (association.getPropertyName().equals(propertyName)) {
+                return association;
+            }
+        }
+        throw new IllegalArgumentException("No @ManyToOne or @OneToMany property " + propertyName + " on type " + clazz.getCanonicalName());
+    }
+
+    public boolean hasEagerAssociations() {
+        return hasEagerAssociations;
+    }
+
+    private void addAssociation(Association association) {
+        associations.add(association);
+        hasEagerAssociations |= association.isEager();
+    }
+
+    private static Association oneToManyAssociation(Field field, OneToMany oneToManyAnnotation) {
+        Class<?> targetClass = oneToManyAnnotation.targetEntity();
+        if (targetClass == void.class) {
+            Type genericType = field.getGenericType();
+            if (!(genericType instanceof ParameterizedType)) {
+                throw new IllegalStateException("Cannot determine the target entity of @OneToMany " + field);
+            }
+            targetClass = (Class<?>) ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        }
+
+        String joinColumn = null;
+        JoinColumn joinColumnAnnotation = field.getAnnotation(JoinColumn.class);
+        if (joinColumnAnnotation != null && !joinColumnAnnotation.name().isEmpty()) {
+            joinColumn = joinColumnAnnotation.name().toLowerCase();
+        }
+
+        String mappedBy = oneToManyAnnotation.mappedBy();
+        if (joinColumn == null && mappedBy.isEmpty()) {
+            throw new IllegalStateException("@OneToMany " + field + " needs either mappedBy or @JoinColumn");
+        }
+
+        return new Association(Association.Kind.ONE_TO_MANY, field, targetClass, oneToManyAnnotation.fetch(), joinColumn, mappedBy.isEmpty() ? null : mappedBy);
+    }
+
+    private static Object newReference(Class<?> referenceType, Object id) throws IOException, SQLException {
+        try {
+            Introspected target = Introspector.getIntrospected(referenceType);
+            FieldColumnInfo idInfo = target.getFieldColumnInfo(target.getIdColumnNames()[0]);
+            if (target.hasCreator() && idInfo.creatorIndex >= 0) {
+                Object[] arguments = target.newCreatorArguments();
+                arguments[idInfo.creatorIndex] = idInfo.toFieldValue(id);
+                return target.create(arguments);
             }
+            Object reference = referenceType.newInstance();
+            idInfo.setValue(reference, id);
+            return reference;
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        fcInfo.field.set(target, columnValue);
+    private static Object referenceId(Class<?> referenceType, Object reference) throws IllegalAccessException {
+        try {
+            return Introspector.getIntrospected(referenceType).getActualIds(reference)[0];
+        } catch (InstantiationException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public String[] getColumnNames() {
@@ -201,6 +386,25 @@ public class Introspected implements TableSpecs {
         return isGeneratedId;
     }
 
+    /**
+     * @return true when the generated id is taken from a pooled sequence before the insert, instead of being
+     * read back from the database after it
+     */
+    public boolean hasPooledId() {
+        return idAllocator != null;
+    }
+
+    /**
+     * Sets the id of an entity that has not been persisted yet from the pooled sequence.
+     *
+     * @param connection used only when a new block of ids has to be reserved
+     */
+    public void assignPooledId(Object target, Connection connection) throws IllegalAccessException, SQLException, IOException {
+        if (idAllocator != null && !isPersisted(target)) {
+            set(target, idColumnNames[0], idAllocator.next(connection));
+        }
+    }
+
     @Override
     public boolean hasVersionColumn() {
         return versionColumnName != null;
@@ -217,7 +421,7 @@ public class Introspected implements TableSpecs {
         }
 
         LinkedList<String> columns = new LinkedList<String>();
-        if (hasGeneratedId()) {
+        if (hasGeneratedId() && !hasPooledId()) {
             columns.addAll(Arrays.asList(columnsSansIds));
         } else {
             columns.addAll(Arrays.asList(columnNames));
@@ -285,6 +489,11 @@ public class Introspected implements TableSpecs {
         return tableName;
     }
 
+    @Override
+    public Class<?> getEntityClass() {
+        return clazz;
+    }
+
     public String getColumnNameForProperty(String propertyName) {
         for (FieldColumnInfo fcInfo : columnToField.values()) {
             if (fcInfo.field.getName().equalsIgnoreCase(propertyName)) {
@@ -335,6 +544,15 @@ public class Introspected implements TableSpecs {
 
             fcInfo.insertable = columnAnnotation.insertable();
             fcInfo.updatable = columnAnnotation.updatable();
+        } else if (field.getAnnotation(ManyToOne.class) != null) {
+            JoinColumn joinColumnAnnotation = field.getAnnotation(JoinColumn.class);
+            if (joinColumnAnnotation != null && !joinColumnAnnotation.name().isEmpty()) {
+                fcInfo.columnName = joinColumnAnnotation.name().toLowerCase();
+                fcInfo.insertable = joinColumnAnnotation.insertable();
+                fcInfo.updatable = joinColumnAnnotation.updatable();
+            } else {
+                fcInfo.columnName = field.getName().toLowerCase() + "_id";
+            }
         } else {
             fcInfo.columnName = field.getName().toLowerCase();
         }
@@ -346,15 +564,18 @@ public class Introspected implements TableSpecs {
     }
 
     public <T> void updateGeneratedIdValue(T item, Object object) throws IllegalAccessException, SQLException, IOException {
-        if (hasGeneratedId()) {
+        if (hasGeneratedId() && !hasPooledId()) {
             set(item, idColumnNames[0], object);
         } else {
             // TODO: log?
         }
     }
 
+    /**
+     * @return the id columns to read back after an insert, or null when there are none (pooled ids included)
+     */
     public String[] getGeneratedIdColumnNames() {
-        if (isGeneratedId) {
+        if (isGeneratedId && !hasPooledId()) {
             return idColumnNames;
         } else {
             return null;
@@ -363,17 +584,25 @@ public class Introspected implements TableSpecs {
 
     public boolean isPersisted(Object target) throws IllegalAccessException {
         if (this.hasGeneratedId()) {
-            Long id = (Long) this.get(target, this.getGeneratedIdColumnNames()[0]);
+            Long id = (Long) this.get(target, idColumnNames[0]);
             return id != null && id > 0l;
         }
         return false;
     }
 
     public long getIdColumnValue(Object target) throws IllegalAccessException {
-        return (long) this.get(target, this.getGeneratedIdColumnNames()[0]);
+        return (long) this.get(target, idColumnNames[0]);
     }
 
-    private static class FieldColumnInfo {
+    /**
+     * Column mapping of a single field. The type conversion for the field is resolved on first use and
+     * kept as long as the column (or SQL) type stays the same, so hydration and parameter binding don't
+     * have to re-run the type checks for every value.
+     */
+    public static final class FieldColumnInfo {
+        private static final AtomicReferenceFieldUpdater<FieldColumnInfo, TypeMapper.FieldConverters> CONVERTERS =
+                AtomicReferenceFieldUpdater.newUpdater(FieldColumnInfo.class, TypeMapper.FieldConverters.class, "converters");
+
         private boolean updatable;
         private boolean insertable;
         private String columnName;
@@ -383,10 +612,16 @@ public class Introspected implements TableSpecs {
         private EnumType enumType;
         private Map<Object, Object> enumConstants;
         private AttributeConverter converter;
+        private Class<?> referenceType;
+        private int creatorIndex = -1;
+        private final boolean readAsFieldType;
+
+        private volatile TypeMapper.FieldConverters converters;
 
         public FieldColumnInfo(Field field) {
             this.field = field;
             this.fieldType = field.getType();
+            this.readAsFieldType = TypeMapper.JDBC42_TIME && TypeMapper.isJavaTime(fieldType);
 
             // remap safe conversions
             if (fieldType == java.util.Date.class) {
@@ -409,6 +644,127 @@ public class Introspected implements TableSpecs {
             }
         }
 
+        public String getColumnName() {
+            return columnName;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * @return the position of this field among the creator's parameters, or -1 when it is assigned after construction
+         */
+        public int getCreatorIndex() {
+            return creatorIndex;
+        }
+
+        public Object readColumn(ResultSet resultSet, int column) throws SQLException {
+            if (readAsFieldType) {
+                return resultSet.getObject(column, fieldType);
+            }
+            return resultSet.getObject(column);
+        }
+
+        public void setValue(Object target, Object value) throws IllegalAccessException, IOException, SQLException {
+            field.set(target, toFieldValue(value));
+        }
+
+        public Object toFieldValue(Object columnValue) throws IOException, SQLException {
+            if (referenceType != null) {
+                return newReference(referenceType, columnValue);
+            }
+            if (converter != null) {
+                return converter.convertToEntityAttribute(columnValue);
+            }
+
+            Class<?> columnType = columnValue.getClass();
+            if (fieldType == columnType) {
+                return columnValue;
+            }
+            if (enumConstants != null) {
+                return enumConstants.get(columnValue);
+            }
+
+            return currentConverters().readerFor(columnType).convert(columnValue);
+        }
+
+        void resolveConverters() {
+            converters = resolvedConverters();
+        }
+
+        private TypeMapper.FieldConverters resolvedConverters() {
+            Class<?> valueType = isConverted() || fieldType.isPrimitive() ? Object.class : fieldType;
+            return TypeMapper.convertersFor(fieldType, field.getGenericType(), valueType);
+        }
+
+        private TypeMapper.FieldConverters currentConverters() {
+            TypeMapper.FieldConverters resolved = converters;
+            if (resolved == null || !resolved.isCurrent()) {
+                TypeMapper.FieldConverters fresh = resolvedConverters();
+                // a thread that lost the race publishes nothing; it still uses its own, equally fresh, resolution
+                CONVERTERS.compareAndSet(this, resolved, fresh);
+                resolved = fresh;
+            }
+            return resolved;
+        }
+
+        /**
+         * @return true when the field value is converted to a different column value: enums, {@code @Convert}
+         * fields and references
+         */
+        public boolean isConverted() {
+            return enumConstants != null || converter != null || referenceType != null;
+        }
+
+        /**
+         * Converts a value read from a text source, such as a CSV file, to the value of a converted field.
+         */
+        public Object textToFieldValue(String text) throws IOException, SQLException {
+            if (enumConstants != null && converter == null && referenceType == null) {
+                return enumConstants.get(enumType == EnumType.ORDINAL ? Integer.valueOf(text.trim()) : text);
+            }
+            return toFieldValue(text);
+        }
+
+        public Object getFieldValue(Object target) throws IllegalAccessException {
+            return toColumnValue(field.get(target));
+        }
+
+        public Object toColumnValue(Object value) throws IllegalAccessException {
+            if (value == null) {
+                return value;
+            }
+
+            // Fix-up column value for enums, integer as boolean, etc.
+            if (referenceType != null) {
+                value = referenceId(referenceType, value);
+            } else if (converter != null) {
+                value = converter.convertToDatabaseColumn(value);
+            } else if (enumConstants != null) {
+                value = (enumType == EnumType.ORDINAL ? ((Enum<?>) value).ordinal() : ((Enum<?>) value).name());
+            }
+
+            return value;
+        }
+
+        public Object getDatabaseValue(Object target, int sqlType) throws IllegalAccessException, SQLException {
+            return toDatabaseValue(field.get(target), sqlType);
+        }
+
+        public Object toDatabaseValue(Object fieldValue, int sqlType) throws IllegalAccessException, SQLException {
+            Object value = toColumnValue(fieldValue);
+            if (value == null) {
+                return null;
+            }
+
+            try {
+                return currentConverters().writerFor(value.getClass(), sqlType).convert(value);
+            } catch (IOException e) {
+                throw new SQLException(e);
+            }
+        }
+
         @Override
         public String toString() {
             return field.getName() + "->" + columnName;
@@ -420,6 +776,7 @@ public class Introspected implements TableSpecs {
 
         public void setConverter(AttributeConverter converter) {
             this.converter = converter;
+            this.converters = null;
         }
     }
 }
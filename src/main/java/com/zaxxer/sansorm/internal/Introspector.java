@@ -9,32 +9,58 @@
 
 package com.zaxxer.sansorm.internal;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import org.jnaalisv.sqlmapper.CachingSqlStringBuilder;
+import org.jnaalisv.sqlmapper.internal.NamedParameters;
+import org.jnaalisv.sqlmapper.internal.TypeMapper;
 
+/**
+ * Entity metadata is attached to the entity classes themselves through a {@link ClassValue}, so it is reclaimed
+ * together with the class loader of a redeployed application, and no lock is taken on the {@code Class} object.
+ * Threads introspecting a class at the same time may each build an {@link Introspected}, but only one of them is
+ * installed and returned to all of them.
+ */
 public final class Introspector {
-    private static final Map<Class<?>, Introspected> descriptorMap = new ConcurrentHashMap<>();
 
+    private static final ClassValue<Introspected> descriptors = new ClassValue<Introspected>() {
+        @Override
+        protected Introspected computeValue(Class<?> clazz) {
+            try {
+                return new Introspected(clazz);
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IntrospectionFailure(e);
+            }
+        }
+    };
 
     private Introspector() {}
 
     public static Introspected getIntrospected(Class<?> clazz) throws InstantiationException, IllegalAccessException {
-        Introspected introspected = descriptorMap.get(clazz);
-        if (introspected != null) {
-            return introspected;
+        try {
+            return descriptors.get(clazz);
+        } catch (IntrospectionFailure failure) {
+            if (failure.getCause() instanceof InstantiationException) {
+                throw (InstantiationException) failure.getCause();
+            }
+            throw (IllegalAccessException) failure.getCause();
         }
+    }
 
-        // Introspection should only occur once per class.
-        synchronized (clazz) {
-            // Double check.  This avoids multiple introspections of the same class.
-            introspected = descriptorMap.get(clazz);
-            if (introspected != null) {
-                return introspected;
-            }
+    /**
+     * Drops the metadata of the class, together with the SQL, parameter accessors and value writers cached for
+     * it; it is introspected again on next use.
+     */
+    public static void evict(Class<?> clazz) {
+        descriptors.remove(clazz);
+        CachingSqlStringBuilder.evict(clazz);
+        NamedParameters.evict(clazz);
+        TypeMapper.evict(clazz);
+    }
+
+    private static final class IntrospectionFailure extends RuntimeException {
+        private static final long serialVersionUID = -2946265830251371392L;
 
-            introspected = new Introspected(clazz);
-            descriptorMap.put(clazz, introspected);
-            return introspected;
+        IntrospectionFailure(ReflectiveOperationException cause) {
+            super(cause);
         }
     }
 }
@@ -0,0 +1,240 @@
+package org.jnaalisv.sqlmapper;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import com.zaxxer.sansorm.internal.Introspector;
+import org.jnaalisv.sqlmapper.internal.Association;
+import org.jnaalisv.sqlmapper.internal.ResultSetToolBox;
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.MetricsRecorder;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads associations for a whole result at once: the keys of all owners are collected and the targets are
+ * read with one {@code IN} query per association (split into buckets of power-of-two size so the statements
+ * can be cached), then stitched back onto the owners through an id-keyed map.
+ */
+final class AssociationFetcher {
+
+    private static final int MAX_BUCKET_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.fetchBatchSize", 256);
+
+    private AssociationFetcher() {}
+
+    static void fetchEager(Connection connection, List<?> entities, Class<?> entityClass) throws Exception {
+        fetchEager(connection, entities, Introspector.getIntrospected(entityClass));
+    }
+
+    static void fetchEager(Connection connection, List<?> entities, Introspected introspected) throws Exception {
+        if (introspected.hasEagerAssociations()) {
+            fetchEager(connection, entities, introspected, new HashSet<>());
+        }
+    }
+
+    static void fetch(Connection connection, List<?> entities, Class<?> entityClass, String property) throws Exception {
+        Introspected introspected = Introspector.getIntrospected(entityClass);
+        Association association = introspected.getAssociation(property);
+
+        Set<Association> visited = new HashSet<>();
+        visited.add(association);
+        List<Object> loaded = fetch(connection, entities, introspected, association, visited);
+        fetchEager(connection, loaded, Introspector.getIntrospected(association.getTargetClass()), visited);
+    }
+
+    private static void fetchEager(Connection connection, List<?> entities, Introspected introspected, Set<Association> visited) throws Exception {
+        if (entities.isEmpty() || !introspected.hasEagerAssociations()) {
+            return;
+        }
+
+        for (Association association : introspected.getAssociations()) {
+            if (association.isEager() && visited.add(association)) {
+                List<Object> loaded = fetch(connection, entities, introspected, association, visited);
+                fetchEager(connection, loaded, Introspector.getIntrospected(association.getTargetClass()), visited);
+            }
+        }
+    }
+
+    private static List<Object> fetch(Connection connection, List<?> owners, Introspected ownerSpecs, Association association, Set<Association> visited) throws Exception {
+        if (association.getKind() == Association.Kind.MANY_TO_ONE) {
+            return fetchManyToOne(connection, owners, association);
+        }
+        return fetchOneToMany(connection, owners, ownerSpecs, association, visited);
+    }
+
+    private static List<Object> fetchManyToOne(Connection connection, List<?> owners, Association association) throws Exception {
+        Class<?> targetClass = association.getTargetClass();
+        Introspected targetSpecs = Introspector.getIntrospected(targetClass);
+        Field field = association.getField();
+
+        Map<Object, Object> ids = new LinkedHashMap<>();
+        Map<Object, List<Object>> ownersByKey = new LinkedHashMap<>();
+        for (Object owner : owners) {
+            Object reference = field.get(owner);
+            if (reference == null) {
+                continue;
+            }
+            Object id = targetSpecs.getActualIds(reference)[0];
+            if (id != null) {
+                Object key = key(id);
+                ids.putIfAbsent(key, id);
+                ownersByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(owner);
+            }
+        }
+
+        List<Object> targets = loadWhereIn(connection, targetClass, targetSpecs, singleIdColumn(targetSpecs), ids.values());
+        for (Object target : targets) {
+            for (Object owner : ownersByKey.getOrDefault(key(targetSpecs.getActualIds(target)[0]), Collections.emptyList())) {
+                field.set(owner, target);
+            }
+        }
+        return targets;
+    }
+
+    private static List<Object> fetchOneToMany(Connection connection, List<?> owners, Introspected ownerSpecs, Association association, Set<Association> visited) throws Exception {
+        Class<?> targetClass = association.getTargetClass();
+        Introspected targetSpecs = Introspector.getIntrospected(targetClass);
+
+        String joinColumn = association.getJoinColumn();
+        Association backReference = null;
+        if (joinColumn == null) {
+            joinColumn = targetSpecs.getColumnNameForProperty(association.getMappedBy());
+            if (joinColumn == null) {
+                throw new IllegalStateException("mappedBy property " + association.getMappedBy() + " not found on " + targetClass.getCanonicalName());
+            }
+            for (Association candidate : targetSpecs.getAssociations()) {
+                if (candidate.getKind() == Association.Kind.MANY_TO_ONE && candidate.getPropertyName().equals(association.getMappedBy())) {
+                    backReference = candidate;
+                    // stitched to the owners below, no need to load it again
+                    visited.add(candidate);
+                }
+            }
+        }
+
+        Map<Object, Object> ids = new LinkedHashMap<>();
+        Map<Object, List<Object>> ownersByKey = new LinkedHashMap<>();
+        for (Object owner : owners) {
+            Object id = ownerSpecs.getActualIds(owner)[0];
+            if (id != null) {
+                Object key = key(id);
+                ids.putIfAbsent(key, id);
+                ownersByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(owner);
+            }
+        }
+
+        // the foreign key is read from the rows, the target does not have to map it
+        List<Object> foreignKeys = new ArrayList<>();
+        List<Object> targets = loadWhereIn(connection, targetClass, targetSpecs, joinColumn, ids.values(), foreignKeys);
+
+        Map<Object, List<Object>> targetsByKey = new LinkedHashMap<>();
+        for (int i = 0; i < targets.size(); i++) {
+            Object target = targets.get(i);
+            Object key = key(foreignKeys.get(i));
+            targetsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(target);
+            List<Object> keyOwners = ownersByKey.get(key);
+            if (backReference != null && keyOwners != null) {
+                backReference.getField().set(target, keyOwners.get(0));
+            }
+        }
+
+        Field field = association.getField();
+        boolean isSet = Set.class.isAssignableFrom(field.getType());
+        for (Map.Entry<Object, List<Object>> entry : ownersByKey.entrySet()) {
+            List<Object> children = targetsByKey.getOrDefault(entry.getKey(), Collections.emptyList());
+            for (Object owner : entry.getValue()) {
+                field.set(owner, isSet ? new LinkedHashSet<>(children) : new ArrayList<>(children));
+            }
+        }
+        return targets;
+    }
+
+    private static List<Object> loadWhereIn(Connection connection, Class<?> targetClass, Introspected targetSpecs, String column, Collection<Object> ids) throws Exception {
+        return loadWhereIn(connection, targetClass, targetSpecs, column, ids, null);
+    }
+
+    /**
+     * @param columnValues when not null, receives the value of {@code column} of each loaded row
+     */
+    private static List<Object> loadWhereIn(Connection connection, Class<?> targetClass, Introspected targetSpecs, String column, Collection<Object> ids, List<Object> columnValues) throws Exception {
+        List<Object> result = new ArrayList<>(ids.size());
+        Object[] allIds = ids.toArray();
+
+        for (int from = 0; from < allIds.length; from += MAX_BUCKET_SIZE) {
+            int count = Math.min(MAX_BUCKET_SIZE, allIds.length - from);
+            int bucketSize = bucketSize(count);
+
+            Object[] args = Arrays.copyOfRange(allIds, from, from + bucketSize);
+            // pad the bucket with the last id so that only a handful of distinct statements are ever prepared
+            Arrays.fill(args, count, bucketSize, allIds[from + count - 1]);
+
+            result.addAll(SqlQueries.prepareStatement(
+                    connection,
+                    () -> CachingSqlStringBuilder.selectWhereColumnIn(targetSpecs, column, bucketSize),
+                    stmt -> SqlQueries.executeStatement(stmt, resultSet -> columnValues == null
+                            ? ResultSetToolBox.resultSetToList(resultSet, targetClass)
+                            : loadWithColumnValues(resultSet, targetClass, targetSpecs, column, columnValues)),
+                    args
+            ));
+        }
+        return result;
+    }
+
+    private static List<Object> loadWithColumnValues(ResultSet resultSet, Class<?> targetClass, Introspected targetSpecs, String column, List<Object> columnValues) throws Exception {
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        ResultSetToolBox.ResultSetColumnInfo columnInfo;
+        int columnIndex;
+        if (SqlStringBuilder.isMapped(targetSpecs, column)) {
+            columnInfo = new ResultSetToolBox.ResultSetColumnInfo(metaData);
+            columnIndex = resultSet.findColumn(column);
+        } else {
+            // selected after the entity's own columns, see SqlStringBuilder.selectWhereColumnIn
+            columnIndex = metaData.getColumnCount();
+            columnInfo = new ResultSetToolBox.ResultSetColumnInfo(metaData, columnIndex - 1);
+        }
+
+        List<Object> targets = new ArrayList<>();
+        while (resultSet.next()) {
+            targets.add(ResultSetToolBox.toObject(resultSet, targetClass, targetSpecs, columnInfo));
+            columnValues.add(resultSet.getObject(columnIndex));
+        }
+
+        if (recorder.isEnabled()) {
+            recorder.rowsHydrated(targetClass, targets.size(), System.nanoTime() - start);
+        }
+        return targets;
+    }
+
+    static int bucketSize(int count) {
+        int bucketSize = Integer.highestOneBit(count);
+        if (bucketSize < count) {
+            bucketSize <<= 1;
+        }
+        return Math.min(bucketSize, MAX_BUCKET_SIZE);
+    }
+
+    private static String singleIdColumn(Introspected introspected) {
+        String[] idColumnNames = introspected.getIdColumnNames();
+        if (idColumnNames.length != 1) {
+            throw new IllegalStateException("Associations require an entity with a single @Id column");
+        }
+        return idColumnNames[0];
+    }
+
+    private static Object key(Object id) {
+        return id instanceof Number ? ((Number) id).longValue() : id;
+    }
+}
@@ -0,0 +1,137 @@
+package org.jnaalisv.sqlmapper;
+
+import com.zaxxer.sansorm.internal.Introspector;
+import org.jnaalisv.sqlmapper.internal.QueryExecutors;
+import org.jnaalisv.sqlmapper.internal.ResultSetConsumer;
+import org.jnaalisv.sqlmapper.internal.ResultSetToolBox;
+import org.jnaalisv.sqlmapper.internal.StatementCanceller;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Runs {@link SqlQueries} calls on an executor. Each call borrows its own connection, so independent
+ * futures can be combined with {@link CompletableFuture#allOf}. Cancelling a returned future cancels
+ * the JDBC statement if it is executing, and keeps a {@link #supply} operation from starting new ones.
+ */
+public class AsyncSqlQueries {
+
+    private final SqlQueries sqlQueries;
+    private final Executor executor;
+
+    public AsyncSqlQueries(SqlQueries sqlQueries, Executor executor) {
+        this.sqlQueries = sqlQueries;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the calls on a bounded executor of its own; {@code poolSize} should match the connection pool, so
+     * that queued calls wait for a thread rather than for a connection.
+     */
+    public AsyncSqlQueries(SqlQueries sqlQueries, int poolSize) {
+        this(sqlQueries, QueryExecutors.newAsyncExecutor(poolSize));
+    }
+
+    public <T> CompletableFuture<T> execute(Callable<String> sqlProducer, ResultSetConsumer<T> resultSetConsumer, Object... args) {
+        return supply(queries -> queries.execute(sqlProducer, resultSetConsumer, args));
+    }
+
+    public <T> CompletableFuture<T> supply(Function<SqlQueries, T> operation) {
+        StatementCanceller canceller = new StatementCanceller();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                canceller.cancel();
+            }
+        });
+
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(canceller.runWith(() -> operation.apply(sqlQueries)));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    // -------------------- //
+    //     List Queries     //
+    // -------------------- //
+
+    public <T> CompletableFuture<List<T>> query(Class<T> entityClass, String fullSqlQuery, Object... args) {
+        return execute(
+                () -> fullSqlQuery,
+                resultSet -> ResultSetToolBox.resultSetToList(resultSet, entityClass),
+                args
+        );
+    }
+
+    public <T> CompletableFuture<List<T>> queryByClause(Class<T> entityClass, String sqlWhereClause, Object... args) {
+        return execute(
+                () -> CachingSqlStringBuilder.generateSelectFromClause(Introspector.getIntrospected(entityClass), sqlWhereClause),
+                resultSet -> ResultSetToolBox.resultSetToList(resultSet, entityClass),
+                args
+        );
+    }
+
+    public <T> CompletableFuture<List<T>> queryAll(Class<T> entityClass) {
+        return queryByClause(entityClass, null);
+    }
+
+    public CompletableFuture<ColumnarResult> queryColumns(String sql, Object... args) {
+        return execute(() -> sql, ColumnarResult::fromResultSet, args);
+    }
+
+    // -------------------- //
+    //    Object Queries    //
+    // -------------------- //
+
+    public <T> CompletableFuture<Optional<T>> queryForOne(String sql, Class<T> entityClass, Object... args) {
+        return execute(
+                () -> sql,
+                resultSet -> ResultSetToolBox.resultSetToObject(resultSet, entityClass),
+                args
+        );
+    }
+
+    public <T> CompletableFuture<Optional<T>> queryForOneById(Class<T> entityClass, Object... ids) {
+        return execute(
+                () -> CachingSqlStringBuilder.getObjectByIdSql(entityClass),
+                resultSet -> ResultSetToolBox.resultSetToObject(resultSet, entityClass),
+                ids
+        );
+    }
+
+    public <T> CompletableFuture<Optional<T>> queryForOneByClause(Class<T> entityClass, String clause, Object... args) {
+        return execute(
+                () -> CachingSqlStringBuilder.generateSelectFromClause(Introspector.getIntrospected(entityClass), clause),
+                resultSet -> ResultSetToolBox.resultSetToObject(resultSet, entityClass),
+                args
+        );
+    }
+
+    // -------------------- //
+    //    Number Queries    //
+    // -------------------- //
+
+    public <T> CompletableFuture<Integer> countObjectsFromClause(Class<T> clazz, String clause, Object... args) {
+        return execute(
+                () -> CachingSqlStringBuilder.countObjectsFromClause(Introspector.getIntrospected(clazz), clause),
+                resultSet -> {
+                    if (resultSet.next()) {
+                        return resultSet.getInt(1);
+                    }
+                    throw new RuntimeException("count query returned without results");
+                },
+                args
+        );
+    }
+}
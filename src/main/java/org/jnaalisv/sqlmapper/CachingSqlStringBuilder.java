@@ -4,6 +4,7 @@ import com.zaxxer.sansorm.internal.Introspected;
 import com.zaxxer.sansorm.internal.Introspector;
 import org.jnaalisv.sqlmapper.internal.TableSpecs;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -14,38 +15,62 @@ public final class CachingSqlStringBuilder {
 
     private static Map<String, String> csvCache = new ConcurrentHashMap<>();
 
-    private static final Map<String, String> fromClauseStmtCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(CACHE_SIZE) {
+    private static final Map<String, String> fromClauseStmtCache = Collections.synchronizedMap(new StatementCache());
+
+    private static Map<String, String> updateStatementCache = Collections.synchronizedMap(new StatementCache());
+
+    private static Map<String, String> createStatementCache = Collections.synchronizedMap(new StatementCache());
+
+    private static final Map<String, String> idRangeStmtCache = Collections.synchronizedMap(new StatementCache());
+
+    private static final Map<String, String> aggregateStmtCache = Collections.synchronizedMap(new StatementCache());
+
+    private static final Map<String, String> inListStmtCache = Collections.synchronizedMap(new StatementCache());
+
+    private static final class StatementCache extends LinkedHashMap<String, String> {
         private static final long serialVersionUID = 6259942586093454872L;
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
-            return this.size() > CACHE_SIZE;
+        StatementCache() {
+            super(CACHE_SIZE);
         }
-    });
-
-    private static Map<String, String> updateStatementCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(CACHE_SIZE) {
-        private static final long serialVersionUID = -5324251353646078607L;
 
         @Override
         protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
             return this.size() > CACHE_SIZE;
         }
-    });
+    }
 
-    private static Map<String, String> createStatementCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(CACHE_SIZE) {
-        private static final long serialVersionUID = 4559270460685275064L;
+    private CachingSqlStringBuilder() {}
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
-            return this.size() > CACHE_SIZE;
+    // several entity classes can map the same table with different columns, and a redeployed class keeps its name;
+    // specs without an entity class are keyed by the instance
+    private static String cacheKeyOf(TableSpecs tableSpecs) {
+        Class<?> entityClass = tableSpecs.getEntityClass();
+        if (entityClass == null) {
+            return tableSpecs.getTableName() + '#' + Integer.toHexString(System.identityHashCode(tableSpecs)) + '/';
         }
-    });
+        return keyPrefixOf(entityClass);
+    }
 
+    private static String keyPrefixOf(Class<?> entityClass) {
+        return entityClass.getName() + '@' + Integer.toHexString(System.identityHashCode(entityClass)) + '/';
+    }
 
-    private CachingSqlStringBuilder() {}
+    /**
+     * Drops the SQL cached for the entity class.
+     */
+    public static void evict(Class<?> entityClass) {
+        String keyPrefix = keyPrefixOf(entityClass);
+        csvCache.keySet().removeIf(key -> key.contains(keyPrefix));
+        for (Map<String, String> cache : Arrays.asList(fromClauseStmtCache, updateStatementCache, createStatementCache, idRangeStmtCache, aggregateStmtCache, inListStmtCache)) {
+            synchronized (cache) {
+                cache.keySet().removeIf(key -> key.contains(keyPrefix));
+            }
+        }
+    }
 
     public static <T> String getColumnsCsv(TableSpecs tableSpecs, String... tablePrefix) {
-        String cacheKey = (tablePrefix == null || tablePrefix.length == 0 ? tableSpecs.getTableName() : tablePrefix[0] + tableSpecs.getTableName());
+        String cacheKey = (tablePrefix == null || tablePrefix.length == 0 ? cacheKeyOf(tableSpecs) : tablePrefix[0] + cacheKeyOf(tableSpecs));
         String columnCsv = csvCache.get(cacheKey);
         if (columnCsv == null) {
             columnCsv = SqlStringBuilder.getColumnsCsv(tableSpecs, tablePrefix);
@@ -56,7 +81,7 @@ public final class CachingSqlStringBuilder {
     }
 
     public static <T> String generateSelectFromClause(TableSpecs tableSpecs, String clause) {
-        String cacheKey = tableSpecs.getTableName() + clause;
+        String cacheKey = cacheKeyOf(tableSpecs) + clause;
         String sql = fromClauseStmtCache.get(cacheKey);
         if (sql == null) {
             sql = SqlStringBuilder.generateSelectFromClause(tableSpecs, clause);
@@ -65,8 +90,64 @@ public final class CachingSqlStringBuilder {
         return sql;
     }
 
+    public static String selectWhereColumnIn(TableSpecs tableSpecs, String column, int parameterCount) {
+        String cacheKey = cacheKeyOf(tableSpecs) + '.' + column + ':' + parameterCount;
+        String sql = inListStmtCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.selectWhereColumnIn(tableSpecs, column, parameterCount);
+            inListStmtCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
     public static String countObjectsFromClause(TableSpecs tableSpecs, String clause) {
-        return SqlStringBuilder.countObjectsFromClause(tableSpecs, clause);
+        String cacheKey = "COUNT:" + cacheKeyOf(tableSpecs) + clause;
+        String sql = aggregateStmtCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.countObjectsFromClause(tableSpecs, clause);
+            aggregateStmtCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
+    public static String existsFromClause(TableSpecs tableSpecs, String clause) {
+        String cacheKey = "EXISTS:" + cacheKeyOf(tableSpecs) + clause;
+        String sql = aggregateStmtCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.existsFromClause(tableSpecs, clause);
+            aggregateStmtCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
+    public static String aggregateFromClause(TableSpecs tableSpecs, String function, String column, String clause) {
+        String cacheKey = function + ':' + cacheKeyOf(tableSpecs) + '.' + column + ':' + clause;
+        String sql = aggregateStmtCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.aggregateFromClause(tableSpecs, function, column, clause);
+            aggregateStmtCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
+    public static String selectIdRangeFromClause(TableSpecs tableSpecs, String clause) {
+        String cacheKey = "MINMAX:" + cacheKeyOf(tableSpecs) + clause;
+        String sql = idRangeStmtCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.selectIdRangeFromClause(tableSpecs, clause);
+            idRangeStmtCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
+    public static String generateSelectWithinIdRange(TableSpecs tableSpecs, String clause) {
+        String cacheKey = "BETWEEN:" + cacheKeyOf(tableSpecs) + clause;
+        String sql = idRangeStmtCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.generateSelectWithinIdRange(tableSpecs, clause);
+            idRangeStmtCache.put(cacheKey, sql);
+        }
+        return sql;
     }
 
     public static String constructWhereSql(String[] idColumnNames) {
@@ -74,19 +155,49 @@ public final class CachingSqlStringBuilder {
     }
 
     public static String createStatementForUpdateSql(TableSpecs tableSpecs) {
-        String sql = updateStatementCache.get(tableSpecs.getTableName());
+        String sql = updateStatementCache.get(cacheKeyOf(tableSpecs));
         if (sql == null) {
             sql = SqlStringBuilder.createStatementForUpdateSql(tableSpecs);
-            updateStatementCache.put(tableSpecs.getTableName(), sql);
+            updateStatementCache.put(cacheKeyOf(tableSpecs), sql);
         }
         return sql;
     }
 
     public static String createStatementForInsertSql(TableSpecs tableSpecs) {
-        String sql = createStatementCache.get(tableSpecs.getTableName());
+        String sql = createStatementCache.get(cacheKeyOf(tableSpecs));
         if (sql == null) {
             sql = SqlStringBuilder.createStatementForInsertSql(tableSpecs);
-            createStatementCache.put(tableSpecs.getTableName(), sql);
+            createStatementCache.put(cacheKeyOf(tableSpecs), sql);
+        }
+        return sql;
+    }
+
+    public static String createStatementForInsertReturningSql(TableSpecs tableSpecs) {
+        String cacheKey = "RETURNING:" + cacheKeyOf(tableSpecs);
+        String sql = createStatementCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.createStatementForInsertReturningSql(tableSpecs);
+            createStatementCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
+    public static String createStatementForMultiRowInsertReturningSql(TableSpecs tableSpecs, int rowCount) {
+        String cacheKey = "RETURNING:" + cacheKeyOf(tableSpecs) + ':' + rowCount;
+        String sql = createStatementCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.createStatementForMultiRowInsertReturningSql(tableSpecs, rowCount);
+            createStatementCache.put(cacheKey, sql);
+        }
+        return sql;
+    }
+
+    public static String createStatementForUpdateReturningSql(TableSpecs tableSpecs) {
+        String cacheKey = "RETURNING:" + cacheKeyOf(tableSpecs);
+        String sql = updateStatementCache.get(cacheKey);
+        if (sql == null) {
+            sql = SqlStringBuilder.createStatementForUpdateReturningSql(tableSpecs);
+            updateStatementCache.put(cacheKey, sql);
         }
         return sql;
     }
@@ -0,0 +1,297 @@
+package org.jnaalisv.sqlmapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * One column of a {@link ColumnarResult}. Integral columns are read into int or long arrays and floating point
+ * columns into double arrays. DECIMAL and NUMERIC columns are read as long only when they have no fraction and
+ * at most 18 digits; otherwise they keep their BigDecimal values in an object column.
+ */
+public abstract class ColumnBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+
+    public enum Kind {
+        INT, LONG, DOUBLE, OBJECT
+    }
+
+    private final String name;
+    protected int size;
+    private long[] nulls = new long[1];
+
+    ColumnBuffer(String name) {
+        this.name = name;
+    }
+
+    static ColumnBuffer forColumn(ResultSetMetaData metaData, int column, String name) throws SQLException {
+        switch (metaData.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new IntColumn(name);
+
+            case Types.BIGINT:
+                return new LongColumn(name);
+
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleColumn(name);
+
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                if (metaData.getScale(column) == 0 && metaData.getPrecision(column) > 0 && metaData.getPrecision(column) <= 18) {
+                    return new LongColumn(name);
+                }
+                return new ObjectColumn(name);
+
+            default:
+                return new ObjectColumn(name);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract Kind getKind();
+
+    abstract void read(ResultSet resultSet, int column) throws SQLException;
+
+    final void readNext(ResultSet resultSet, int column) throws SQLException {
+        ensureCapacity(size + 1);
+        read(resultSet, column);
+        if (resultSet.wasNull()) {
+            nulls[size >>> 6] |= 1L << size;
+        }
+        ++size;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity()) {
+            int newCapacity = Math.max(INITIAL_CAPACITY, capacity() + (capacity() >> 1));
+            grow(Math.max(newCapacity, minCapacity));
+        }
+        if ((minCapacity + 63) >>> 6 > nulls.length) {
+            nulls = Arrays.copyOf(nulls, Math.max(nulls.length << 1, (minCapacity + 63) >>> 6));
+        }
+    }
+
+    abstract int capacity();
+
+    abstract void grow(int newCapacity);
+
+    public boolean isNull(int row) {
+        checkRow(row);
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    public long[] nullBitmap() {
+        return nulls;
+    }
+
+    public int getInt(int row) {
+        throw wrongKind("int");
+    }
+
+    public long getLong(int row) {
+        throw wrongKind("long");
+    }
+
+    public double getDouble(int row) {
+        throw wrongKind("double");
+    }
+
+    final IllegalStateException wrongKind(String type) {
+        return new IllegalStateException("Column " + name + " is of kind " + getKind() + " and cannot be read as " + type);
+    }
+
+    public abstract Object getObject(int row);
+
+    protected final void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+    }
+
+    static final class IntColumn extends ColumnBuffer {
+        private int[] values = new int[0];
+
+        IntColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.INT;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column) throws SQLException {
+            values[size] = resultSet.getInt(column);
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        int[] values() {
+            return values;
+        }
+
+        @Override
+        public int getInt(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return getInt(row);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return getInt(row);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    static final class LongColumn extends ColumnBuffer {
+        private long[] values = new long[0];
+
+        LongColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.LONG;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column) throws SQLException {
+            values[size] = resultSet.getLong(column);
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        long[] values() {
+            return values;
+        }
+
+        @Override
+        public long getLong(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return getLong(row);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    static final class DoubleColumn extends ColumnBuffer {
+        private double[] values = new double[0];
+
+        DoubleColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.DOUBLE;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column) throws SQLException {
+            values[size] = resultSet.getDouble(column);
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        double[] values() {
+            return values;
+        }
+
+        @Override
+        public double getDouble(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isNull(row) ? null : values[row];
+        }
+    }
+
+    static final class ObjectColumn extends ColumnBuffer {
+        private Object[] values = new Object[0];
+
+        ObjectColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public Kind getKind() {
+            return Kind.OBJECT;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int column) throws SQLException {
+            values[size] = resultSet.getObject(column);
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        public Object getObject(int row) {
+            checkRow(row);
+            return values[row];
+        }
+    }
+}
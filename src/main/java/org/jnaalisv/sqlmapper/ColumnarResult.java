@@ -0,0 +1,127 @@
+package org.jnaalisv.sqlmapper;
+
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.MetricsRecorder;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Query result stored column by column in primitive arrays. Rows and columns are indexed from zero.
+ * The arrays returned by {@link #intArray}, {@link #longArray} and {@link #doubleArray} are the backing
+ * arrays themselves; they may be longer than {@link #getRowCount()}.
+ */
+public final class ColumnarResult {
+
+    private final String[] columnNames;
+    private final ColumnBuffer[] columns;
+    private final int rowCount;
+
+    private ColumnarResult(String[] columnNames, ColumnBuffer[] columns, int rowCount) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    static ColumnarResult fromResultSet(ResultSet resultSet) throws SQLException {
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        String[] columnNames = new String[columnCount];
+        ColumnBuffer[] columns = new ColumnBuffer[columnCount];
+        for (int column = columnCount; column > 0; column--) {
+            columnNames[column - 1] = metaData.getColumnLabel(column).toLowerCase();
+            columns[column - 1] = ColumnBuffer.forColumn(metaData, column, columnNames[column - 1]);
+        }
+
+        int rowCount = 0;
+        while (resultSet.next()) {
+            for (int column = columnCount; column > 0; column--) {
+                columns[column - 1].readNext(resultSet, column);
+            }
+            ++rowCount;
+        }
+
+        if (recorder.isEnabled()) {
+            recorder.rowsHydrated(ColumnarResult.class, rowCount, System.nanoTime() - start);
+        }
+        return new ColumnarResult(columnNames, columns, rowCount);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No column " + columnName + " in result");
+    }
+
+    public ColumnBuffer getColumn(int column) {
+        return columns[column];
+    }
+
+    public ColumnBuffer getColumn(String columnName) {
+        return columns[getColumnIndex(columnName)];
+    }
+
+    public boolean isNull(String columnName, int row) {
+        return getColumn(columnName).isNull(row);
+    }
+
+    public int getInt(String columnName, int row) {
+        return getColumn(columnName).getInt(row);
+    }
+
+    public long getLong(String columnName, int row) {
+        return getColumn(columnName).getLong(row);
+    }
+
+    public double getDouble(String columnName, int row) {
+        return getColumn(columnName).getDouble(row);
+    }
+
+    public Object getObject(String columnName, int row) {
+        return getColumn(columnName).getObject(row);
+    }
+
+    public int[] intArray(String columnName) {
+        return columnOfKind(columnName, ColumnBuffer.Kind.INT, ColumnBuffer.IntColumn.class).values();
+    }
+
+    public long[] longArray(String columnName) {
+        return columnOfKind(columnName, ColumnBuffer.Kind.LONG, ColumnBuffer.LongColumn.class).values();
+    }
+
+    public double[] doubleArray(String columnName) {
+        return columnOfKind(columnName, ColumnBuffer.Kind.DOUBLE, ColumnBuffer.DoubleColumn.class).values();
+    }
+
+    public long[] nullBitmap(String columnName) {
+        return getColumn(columnName).nullBitmap();
+    }
+
+    private <C extends ColumnBuffer> C columnOfKind(String columnName, ColumnBuffer.Kind kind, Class<C> columnClass) {
+        ColumnBuffer column = getColumn(columnName);
+        if (column.getKind() != kind) {
+            throw new IllegalStateException("Column " + columnName + " is of kind " + column.getKind() + ", not " + kind);
+        }
+        return columnClass.cast(column);
+    }
+}
@@ -0,0 +1,247 @@
+package org.jnaalisv.sqlmapper;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import org.jnaalisv.sqlmapper.internal.DataSourceRouter;
+import org.jnaalisv.sqlmapper.internal.ResultSetToolBox;
+import org.jnaalisv.sqlmapper.internal.StatementWrapper;
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.MetricsRecorder;
+import org.jnaalisv.sqlmapper.metrics.StatementTracker;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A select with its SQL built once, created by {@link SqlQueries#compile(Class, String)}. Parameter types and
+ * the column plan are resolved on the first execution and reused afterwards, so executing it does no string
+ * building or cache lookups. Instances are immutable apart from those memoized plans and can be shared
+ * between threads.
+ */
+public final class CompiledQuery<T> {
+
+    private final SqlQueries sqlQueries;
+    private final Class<T> entityClass;
+    private final Introspected introspected;
+    private final String sql;
+    private final boolean fetchesAssociations;
+
+    private volatile int[] parameterTypes;
+    private volatile ResultSetToolBox.ResultSetColumnInfo columnPlan;
+
+    CompiledQuery(SqlQueries sqlQueries, Class<T> entityClass, Introspected introspected, String sql) {
+        this.sqlQueries = sqlQueries;
+        this.entityClass = entityClass;
+        this.introspected = introspected;
+        this.sql = sql;
+        this.fetchesAssociations = introspected.hasEagerAssociations();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<T> list(Object... args) {
+        return sqlQueries.getReadConnection(connection -> {
+            List<T> entities = SqlQueries.prepareStatement(
+                    connection,
+                    sql,
+                    parameterTypes,
+                    stmt -> {
+                        learnParameterTypes(stmt);
+                        return SqlQueries.executeStatement(stmt, resultSet -> ResultSetToolBox.resultSetToList(resultSet, entityClass, introspected, columnPlan(resultSet)));
+                    },
+                    args
+            );
+            if (fetchesAssociations) {
+                AssociationFetcher.fetchEager(connection, entities, introspected);
+            }
+            return entities;
+        });
+    }
+
+    public Optional<T> one(Object... args) {
+        return sqlQueries.getReadConnection(connection -> {
+            Optional<T> entity = SqlQueries.prepareStatement(
+                    connection,
+                    sql,
+                    parameterTypes,
+                    stmt -> {
+                        learnParameterTypes(stmt);
+                        stmt.setMaxRows(1);
+                        return SqlQueries.executeStatement(stmt, resultSet -> ResultSetToolBox.resultSetToObject(resultSet, entityClass, introspected, columnPlan(resultSet)));
+                    },
+                    args
+            );
+            if (fetchesAssociations && entity.isPresent()) {
+                AssociationFetcher.fetchEager(connection, Collections.singletonList(entity.get()), introspected);
+            }
+            return entity;
+        });
+    }
+
+    /**
+     * Rows are hydrated as the stream is consumed. The connection stays open until the stream is closed,
+     * so use it in a try-with-resources block. The statement is reported to the metrics recorder when the
+     * stream is closed, timed from execution to close and with the number of rows consumed.
+     */
+    public Stream<T> stream(Object... args) {
+        DataSourceRouter router = sqlQueries.dataSourceRouter();
+        DataSource dataSource = router.acquireRead();
+        MetricsRecorder recorder = Metrics.recorder();
+
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        long executeStart = 0L;
+        try {
+            long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+            connection = dataSource.getConnection();
+            if (recorder.isEnabled()) {
+                long now = System.nanoTime();
+                recorder.connectionAcquired(now - start);
+                start = now;
+            }
+
+            StatementTracker.statementExecuted(sql, args);
+            stmt = connection.prepareStatement(sql);
+            if (args.length != 0) {
+                int[] types = parameterTypes;
+                if (types == null) {
+                    StatementWrapper.populateStatementParameters(stmt, args);
+                } else {
+                    StatementWrapper.populateStatementParameters(stmt, types, args);
+                }
+            }
+            learnParameterTypes(stmt);
+            if (recorder.isEnabled()) {
+                executeStart = System.nanoTime();
+                recorder.statementPrepared(sql, executeStart - start);
+            }
+
+            resultSet = stmt.executeQuery();
+            if (recorder.isEnabled()) {
+                recorder.queryExecuted(System.nanoTime() - executeStart);
+            }
+
+            StreamedRows rows = new StreamedRows(resultSet, columnPlan(resultSet), recorder, executeStart, args);
+            Connection openConnection = connection;
+            PreparedStatement openStatement = stmt;
+            return StreamSupport.stream(rows, false)
+                    .onClose(() -> {
+                        rows.completed();
+                        close(rows.resultSet, openStatement, openConnection, router, dataSource);
+                    });
+        } catch (Exception e) {
+            close(resultSet, stmt, connection, router, dataSource);
+            if (recorder.isEnabled()) {
+                recorder.statementFailed(sql, args, executeStart == 0L ? 0L : System.nanoTime() - executeStart, e);
+            }
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Hydrates rows on demand and reports the statement to the recorder once, like
+     * {@link SqlQueries#prepareStatement} does for the other queries.
+     */
+    private final class StreamedRows extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet resultSet;
+        private final ResultSetToolBox.ResultSetColumnInfo plan;
+        private final MetricsRecorder recorder;
+        private final long executeStart;
+        private final Object[] args;
+        private int rowCount;
+        private boolean reported;
+
+        StreamedRows(ResultSet resultSet, ResultSetToolBox.ResultSetColumnInfo plan, MetricsRecorder recorder, long executeStart, Object[] args) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.plan = plan;
+            this.recorder = recorder;
+            this.executeStart = executeStart;
+            this.args = args;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            T entity;
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                entity = ResultSetToolBox.toObject(resultSet, entityClass, introspected, plan);
+            } catch (Exception e) {
+                failed(e);
+                throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+            }
+            ++rowCount;
+            action.accept(entity);
+            return true;
+        }
+
+        void completed() {
+            if (!reported && recorder.isEnabled()) {
+                reported = true;
+                recorder.statementCompleted(sql, args, System.nanoTime() - executeStart, rowCount);
+            }
+        }
+
+        private void failed(Exception e) {
+            if (!reported && recorder.isEnabled()) {
+                reported = true;
+                recorder.statementFailed(sql, args, System.nanoTime() - executeStart, e);
+            }
+        }
+    }
+
+    private void learnParameterTypes(PreparedStatement stmt) throws SQLException {
+        if (parameterTypes == null) {
+            parameterTypes = StatementWrapper.getParameterTypes(stmt);
+        }
+    }
+
+    private ResultSetToolBox.ResultSetColumnInfo columnPlan(ResultSet resultSet) throws SQLException {
+        ResultSetToolBox.ResultSetColumnInfo plan = columnPlan;
+        if (plan == null) {
+            plan = ResultSetToolBox.columnPlan(resultSet.getMetaData(), introspected);
+            columnPlan = plan;
+        }
+        return plan;
+    }
+
+    private static void close(ResultSet resultSet, PreparedStatement stmt, Connection connection, DataSourceRouter router, DataSource dataSource) {
+        RuntimeException failure = null;
+        for (AutoCloseable closeable : new AutoCloseable[]{resultSet, stmt, connection}) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new RuntimeException(e);
+                }
+            }
+        }
+        router.release(dataSource);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledQuery[" + sql + "]";
+    }
+}
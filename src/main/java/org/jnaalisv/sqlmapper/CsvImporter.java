@@ -0,0 +1,242 @@
+package org.jnaalisv.sqlmapper;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import org.jnaalisv.sqlmapper.internal.Lobs;
+import org.jnaalisv.sqlmapper.internal.MappedCsvReader;
+import org.jnaalisv.sqlmapper.internal.StatementWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk inserts a CSV file into an entity table. The header row names the columns. One thread parses the
+ * memory-mapped file and converts the values into a fixed set of recycled row chunks, while the calling thread
+ * binds each chunk as one JDBC batch, so parsing and inserting overlap.
+ */
+final class CsvImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CsvImporter.class);
+
+    private static final int BATCH_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.importBatchSize", 1000);
+    private static final int QUEUED_CHUNKS = 4;
+
+    private CsvImporter() {}
+
+    private static final class Column {
+        final Introspected.FieldColumnInfo fcInfo;
+        final Object constant;
+        final Class<?> fieldType;
+
+        Column(Introspected.FieldColumnInfo fcInfo, Object constant) {
+            this.fcInfo = fcInfo;
+            this.constant = constant;
+            this.fieldType = fcInfo == null ? null : fcInfo.getField().getType();
+        }
+    }
+
+    private static final class Chunk {
+        final Object[][] rows;
+        int size;
+
+        Chunk(int rowCount, int columnCount) {
+            this.rows = new Object[rowCount][columnCount];
+        }
+    }
+
+    private static final Chunk END = new Chunk(0, 0);
+
+    static ImportResult importCsv(Connection connection, ExecutorService executor, Introspected introspected, Path csvFile) throws Exception {
+        long start = System.nanoTime();
+
+        MappedCsvReader reader = new MappedCsvReader(csvFile);
+        boolean handedOver = false;
+        try {
+            if (!reader.next()) {
+                return new ImportResult(0, System.nanoTime() - start);
+            }
+
+            List<String> columnNames = new ArrayList<>();
+            List<Column> columns = new ArrayList<>();
+            for (int field = 0; field < reader.fieldCount(); field++) {
+                String columnName = reader.getString(field).trim().toLowerCase();
+                Introspected.FieldColumnInfo fcInfo = introspected.findFieldColumnInfo(columnName);
+                if (fcInfo == null || !introspected.isInsertableColumn(columnName)) {
+                    throw new IllegalArgumentException("CSV column '" + columnName + "' is not an insertable column of " + introspected.getTableName());
+                }
+                if (!fcInfo.isConverted() && !MappedCsvReader.canRead(fcInfo.getField().getType())) {
+                    throw new IllegalArgumentException("CSV column '" + columnName + "' cannot be read as " + fcInfo.getField().getType().getName());
+                }
+                columnNames.add(columnName);
+                columns.add(new Column(fcInfo, null));
+            }
+            if (introspected.hasVersionColumn() && !columnNames.contains(introspected.getVersionColumnName())) {
+                columnNames.add(introspected.getVersionColumnName());
+                columns.add(new Column(null, 0L));
+            }
+
+            int headerFieldCount = reader.fieldCount();
+            Column[] columnArray = columns.toArray(new Column[0]);
+            String sql = SqlStringBuilder.createStatementForInsertSql(introspected.getTableName(), columnNames.toArray(new String[0]));
+
+            handedOver = true;
+            long rowCount = SqlQueries.prepareStatement(
+                    connection,
+                    () -> sql,
+                    preparedStatement -> insert(preparedStatement, executor, reader, headerFieldCount, columnArray)
+            );
+
+            ImportResult result = new ImportResult(rowCount, System.nanoTime() - start);
+            LOGGER.debug("Imported {} into {}: {}", csvFile, introspected.getTableName(), result);
+            return result;
+        } finally {
+            if (!handedOver) {
+                reader.close();
+            }
+        }
+    }
+
+    private static long insert(PreparedStatement preparedStatement, ExecutorService executor, MappedCsvReader reader, int headerFieldCount, Column[] columns) throws Exception {
+        int[] parameterTypes = StatementWrapper.getParameterTypes(preparedStatement);
+
+        BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(QUEUED_CHUNKS + 2);
+        for (int i = 0; i < QUEUED_CHUNKS + 2; i++) {
+            free.add(new Chunk(BATCH_SIZE, columns.length));
+        }
+        BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(QUEUED_CHUNKS + 1);
+
+        Parser parser = new Parser(reader, headerFieldCount, columns, parameterTypes, free, filled);
+        Future<?> parsing;
+        try {
+            parsing = executor.submit(parser);
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+
+        long rowCount = 0;
+        try {
+            Chunk chunk;
+            while ((chunk = filled.take()) != END) {
+                for (int row = 0; row < chunk.size; row++) {
+                    Object[] values = chunk.rows[row];
+                    for (int column = 0; column < columns.length; column++) {
+                        Object value = values[column];
+                        if (value == null) {
+                            preparedStatement.setNull(column + 1, parameterTypes[column]);
+                        } else if (!Lobs.bindStream(preparedStatement, column + 1, value)) {
+                            preparedStatement.setObject(column + 1, value, parameterTypes[column]);
+                        }
+                    }
+                    preparedStatement.addBatch();
+                }
+                for (int updateCount : preparedStatement.executeBatch()) {
+                    rowCount += updateCount == Statement.SUCCESS_NO_INFO ? 1 : updateCount;
+                }
+                free.put(chunk);
+            }
+        } finally {
+            parsing.cancel(true);
+        }
+
+        if (parser.failure != null) {
+            throw parser.failure;
+        }
+        return rowCount;
+    }
+
+    private static final class Parser implements Runnable {
+        private final MappedCsvReader reader;
+        private final int headerFieldCount;
+        private final Column[] columns;
+        private final int[] parameterTypes;
+        private final BlockingQueue<Chunk> free;
+        private final BlockingQueue<Chunk> filled;
+
+        volatile Exception failure;
+
+        Parser(MappedCsvReader reader, int headerFieldCount, Column[] columns, int[] parameterTypes, BlockingQueue<Chunk> free, BlockingQueue<Chunk> filled) {
+            this.reader = reader;
+            this.headerFieldCount = headerFieldCount;
+            this.columns = columns;
+            this.parameterTypes = parameterTypes;
+            this.free = free;
+            this.filled = filled;
+        }
+
+        @Override
+        public void run() {
+            long recordNumber = 1;
+            try {
+                Chunk chunk = free.take();
+                while (reader.next()) {
+                    ++recordNumber;
+                    if (reader.fieldCount() != headerFieldCount) {
+                        throw new IOException("CSV record " + recordNumber + " has " + reader.fieldCount() + " fields, the header has " + headerFieldCount);
+                    }
+                    Object[] values = chunk.rows[chunk.size++];
+                    try {
+                        for (int column = 0; column < columns.length; column++) {
+                            values[column] = databaseValue(column);
+                        }
+                    } catch (RuntimeException e) {
+                        throw new IOException("CSV record " + recordNumber + ": " + e.getMessage(), e);
+                    }
+
+                    if (chunk.size == chunk.rows.length) {
+                        filled.put(chunk);
+                        chunk = free.take();
+                        chunk.size = 0;
+                    }
+                }
+                if (chunk.size > 0) {
+                    filled.put(chunk);
+                }
+                filled.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(new InterruptedIOException("CSV parsing was interrupted"));
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Closing the CSV file failed", e);
+                }
+            }
+        }
+
+        // the consumer only stops at END, so it is queued on every way out
+        private void fail(Exception e) {
+            failure = e;
+            filled.clear();
+            filled.offer(END);
+        }
+
+        private Object databaseValue(int column) throws Exception {
+            Column columnInfo = columns[column];
+            if (columnInfo.fcInfo == null) {
+                return columnInfo.constant;
+            }
+            if (reader.isNull(column)) {
+                return null;
+            }
+
+            Object fieldValue = columnInfo.fcInfo.isConverted()
+                    ? columnInfo.fcInfo.textToFieldValue(reader.getString(column))
+                    : reader.get(column, columnInfo.fieldType);
+            return columnInfo.fcInfo.toDatabaseValue(fieldValue, parameterTypes[column]);
+        }
+    }
+}
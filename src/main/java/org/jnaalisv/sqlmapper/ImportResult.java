@@ -0,0 +1,34 @@
+package org.jnaalisv.sqlmapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a bulk import: how many rows were inserted and how long it took.
+ */
+public final class ImportResult {
+
+    private final long rowCount;
+    private final long elapsedNanos;
+
+    ImportResult(long rowCount, long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %d ms (%.0f rows/s)", rowCount, getElapsed(TimeUnit.MILLISECONDS), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,107 @@
+package org.jnaalisv.sqlmapper;
+
+import org.jnaalisv.sqlmapper.internal.DataSourceRouter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends reads to replicas and writes to the primary. With a read-your-writes window, a thread that
+ * has written is pinned to the primary for reads until the window has passed.
+ */
+public class ReadWriteRouting implements DataSourceRouter {
+
+    public enum ReplicaSelection {
+        ROUND_ROBIN,
+        LEAST_IN_FLIGHT
+    }
+
+    private final DataSource primary;
+    private final DataSource[] replicas;
+    private final AtomicInteger[] inFlight;
+    private final ReplicaSelection replicaSelection;
+    private final long readYourWritesNanos;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<long[]> lastWrite = ThreadLocal.withInitial(() -> new long[]{0L, 0L});
+
+    public ReadWriteRouting(DataSource primary, List<DataSource> replicas) {
+        this(primary, replicas, ReplicaSelection.ROUND_ROBIN, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public ReadWriteRouting(DataSource primary, List<DataSource> replicas, ReplicaSelection replicaSelection, long readYourWritesWindow, TimeUnit unit) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas).toArray(new DataSource[0]);
+        this.inFlight = new AtomicInteger[this.replicas.length];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = new AtomicInteger();
+        }
+        this.replicaSelection = replicaSelection;
+        this.readYourWritesNanos = unit.toNanos(readYourWritesWindow);
+    }
+
+    @Override
+    public DataSource acquireRead() {
+        if (replicas.length == 0 || isPinnedToPrimary()) {
+            return primary;
+        }
+
+        int replica = replicaSelection == ReplicaSelection.LEAST_IN_FLIGHT ? leastInFlight() : roundRobin();
+        inFlight[replica].incrementAndGet();
+        return replicas[replica];
+    }
+
+    @Override
+    public DataSource acquireWrite() {
+        if (readYourWritesNanos > 0) {
+            long[] write = lastWrite.get();
+            write[0] = System.nanoTime();
+            write[1] = 1L;
+        }
+        return primary;
+    }
+
+    @Override
+    public void release(DataSource dataSource) {
+        for (int i = 0; i < replicas.length; i++) {
+            if (replicas[i] == dataSource) {
+                inFlight[i].decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    public void unpin() {
+        lastWrite.remove();
+    }
+
+    private boolean isPinnedToPrimary() {
+        if (readYourWritesNanos == 0) {
+            return false;
+        }
+        long[] write = lastWrite.get();
+        return write[1] != 0L && System.nanoTime() - write[0] < readYourWritesNanos;
+    }
+
+    private int roundRobin() {
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.length);
+    }
+
+    private int leastInFlight() {
+        int start = roundRobin();
+        int best = start;
+        int bestInFlight = inFlight[start].get();
+        for (int i = 1; i < replicas.length && bestInFlight > 0; i++) {
+            int candidate = (start + i) % replicas.length;
+            int candidateInFlight = inFlight[candidate].get();
+            if (candidateInFlight < bestInFlight) {
+                best = candidate;
+                bestInFlight = candidateInFlight;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,169 @@
+package org.jnaalisv.sqlmapper;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import com.zaxxer.sansorm.internal.Introspector;
+import org.jnaalisv.sqlmapper.internal.QueryExecutors;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Spreads one logical table over several databases. Single-entity operations are routed by a hash of
+ * the entity's id columns; clause queries and counts are sent to every shard in parallel and merged.
+ * Inserts need the id before the row is written: either assigned by the caller, or a pooled sequence id, which is
+ * always drawn from the sequence of the first shard so that ids stay unique across shards. Ids generated by the
+ * database on insert cannot be routed.
+ */
+public class ShardedSqlQueries {
+
+    private final SqlQueries[] shards;
+    private final ExecutorService executor;
+
+    public ShardedSqlQueries(List<DataSource> dataSources) {
+        this(dataSources, QueryExecutors.fanOutExecutor());
+    }
+
+    public ShardedSqlQueries(List<DataSource> dataSources, ExecutorService executor) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = new SqlQueries[dataSources.size()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new SqlQueries(dataSources.get(i));
+        }
+        this.executor = executor;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public SqlQueries shardFor(Object... ids) {
+        return shards[shardIndex(ids)];
+    }
+
+    int shardIndex(Object... ids) {
+        int hash = 1;
+        for (Object id : ids) {
+            hash = 31 * hash + idHash(id);
+        }
+        // murmur3 finalizer so that sequential ids spread evenly
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shards.length);
+    }
+
+    private static int idHash(Object id) {
+        if (id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte) {
+            return Long.hashCode(((Number) id).longValue());
+        }
+        return id == null ? 0 : id.hashCode();
+    }
+
+    private static Object[] idsOf(Object target) {
+        try {
+            Introspected introspected = Introspector.getIntrospected(target.getClass());
+            Object[] ids = introspected.getActualIds(target);
+            if (ids == null) {
+                throw new IllegalStateException(target.getClass().getSimpleName() + " has no id columns to shard by");
+            }
+            return ids;
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // -------------------- //
+    //   Routed by Id       //
+    // -------------------- //
+
+    public <T> int insertObject(T object) {
+        Introspected introspected;
+        try {
+            introspected = Introspector.getIntrospected(object.getClass());
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new RuntimeException(e);
+        }
+        if (introspected.hasGeneratedId() && !introspected.hasPooledId()) {
+            throw new IllegalStateException("Sharded inserts cannot route ids generated by the database, "
+                    + object.getClass().getSimpleName() + " needs a pooled sequence id or no @GeneratedValue");
+        }
+        if (introspected.hasPooledId()) {
+            shards[0].getConnection(connection -> {
+                introspected.assignPooledId(object, connection);
+                return null;
+            });
+        }
+        return shardFor(idsOf(object)).insertObject(object);
+    }
+
+    public <T> int updateObject(T target) {
+        return shardFor(idsOf(target)).updateObject(target);
+    }
+
+    public <T> Optional<T> queryForOneById(Class<T> entityClass, Object... ids) {
+        return shardFor(ids).queryForOneById(entityClass, ids);
+    }
+
+    public <T> int deleteObjectById(Class<T> clazz, Object... ids) {
+        return shardFor(ids).deleteObjectById(clazz, ids);
+    }
+
+    public <T> int deleteObject(T object, Class<T> clazz) {
+        return shardFor(idsOf(object)).deleteObject(object, clazz);
+    }
+
+    // -------------------- //
+    //   Scatter / Gather   //
+    // -------------------- //
+
+    public <R> List<R> scatter(Function<SqlQueries, R> operation) {
+        List<Callable<R>> tasks = new ArrayList<>(shards.length);
+        for (SqlQueries shard : shards) {
+            tasks.add(() -> operation.apply(shard));
+        }
+        return QueryExecutors.invokeAll(executor, tasks);
+    }
+
+    public <T> List<T> queryByClause(Class<T> entityClass, String sqlWhereClause, Object... args) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> shardResult : scatter(shard -> shard.queryByClause(entityClass, sqlWhereClause, args))) {
+            merged.addAll(shardResult);
+        }
+        return merged;
+    }
+
+    /**
+     * Queries every shard and returns the first {@code limit} rows of the merged result in the given order.
+     */
+    public <T> List<T> queryTopN(Class<T> entityClass, String sqlWhereClause, Comparator<? super T> order, int limit, Object... args) {
+        List<T> merged = queryByClause(entityClass, sqlWhereClause, args);
+        merged.sort(order);
+        return limit < merged.size() ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    public <T> List<T> queryAll(Class<T> entityClass) {
+        return queryByClause(entityClass, null);
+    }
+
+    public <T> int countObjectsFromClause(Class<T> clazz, String clause, Object... args) {
+        return Math.toIntExact(countLong(clazz, clause, args));
+    }
+
+    public <T> long countLong(Class<T> clazz, String clause, Object... args) {
+        long count = 0;
+        for (Long shardCount : scatter(shard -> shard.countLong(clazz, clause, args))) {
+            count += shardCount;
+        }
+        return count;
+    }
+}
@@ -3,36 +3,97 @@ package org.jnaalisv.sqlmapper;
 import com.zaxxer.sansorm.internal.Introspected;
 import com.zaxxer.sansorm.internal.Introspector;
 import org.jnaalisv.sqlmapper.internal.ConnectionConsumer;
+import org.jnaalisv.sqlmapper.internal.DataSourceRouter;
+import org.jnaalisv.sqlmapper.internal.Dialect;
+import org.jnaalisv.sqlmapper.internal.DialectConnectionConsumer;
+import org.jnaalisv.sqlmapper.internal.NamedParameters;
 import org.jnaalisv.sqlmapper.internal.PreparedStatementConsumer;
+import org.jnaalisv.sqlmapper.internal.QueryExecutors;
 import org.jnaalisv.sqlmapper.internal.ResultSetConsumer;
+import org.jnaalisv.sqlmapper.internal.ResultSetExporter;
+import org.jnaalisv.sqlmapper.internal.ResultSetPublisher;
 import org.jnaalisv.sqlmapper.internal.ResultSetToolBox;
+import org.jnaalisv.sqlmapper.internal.StatementCanceller;
 import org.jnaalisv.sqlmapper.internal.StatementWrapper;
 import org.jnaalisv.sqlmapper.internal.VersionConflictException;
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.MetricsRecorder;
+import org.jnaalisv.sqlmapper.metrics.StatementTracker;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 public class SqlQueries {
     private static final Logger LOGGER = LoggerFactory.getLogger(SqlQueries.class);
 
-    private final DataSource dataSource;
+    private static final int RETURNING_ROWS_PER_STATEMENT = Integer.getInteger("org.jnaalisv.sqlmapper.returningBatchSize", 100);
+    private static final int EXPORT_FETCH_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.exportFetchSize", 1000);
+
+    private final DataSourceRouter dataSourceRouter;
+
+    private volatile AsyncSqlQueries async;
 
     public SqlQueries(final DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(DataSourceRouter.single(dataSource));
+    }
+
+    public SqlQueries(final DataSourceRouter dataSourceRouter) {
+        this.dataSourceRouter = dataSourceRouter;
+    }
+
+    <T> T getConnection(ConnectionConsumer<T> connectionConsumer) {
+        return getConnection(dataSourceRouter.acquireWrite(), connectionConsumer);
+    }
+
+    /**
+     * Like {@link #getConnection(ConnectionConsumer)}, also passing the dialect, which is detected once per DataSource.
+     */
+    <T> T getConnectionWithDialect(DialectConnectionConsumer<T> connectionConsumer) {
+        DataSource dataSource = dataSourceRouter.acquireWrite();
+        return getConnection(dataSource, connection -> connectionConsumer.consume(connection, Dialect.of(dataSource, connection)));
+    }
+
+    DataSourceRouter dataSourceRouter() {
+        return dataSourceRouter;
     }
 
-    private <T> T getConnection(ConnectionConsumer<T> connectionConsumer) {
+    <T> T getReadConnection(ConnectionConsumer<T> connectionConsumer) {
+        DataSource dataSource = dataSourceRouter.acquireRead();
+        try {
+            return getConnection(dataSource, connectionConsumer);
+        } finally {
+            dataSourceRouter.release(dataSource);
+        }
+    }
+
+    private <T> T getConnection(DataSource dataSource, ConnectionConsumer<T> connectionConsumer) {
         LOGGER.debug("getConnection");
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
         try (Connection connection = dataSource.getConnection() ) {
+            if (recorder.isEnabled()) {
+                recorder.connectionAcquired(System.nanoTime() - start);
+            }
             return connectionConsumer.consume(connection);
         }
         catch (SQLException e) {
@@ -53,28 +114,125 @@ public class SqlQueries {
     }
 
     public static <T> T prepareStatement(Connection connection, Callable<String> sqlBuilder, PreparedStatementConsumer<T> preparedStatementConsumer, Object... args) throws Exception {
-        String sql = sqlBuilder.call();
-        LOGGER.debug("prepareStatement "+ sql);
+        return prepareStatement(connection, sqlBuilder.call(), null, preparedStatementConsumer, args);
+    }
+
+    /**
+     * Binds the arguments against {@code parameterTypes} when given, instead of asking the driver for the
+     * parameter metadata again.
+     */
+    static <T> T prepareStatement(Connection connection, String sql, int[] parameterTypes, PreparedStatementConsumer<T> preparedStatementConsumer, Object... args) throws Exception {
+        LOGGER.debug("prepareStatement {}", sql);
+        if (args.length != 0) {
+            StatementTracker.statementExecuted(sql, args);
+        }
+
+        MetricsRecorder recorder = Metrics.recorder();
+        boolean timed = recorder.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        long executeStart = start;
+        Object[] boundArguments = Metrics.NO_ARGS;
+
         try (PreparedStatement preparedStatement = connection.prepareStatement(sql) ) {
 
             if (args.length != 0 ) {
-                StatementWrapper.populateStatementParameters(preparedStatement, args);
+                if (parameterTypes == null) {
+                    StatementWrapper.populateStatementParameters(preparedStatement, args);
+                } else {
+                    StatementWrapper.populateStatementParameters(preparedStatement, parameterTypes, args);
+                }
+            }
+
+            if (timed) {
+                executeStart = System.nanoTime();
+                recorder.statementPrepared(sql, executeStart - start);
+            }
+
+            T result;
+            try {
+                result = consume(preparedStatement, preparedStatementConsumer);
+            } finally {
+                boundArguments = Metrics.takeBoundArguments();
+            }
+
+            if (args.length == 0) {
+                StatementTracker.statementExecuted(sql, boundArguments);
             }
+            if (timed) {
+                recorder.statementCompleted(sql, args.length != 0 ? args : boundArguments, System.nanoTime() - executeStart, Metrics.rowCountOf(result));
+            }
+            return result;
+        }
+        catch (Exception e) {
+            if (timed) {
+                recorder.statementFailed(sql, args.length != 0 ? args : boundArguments, System.nanoTime() - executeStart, e);
+            }
+            throw e;
+        }
+    }
 
+    /**
+     * Statements built from entities get their parameters bound inside the consumer, see {@link Metrics#argumentsBound};
+     * the callers take those in a finally block, so that a failed consumer leaves nothing behind for the next statement.
+     */
+    private static <T> T consume(PreparedStatement preparedStatement, PreparedStatementConsumer<T> preparedStatementConsumer) throws Exception {
+        StatementCanceller canceller = StatementCanceller.current();
+        if (canceller == null) {
+            return preparedStatementConsumer.consume(preparedStatement);
+        }
+        canceller.attach(preparedStatement);
+        try {
             return preparedStatementConsumer.consume(preparedStatement);
+        } finally {
+            canceller.detach();
         }
     }
 
     public static <T> T prepareStatementForInsert(Connection connection, Callable<String> sqlBuilder, String[] returnColumns, PreparedStatementConsumer<T> preparedStatementConsumer) throws Exception {
         String sql = sqlBuilder.call();
-        LOGGER.debug("prepareStatementForInsert "+ sql);
-        try (PreparedStatement preparedStatement = connection.prepareStatement(sql, returnColumns) ) {
-            return preparedStatementConsumer.consume(preparedStatement);
+        LOGGER.debug("prepareStatementForInsert {}", sql);
+
+        MetricsRecorder recorder = Metrics.recorder();
+        boolean timed = recorder.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        long executeStart = start;
+        Object[] boundArguments = Metrics.NO_ARGS;
+
+        try (PreparedStatement preparedStatement = returnColumns == null ? connection.prepareStatement(sql) : connection.prepareStatement(sql, returnColumns) ) {
+
+            if (timed) {
+                executeStart = System.nanoTime();
+                recorder.statementPrepared(sql, executeStart - start);
+            }
+
+            T result;
+            try {
+                result = consume(preparedStatement, preparedStatementConsumer);
+            } finally {
+                boundArguments = Metrics.takeBoundArguments();
+            }
+
+            StatementTracker.statementExecuted(sql, boundArguments);
+            if (timed) {
+                recorder.statementCompleted(sql, boundArguments, System.nanoTime() - executeStart, Metrics.rowCountOf(result));
+            }
+            return result;
+        }
+        catch (Exception e) {
+            if (timed) {
+                recorder.statementFailed(sql, boundArguments, System.nanoTime() - executeStart, e);
+            }
+            throw e;
         }
     }
 
     public static <T> T executeStatement(PreparedStatement preparedStatement, ResultSetConsumer<T> resultSetConsumer) throws Exception {
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
         try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            if (recorder.isEnabled()) {
+                recorder.queryExecuted(System.nanoTime() - start);
+            }
             return resultSetConsumer.consume(resultSet);
         }
     }
@@ -83,17 +241,40 @@ public class SqlQueries {
     // Public Interface //
     // ---------------- //
 
-    public <T> T execute(Callable<String> sqlProducer, ResultSetConsumer<T> resultSetConsumer, Object... args) {
-        return getConnection(
+    private <T> T executeQuery(Callable<String> sqlProducer, PreparedStatementConsumer<T> preparedStatementConsumer, Object... args) {
+        return getReadConnection(
                 conn -> prepareStatement(
                         conn,
                         sqlProducer,
-                        stmt -> executeStatement(stmt, resultSetConsumer),
+                        preparedStatementConsumer,
                         args
                 )
         );
     }
 
+    public <T> T execute(Callable<String> sqlProducer, ResultSetConsumer<T> resultSetConsumer, Object... args) {
+        return executeQuery(
+                sqlProducer,
+                stmt -> executeStatement(stmt, resultSetConsumer),
+                args
+        );
+    }
+
+    public <T> T execute(Callable<String> sqlProducer, StatementCanceller canceller, ResultSetConsumer<T> resultSetConsumer, Object... args) {
+        return executeQuery(
+                sqlProducer,
+                stmt -> {
+                    canceller.attach(stmt);
+                    try {
+                        return executeStatement(stmt, resultSetConsumer);
+                    } finally {
+                        canceller.detach();
+                    }
+                },
+                args
+        );
+    }
+
     public <T> T executeUpdate(Callable<String> sqlProducer, PreparedStatementConsumer<T> preparedStatementConsumer, Object...args) {
         return getConnection(
                 conn -> prepareStatement(
@@ -105,16 +286,39 @@ public class SqlQueries {
         );
     }
 
+    public AsyncSqlQueries async() {
+        AsyncSqlQueries asyncSqlQueries = async;
+        if (asyncSqlQueries == null) {
+            DataSource dataSource = dataSourceRouter.acquireWrite();
+            try {
+                asyncSqlQueries = new AsyncSqlQueries(this, QueryExecutors.poolSizeOf(dataSource));
+            } finally {
+                dataSourceRouter.release(dataSource);
+            }
+            async = asyncSqlQueries;
+        }
+        return asyncSqlQueries;
+    }
+
+    public AsyncSqlQueries async(Executor executor) {
+        return new AsyncSqlQueries(this, executor);
+    }
+
     // -------------------- //
     //     List Queries     //
     // -------------------- //
 
     public final <T> List<T> query(Class<T> entityClass, Callable<String> sqlQueryProducer, Object... args) {
-        return execute(
-                sqlQueryProducer,
-                resultSet -> ResultSetToolBox.resultSetToList(resultSet, entityClass),
-                args
-        );
+        return getReadConnection(connection -> {
+            List<T> entities = prepareStatement(
+                    connection,
+                    sqlQueryProducer,
+                    stmt -> executeStatement(stmt, resultSet -> ResultSetToolBox.resultSetToList(resultSet, entityClass)),
+                    args
+            );
+            AssociationFetcher.fetchEager(connection, entities, entityClass);
+            return entities;
+        });
     }
 
     public <T> List<T> query(Class<T> entityClass, final String fullSqlQuery, final Object... args) {
@@ -136,12 +340,224 @@ public class SqlQueries {
         );
     }
 
+    /**
+     * Hydrates and hands rows to the consumer one at a time while the result set is open, so streaming
+     * LOB fields ({@code Reader}, {@code InputStream}, {@code Supplier}) can be read inside the consumer.
+     */
+    public <T> long forEach(Class<T> entityClass, Callable<String> sqlQueryProducer, Consumer<? super T> consumer, Object... args) {
+        return execute(
+                sqlQueryProducer,
+                resultSet -> ResultSetToolBox.resultSetForEach(resultSet, entityClass, consumer),
+                args
+        );
+    }
+
+    public <T> long forEach(Class<T> entityClass, String fullSqlQuery, Consumer<? super T> consumer, Object... args) {
+        return forEach(entityClass, () -> fullSqlQuery, consumer, args);
+    }
+
+    /**
+     * Loads the {@code @ManyToOne} or {@code @OneToMany} property of all the given entities with one query per
+     * association level, instead of one query per entity.
+     */
+    public <T> List<T> fetch(List<T> entities, Class<T> entityClass, String property) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        return getReadConnection(connection -> {
+            AssociationFetcher.fetch(connection, entities, entityClass, property);
+            return entities;
+        });
+    }
+
+    /**
+     * Maps each row of a join into one entity per type, e.g. {@code queryJoined(sql, Order.class, Customer.class)}
+     * returns {@code [order, customer]} tuples. Repeated rows of the same entity share one instance.
+     */
+    public List<Object[]> queryJoined(String fullSqlQuery, Class<?>... entityTypes) {
+        return queryJoined(() -> fullSqlQuery, entityTypes);
+    }
+
+    public List<Object[]> queryJoined(String fullSqlQuery, Class<?>[] entityTypes, Object... args) {
+        return queryJoined(() -> fullSqlQuery, entityTypes, args);
+    }
+
+    public List<Object[]> queryJoined(Callable<String> sqlQueryProducer, Class<?>[] entityTypes, Object... args) {
+        return execute(
+                sqlQueryProducer,
+                resultSet -> ResultSetToolBox.resultSetToTuples(resultSet, entityTypes),
+                args
+        );
+    }
+
+    /**
+     * Builds the SQL for {@code clause} once and returns a query object that can be kept in a static field
+     * and executed concurrently.
+     */
+    public <T> CompiledQuery<T> compile(Class<T> entityClass, String clause) {
+        try {
+            Introspected introspected = Introspector.getIntrospected(entityClass);
+            return new CompiledQuery<>(this, entityClass, introspected, SqlStringBuilder.generateSelectFromClause(introspected, clause));
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // -------------------- //
+    //   Columnar Queries   //
+    // -------------------- //
+
+    public ColumnarResult queryColumns(Callable<String> sqlProducer, Object... args) {
+        return execute(sqlProducer, ColumnarResult::fromResultSet, args);
+    }
+
+    public ColumnarResult queryColumns(String sql, Object... args) {
+        return queryColumns(() -> sql, args);
+    }
+
+    // -------------------- //
+    //    Export Queries    //
+    // -------------------- //
+
+    /**
+     * Writes the rows of the query straight to the channel as CSV or JSON lines, and returns the row count.
+     * Column names come from the result set labels.
+     */
+    public long exportQuery(String sql, Object[] args, WritableByteChannel channel, ResultSetExporter.Format format) {
+        return export(() -> sql, null, args, channel, format);
+    }
+
+    /**
+     * Exports the entity's columns for the rows matching the clause, with the column names of its {@code TableSpecs}
+     * as headers.
+     */
+    public <T> long exportQuery(Class<T> entityClass, String clause, Object[] args, WritableByteChannel channel, ResultSetExporter.Format format) {
+        try {
+            Introspected introspected = Introspector.getIntrospected(entityClass);
+            return export(
+                    () -> CachingSqlStringBuilder.generateSelectFromClause(introspected, clause),
+                    introspected.getColumnNames(),
+                    args,
+                    channel,
+                    format
+            );
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long export(Callable<String> sqlProducer, String[] headers, Object[] args, WritableByteChannel channel, ResultSetExporter.Format format) {
+        return executeQuery(
+                sqlProducer,
+                stmt -> {
+                    stmt.setFetchSize(EXPORT_FETCH_SIZE);
+                    return executeStatement(stmt, resultSet -> ResultSetExporter.export(resultSet, headers, channel, format));
+                },
+                args
+        );
+    }
+
+    // -------------------- //
+    //    Parallel Scans    //
+    // -------------------- //
+
+    public <T> long scanParallel(Class<T> entityClass, String clause, int partitions, Consumer<? super T> consumer, Object... args) {
+        return scanParallel(QueryExecutors.fanOutExecutor(), entityClass, clause, partitions, consumer, args);
+    }
+
+    public <T> long scanParallel(ExecutorService executor, Class<T> entityClass, String clause, int partitions, Consumer<? super T> consumer, Object... args) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive, was " + partitions);
+        }
+
+        long[] idRange = execute(
+                () -> CachingSqlStringBuilder.selectIdRangeFromClause(Introspector.getIntrospected(entityClass), clause),
+                resultSet -> {
+                    if (resultSet.next()) {
+                        long min = resultSet.getLong(1);
+                        if (!resultSet.wasNull()) {
+                            return new long[]{min, resultSet.getLong(2)};
+                        }
+                    }
+                    return null;
+                },
+                args
+        );
+
+        if (idRange == null) {
+            return 0;
+        }
+
+        long min = idRange[0];
+        long max = idRange[1];
+        // max - min overflows for ids of both signs, but it is exact as an unsigned value
+        long sliceSpan = Long.divideUnsigned(max - min, partitions);
+
+        List<Callable<Long>> slices = new ArrayList<>(partitions);
+        long lower = min;
+        while (true) {
+            long upper = Long.compareUnsigned(max - lower, sliceSpan) <= 0 ? max : lower + sliceSpan;
+            Object[] sliceArgs = new Object[args.length + 2];
+            sliceArgs[0] = lower;
+            sliceArgs[1] = upper;
+            System.arraycopy(args, 0, sliceArgs, 2, args.length);
+
+            slices.add(() -> execute(
+                    () -> CachingSqlStringBuilder.generateSelectWithinIdRange(Introspector.getIntrospected(entityClass), clause),
+                    resultSet -> ResultSetToolBox.resultSetForEach(resultSet, entityClass, consumer),
+                    sliceArgs
+            ));
+
+            if (upper == max) {
+                break;
+            }
+            lower = upper + 1;
+        }
+
+        long rowCount = 0;
+        for (long sliceRowCount : QueryExecutors.invokeAll(executor, slices)) {
+            rowCount += sliceRowCount;
+        }
+        return rowCount;
+    }
+
+    // -------------------- //
+    //  Streaming Queries   //
+    // -------------------- //
+
+    public <T> Publisher<T> publish(Class<T> entityClass, Callable<String> sqlProducer, Object... args) {
+        return new ResultSetPublisher<>(dataSourceRouter, sqlProducer, entityClass, args);
+    }
+
+    public <T> Publisher<T> publish(Class<T> entityClass, String fullSqlQuery, Object... args) {
+        return publish(entityClass, () -> fullSqlQuery, args);
+    }
+
+    public <T> Publisher<T> publishByClause(Class<T> entityClass, String sqlWhereClause, Object... args) {
+        return publish(
+                entityClass,
+                () -> CachingSqlStringBuilder.generateSelectFromClause(Introspector.getIntrospected(entityClass), sqlWhereClause),
+                args
+        );
+    }
+
     // -------------------- //
     //    Object Queries    //
     // -------------------- //
 
     public final <T> Optional<T> queryForOne(Callable<String> sqlProducer, Class<T> entityClass, Object... args) {
-        return execute(sqlProducer, resultSet -> ResultSetToolBox.resultSetToObject(resultSet, entityClass), args);
+        return getReadConnection(connection -> {
+            Optional<T> entity = prepareStatement(
+                    connection,
+                    sqlProducer,
+                    stmt -> executeStatement(stmt, resultSet -> ResultSetToolBox.resultSetToObject(resultSet, entityClass)),
+                    args
+            );
+            if (entity.isPresent()) {
+                AssociationFetcher.fetchEager(connection, Collections.singletonList(entity.get()), entityClass);
+            }
+            return entity;
+        });
     }
 
     public final <T> Optional<T> queryForOne(String sql, Class<T> entityClass, Object... args) {
@@ -164,6 +580,33 @@ public class SqlQueries {
         );
     }
 
+    // -------------------- //
+    //   Named Parameters   //
+    // -------------------- //
+
+    /**
+     * Binds {@code :name} parameters from a {@code Map} keyed by name, or from the properties of a bean.
+     */
+    public <T> T executeNamed(String sql, ResultSetConsumer<T> resultSetConsumer, Object parameters) {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse(sql);
+        return execute(parsedSql::getSql, resultSetConsumer, parsedSql.toArgs(parameters));
+    }
+
+    public <T> List<T> queryNamed(Class<T> entityClass, String sql, Object parameters) {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse(sql);
+        return query(entityClass, parsedSql::getSql, parsedSql.toArgs(parameters));
+    }
+
+    public <T> Optional<T> queryForOneNamed(Class<T> entityClass, String sql, Object parameters) {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse(sql);
+        return queryForOne(parsedSql::getSql, entityClass, parsedSql.toArgs(parameters));
+    }
+
+    public int executeUpdateNamed(String sql, Object parameters) {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse(sql);
+        return executeUpdate(parsedSql::getSql, PreparedStatement::executeUpdate, parsedSql.toArgs(parameters));
+    }
+
     // -------------------- //
     //    Number Queries    //
     // -------------------- //
@@ -181,15 +624,140 @@ public class SqlQueries {
         );
     }
 
+    public OptionalLong longFromSql(Callable<String> sqlProducer, Object... args) {
+        return execute(
+                sqlProducer,
+                resultSet -> {
+                    if (resultSet.next()) {
+                        long value = resultSet.getLong(1);
+                        if (!resultSet.wasNull()) {
+                            return OptionalLong.of(value);
+                        }
+                    }
+                    return OptionalLong.empty();
+                },
+                args
+        );
+    }
+
+    public OptionalDouble doubleFromSql(Callable<String> sqlProducer, Object... args) {
+        return execute(
+                sqlProducer,
+                resultSet -> {
+                    if (resultSet.next()) {
+                        double value = resultSet.getDouble(1);
+                        if (!resultSet.wasNull()) {
+                            return OptionalDouble.of(value);
+                        }
+                    }
+                    return OptionalDouble.empty();
+                },
+                args
+        );
+    }
+
+    public Optional<BigDecimal> bigDecimalFromSql(Callable<String> sqlProducer, Object... args) {
+        return execute(
+                sqlProducer,
+                resultSet -> {
+                    if (resultSet.next()) {
+                        return Optional.ofNullable(resultSet.getBigDecimal(1));
+                    }
+                    return Optional.empty();
+                },
+                args
+        );
+    }
+
     public <T> int countObjectsFromClause(Class<T> clazz, String clause, Object... args) {
-        Optional<Number> maybeNumber =
-                numberFromSql(
-                        () -> CachingSqlStringBuilder.countObjectsFromClause(Introspector.getIntrospected(clazz), clause),
-                        args);
+        return Math.toIntExact(countLong(clazz, clause, args));
+    }
+
+    public <T> long countLong(Class<T> clazz, String clause, Object... args) {
+        return longFromSql(
+                () -> CachingSqlStringBuilder.countObjectsFromClause(Introspector.getIntrospected(clazz), clause),
+                args)
+                .orElseThrow(() -> new RuntimeException("count query returned without results"));
+    }
+
+    public <T> boolean exists(Class<T> clazz, String clause, Object... args) {
+        return executeQuery(
+                () -> CachingSqlStringBuilder.existsFromClause(Introspector.getIntrospected(clazz), clause),
+                preparedStatement -> {
+                    preparedStatement.setMaxRows(1);
+                    return executeStatement(preparedStatement, ResultSet::next);
+                },
+                args
+        );
+    }
+
+    /**
+     * Aggregates are read as BigDecimal so that DECIMAL and floating point columns keep their fraction.
+     */
+    public <T> Optional<BigDecimal> min(Class<T> clazz, String property, String clause, Object... args) {
+        return aggregate(clazz, "MIN", property, clause, args);
+    }
+
+    public <T> Optional<BigDecimal> max(Class<T> clazz, String property, String clause, Object... args) {
+        return aggregate(clazz, "MAX", property, clause, args);
+    }
+
+    public <T> BigDecimal sum(Class<T> clazz, String property, String clause, Object... args) {
+        return aggregate(clazz, "SUM", property, clause, args).orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Like {@link #min}, for integral columns, read without boxing.
+     */
+    public <T> OptionalLong minLong(Class<T> clazz, String property, String clause, Object... args) {
+        return longFromSql(aggregateSql(clazz, "MIN", property, clause), args);
+    }
+
+    public <T> OptionalLong maxLong(Class<T> clazz, String property, String clause, Object... args) {
+        return longFromSql(aggregateSql(clazz, "MAX", property, clause), args);
+    }
+
+    public <T> long sumLong(Class<T> clazz, String property, String clause, Object... args) {
+        return longFromSql(aggregateSql(clazz, "SUM", property, clause), args).orElse(0L);
+    }
+
+    /**
+     * Like {@link #min}, for floating point columns, read without boxing.
+     */
+    public <T> OptionalDouble minDouble(Class<T> clazz, String property, String clause, Object... args) {
+        return doubleFromSql(aggregateSql(clazz, "MIN", property, clause), args);
+    }
+
+    public <T> OptionalDouble maxDouble(Class<T> clazz, String property, String clause, Object... args) {
+        return doubleFromSql(aggregateSql(clazz, "MAX", property, clause), args);
+    }
+
+    public <T> double sumDouble(Class<T> clazz, String property, String clause, Object... args) {
+        return doubleFromSql(aggregateSql(clazz, "SUM", property, clause), args).orElse(0d);
+    }
+
+    private static <T> Callable<String> aggregateSql(Class<T> clazz, String function, String property, String clause) {
+        return () -> {
+            Introspected introspected = Introspector.getIntrospected(clazz);
+            return CachingSqlStringBuilder.aggregateFromClause(introspected, function, getColumnName(introspected, property), clause);
+        };
+    }
 
-        return maybeNumber
-                .orElseThrow(() -> new RuntimeException("count query returned without results"))
-                .intValue();
+    private <T> Optional<BigDecimal> aggregate(Class<T> clazz, String function, String property, String clause, Object... args) {
+        return bigDecimalFromSql(aggregateSql(clazz, function, property, clause), args);
+    }
+
+    private static String getColumnName(Introspected introspected, String property) {
+        String columnName = introspected.getColumnNameForProperty(property);
+        if (columnName == null) {
+            for (String column : introspected.getColumnNames()) {
+                if (column.equalsIgnoreCase(property)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException("No column mapped to property " + property + " on table " + introspected.getTableName());
+        }
+        return columnName;
     }
 
     // -------------------- //
@@ -208,27 +776,47 @@ public class SqlQueries {
     }
 
     public <T> int insertObject(T object) {
-        return getConnection(
-                connection -> {
+        return getConnectionWithDialect(
+                (connection, dialect) -> {
 
                     Introspected introspected = Introspector.getIntrospected(object.getClass());
-                    String[] returnColumns = introspected.getGeneratedIdColumnNames();
-                    String sql = CachingSqlStringBuilder.createStatementForInsertSql(introspected);
 
-                    try (PreparedStatement preparedStatement = connection.prepareStatement(sql, returnColumns) ) {
-                        return StatementWrapper.insert(preparedStatement, introspected, object);
+                    if (dialect.supportsReturning() && introspected.getInsertReturningColumns().length > 0) {
+                        return prepareStatement(
+                                connection,
+                                () -> CachingSqlStringBuilder.createStatementForInsertReturningSql(introspected),
+                                preparedStatement -> StatementWrapper.insertReturning(preparedStatement, introspected, object)
+                        );
                     }
+
+                    String[] returnColumns = introspected.getGeneratedIdColumnNames();
+
+                    return prepareStatementForInsert(
+                            connection,
+                            () -> CachingSqlStringBuilder.createStatementForInsertSql(introspected),
+                            returnColumns,
+                            preparedStatement -> StatementWrapper.insert(preparedStatement, introspected, object)
+                    );
                 }
         );
     }
 
     public static <T> int[] insertListBatched(Connection connection, Iterable<T> iterable) throws Exception {
+        return insertListBatched(connection, Dialect.of(connection), iterable);
+    }
+
+    static <T> int[] insertListBatched(Connection connection, Dialect dialect, Iterable<T> iterable) throws Exception {
         Iterator<T> iterableIterator = iterable.iterator();
         if (!iterableIterator.hasNext()) {
             return new int[]{};
         }
 
         Introspected introspected = Introspector.getIntrospected(iterableIterator.next().getClass());
+
+        if (dialect.supportsReturning() && introspected.getInsertReturningColumns().length > 0) {
+            return insertRowsReturning(connection, introspected, iterable);
+        }
+
         String[] returnColumns = introspected.getGeneratedIdColumnNames();
 
         return prepareStatementForInsert(
@@ -245,11 +833,50 @@ public class SqlQueries {
         );
     }
 
+    /**
+     * Inserts with {@code RETURNING}, several rows per statement when the ids are known before the insert. The
+     * rows of a multi-row insert are matched to the entities by id, so entities with ids generated by the database
+     * are inserted one statement per row.
+     */
+    static <T> int[] insertRowsReturning(Connection connection, Introspected introspected, Iterable<T> iterable) throws Exception {
+        List<T> items = new ArrayList<>();
+        iterable.forEach(items::add);
+
+        int[] rowCounts = new int[items.size()];
+        if (introspected.getIdColumnNames().length == 0 || (introspected.hasGeneratedId() && !introspected.hasPooledId())) {
+            return prepareStatement(
+                    connection,
+                    () -> CachingSqlStringBuilder.createStatementForInsertReturningSql(introspected),
+                    preparedStatement -> {
+                        for (int i = 0; i < rowCounts.length; i++) {
+                            rowCounts[i] = StatementWrapper.insertReturning(preparedStatement, introspected, items.get(i));
+                        }
+                        return rowCounts;
+                    }
+            );
+        }
+
+        for (int from = 0; from < items.size(); from += RETURNING_ROWS_PER_STATEMENT) {
+            List<T> chunk = items.subList(from, Math.min(items.size(), from + RETURNING_ROWS_PER_STATEMENT));
+            int[] chunkRowCounts = prepareStatement(
+                    connection,
+                    () -> CachingSqlStringBuilder.createStatementForMultiRowInsertReturningSql(introspected, chunk.size()),
+                    preparedStatement -> new StatementWrapper(preparedStatement).insertRowsReturning(introspected, chunk)
+            );
+            System.arraycopy(chunkRowCounts, 0, rowCounts, from, chunkRowCounts.length);
+        }
+        return rowCounts;
+    }
+
     public <T> int[] insertListBatched(Iterable<T> iterable) {
-        return getConnection(connection -> insertListBatched(connection, iterable));
+        return getConnectionWithDialect((connection, dialect) -> insertListBatched(connection, dialect, iterable));
     }
 
     public static <T> int insertListNotBatched(Connection connection, Iterable<T> iterable) throws Exception {
+        return insertListNotBatched(connection, Dialect.of(connection), iterable);
+    }
+
+    static <T> int insertListNotBatched(Connection connection, Dialect dialect, Iterable<T> iterable) throws Exception {
         Iterator<T> iterableIterator = iterable.iterator();
         if (!iterableIterator.hasNext()) {
             return 0;
@@ -258,6 +885,21 @@ public class SqlQueries {
         T target = iterableIterator.next();
 
         Introspected introspected = Introspector.getIntrospected(target.getClass());
+
+        if (dialect.supportsReturning() && introspected.getInsertReturningColumns().length > 0) {
+            return prepareStatement(
+                    connection,
+                    () -> CachingSqlStringBuilder.createStatementForInsertReturningSql(introspected),
+                    preparedStatement -> {
+                        int rowCount = 0;
+                        for (T item : iterable) {
+                            rowCount += StatementWrapper.insertReturning(preparedStatement, introspected, item);
+                        }
+                        return rowCount;
+                    }
+            );
+        }
+
         String[] returnColumns = introspected.getGeneratedIdColumnNames();
 
         return prepareStatementForInsert(
@@ -275,7 +917,26 @@ public class SqlQueries {
     }
 
     public <T> int insertListNotBatched(Iterable<T> iterable) {
-        return getConnection(connection -> insertListNotBatched(connection, iterable));
+        return getConnectionWithDialect((connection, dialect) -> insertListNotBatched(connection, dialect, iterable));
+    }
+
+    // -------------------- //
+    //     Bulk Import      //
+    // -------------------- //
+
+    /**
+     * Inserts the rows of a CSV file into the entity's table. The header row names the columns, which must be
+     * insertable columns of the entity; values are converted to the field types before binding.
+     */
+    public <T> ImportResult importCsv(Class<T> entityClass, Path csvFile) {
+        return importCsv(QueryExecutors.defaultExecutor(), entityClass, csvFile);
+    }
+
+    /**
+     * @param executor runs the parser while the calling thread executes the batches
+     */
+    public <T> ImportResult importCsv(ExecutorService executor, Class<T> entityClass, Path csvFile) {
+        return getConnection(connection -> CsvImporter.importCsv(connection, executor, Introspector.getIntrospected(entityClass), csvFile));
     }
 
     // -------------------- //
@@ -283,15 +944,56 @@ public class SqlQueries {
     // -------------------- //
 
     public <T> int updateObject(T target) {
-        return executeUpdate(
-                () -> CachingSqlStringBuilder.createStatementForUpdateSql(Introspector.getIntrospected(target.getClass())),
-                preparedStatement -> StatementWrapper.update(
-                        preparedStatement,
-                        Introspector.getIntrospected(target.getClass()),
-                        target)
+        return getConnectionWithDialect(
+                (connection, dialect) -> {
+
+                    Introspected introspected = Introspector.getIntrospected(target.getClass());
+
+                    if (dialect.supportsReturning() && introspected.getUpdateReturningColumns().length > 0) {
+                        return prepareStatement(
+                                connection,
+                                () -> CachingSqlStringBuilder.createStatementForUpdateReturningSql(introspected),
+                                preparedStatement -> StatementWrapper.updateReturning(preparedStatement, introspected, target)
+                        );
+                    }
+
+                    return prepareStatement(
+                            connection,
+                            () -> CachingSqlStringBuilder.createStatementForUpdateSql(introspected),
+                            preparedStatement -> StatementWrapper.update(preparedStatement, introspected, target)
+                    );
+                }
         );
     }
 
+    // -------------------- //
+    //     Unit of Work     //
+    // -------------------- //
+
+    public UnitOfWork unitOfWork() {
+        return new UnitOfWork(this);
+    }
+
+    // -------------------- //
+    //  Statement Tracking  //
+    // -------------------- //
+
+    /**
+     * Opens a scope on the current thread that reports statements repeated with more than
+     * {@code org.jnaalisv.sqlmapper.repeatedStatementThreshold} different arguments, see {@link StatementTracker}.
+     */
+    public StatementTracker.Scope trackScope(String name) {
+        return StatementTracker.open(name, StatementTracker.DEFAULT_THRESHOLD, StatementTracker.DEFAULT_STRICT);
+    }
+
+    /**
+     * @param strict throw a {@link org.jnaalisv.sqlmapper.metrics.RepeatedStatementException} on close when a
+     * statement was repeated with more than {@code threshold} different arguments
+     */
+    public StatementTracker.Scope trackScope(String name, int threshold, boolean strict) {
+        return StatementTracker.open(name, threshold, strict);
+    }
+
     // -------------------- //
     //  Delete Statements   //
     // -------------------- //
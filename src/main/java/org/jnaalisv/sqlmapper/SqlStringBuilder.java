@@ -4,6 +4,7 @@ import org.jnaalisv.sqlmapper.internal.TableSpecs;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public final class SqlStringBuilder {
@@ -30,6 +31,15 @@ public final class SqlStringBuilder {
         return sb.deleteCharAt(sb.length() - 1).toString();
     }
 
+    static boolean isMapped(TableSpecs tableSpecs, String column) {
+        for (String columnName : tableSpecs.getColumnNames()) {
+            if (columnName.equalsIgnoreCase(column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static <T> String getColumnsCsvExclude(TableSpecs tableSpecs, String... excludeColumns) {
         Set<String> excludes = new HashSet<>(Arrays.asList(excludeColumns));
 
@@ -71,6 +81,29 @@ public final class SqlStringBuilder {
         return sqlSB.toString();
     }
 
+    /**
+     * The IN column is selected as well when the entity doesn't map it, so that the rows of a one-to-many
+     * without a back reference can still be grouped by their owner.
+     */
+    public static String selectWhereColumnIn(TableSpecs tableSpecs, String column, int parameterCount) {
+        String tableName = tableSpecs.getTableName();
+
+        StringBuilder sqlSB = new StringBuilder()
+                .append("SELECT ").append(getColumnsCsv(tableSpecs, tableName));
+        if (!isMapped(tableSpecs, column)) {
+            sqlSB.append(',').append(tableName).append('.').append(column);
+        }
+        sqlSB.append(" FROM ").append(tableName).append(' ').append(tableName)
+                .append(" WHERE ").append(tableName).append('.').append(column).append(" IN (");
+        for (int i = 0; i < parameterCount; i++) {
+            if (i > 0) {
+                sqlSB.append(',');
+            }
+            sqlSB.append('?');
+        }
+        return sqlSB.append(')').toString();
+    }
+
     public static String countObjectsFromClause(TableSpecs tableSpecs, String clause) {
         StringBuilder selectCountSqlBuilder = new StringBuilder()
                 .append("SELECT COUNT(");
@@ -89,18 +122,150 @@ public final class SqlStringBuilder {
                 .append(' ')
                 .append(tableSpecs.getTableName());
 
-        if (clause != null && !clause.isEmpty()) {
-            String upper = clause.toUpperCase();
+        appendClause(selectCountSqlBuilder, clause);
+        return selectCountSqlBuilder.toString();
+    }
+
+    /**
+     * {@code SELECT 1 WHERE EXISTS (...)}, which stops at the first row and leaves any ORDER BY, LIMIT or FETCH of
+     * the clause valid.
+     */
+    public static String existsFromClause(TableSpecs tableSpecs, String clause) {
+        StringBuilder sqlSB = new StringBuilder()
+                .append("SELECT 1 WHERE EXISTS (SELECT 1 FROM ")
+                .append(tableSpecs.getTableName())
+                .append(' ')
+                .append(tableSpecs.getTableName());
+
+        appendClause(sqlSB, clause);
+        return sqlSB.append(')').toString();
+    }
+
+    public static String aggregateFromClause(TableSpecs tableSpecs, String function, String column, String clause) {
+        StringBuilder sqlSB = new StringBuilder()
+                .append("SELECT ")
+                .append(function)
+                .append('(')
+                .append(tableSpecs.getTableName())
+                .append('.')
+                .append(column)
+                .append(") FROM ")
+                .append(tableSpecs.getTableName())
+                .append(' ')
+                .append(tableSpecs.getTableName());
 
-            if (!upper.contains("WHERE") && !upper.contains("JOIN") && !upper.startsWith("ORDER")) {
-                selectCountSqlBuilder.append(" WHERE ");
+        appendClause(sqlSB, clause);
+        return sqlSB.toString();
+    }
+
+    private static void appendClause(StringBuilder sqlSB, String clause) {
+        if (clause != null && !clause.isEmpty()) {
+            if (indexOfKeyword(clause, "WHERE") < 0 && indexOfKeyword(clause, "JOIN") < 0 && indexOfKeyword(clause.trim(), "ORDER") != 0) {
+                sqlSB.append(" WHERE ");
             }
 
-            selectCountSqlBuilder
+            sqlSB
                     .append(' ')
                     .append(clause);
         }
-        return selectCountSqlBuilder.toString();
+    }
+
+    /**
+     * @return the position of the keyword in the clause, or -1. Quoted literals and identifiers, parenthesized
+     * subqueries and words that merely contain the keyword are skipped.
+     */
+    static int indexOfKeyword(String clause, String keyword) {
+        int depth = 0;
+        for (int i = 0; i < clause.length(); i++) {
+            char c = clause.charAt(i);
+            if (c == '\'' || c == '"') {
+                int closing = clause.indexOf(c, i + 1);
+                if (closing < 0) {
+                    return -1;
+                }
+                i = closing;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0
+                    && clause.regionMatches(true, i, keyword, 0, keyword.length())
+                    && (i == 0 || !isIdentifierPart(clause.charAt(i - 1)))
+                    && (i + keyword.length() == clause.length() || !isIdentifierPart(clause.charAt(i + keyword.length())))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * The slices of a range scan run in parallel, so their clause may only be a predicate. An ORDER BY cannot
+     * hold across slices and is dropped.
+     */
+    private static String rangePredicate(String clause) {
+        if (clause == null) {
+            return "";
+        }
+        if (indexOfKeyword(clause, "WHERE") >= 0 || indexOfKeyword(clause, "JOIN") >= 0) {
+            throw new IllegalArgumentException("Range scans only support plain predicates, got: " + clause);
+        }
+        int orderByIndex = indexOfKeyword(clause, "ORDER");
+        return (orderByIndex < 0 ? clause : clause.substring(0, orderByIndex)).trim();
+    }
+
+    public static String selectIdRangeFromClause(TableSpecs tableSpecs, String clause) {
+        String idColumn = tableSpecs.getTableName() + '.' + getSingleIdColumnName(tableSpecs);
+
+        StringBuilder sqlSB = new StringBuilder()
+                .append("SELECT MIN(")
+                .append(idColumn)
+                .append("), MAX(")
+                .append(idColumn)
+                .append(") FROM ")
+                .append(tableSpecs.getTableName())
+                .append(' ')
+                .append(tableSpecs.getTableName());
+
+        String predicate = rangePredicate(clause);
+        if (!predicate.isEmpty()) {
+            sqlSB.append(" WHERE (").append(predicate).append(')');
+        }
+        return sqlSB.toString();
+    }
+
+    public static String generateSelectWithinIdRange(TableSpecs tableSpecs, String clause) {
+        String tableName = tableSpecs.getTableName();
+
+        StringBuilder sqlSB = new StringBuilder()
+                .append("SELECT ")
+                .append(getColumnsCsv(tableSpecs, tableName))
+                .append(" FROM ")
+                .append(tableName)
+                .append(' ')
+                .append(tableName)
+                .append(" WHERE ")
+                .append(tableName)
+                .append('.')
+                .append(getSingleIdColumnName(tableSpecs))
+                .append(" BETWEEN ? AND ?");
+
+        String predicate = rangePredicate(clause);
+        if (!predicate.isEmpty()) {
+            sqlSB.append(" AND (").append(predicate).append(')');
+        }
+        return sqlSB.toString();
+    }
+
+    private static String getSingleIdColumnName(TableSpecs tableSpecs) {
+        String[] idColumnNames = tableSpecs.getIdColumnNames();
+        if (idColumnNames.length != 1) {
+            throw new IllegalStateException("Table " + tableSpecs.getTableName() + " must have exactly one id column for range queries");
+        }
+        return idColumnNames[0];
     }
 
     public static String constructWhereSql(String[] idColumnNames) {
@@ -146,12 +311,15 @@ public final class SqlStringBuilder {
     }
 
     public static String createStatementForInsertSql(TableSpecs tableSpecs) {
-        String tableName = tableSpecs.getTableName();
+        return createStatementForInsertSql(tableSpecs.getTableName(), tableSpecs.getInsertableColumns());
+    }
+
+    public static String createStatementForInsertSql(String tableName, String[] columns) {
         StringBuilder sqlSB = new StringBuilder("INSERT INTO ")
                 .append(tableName)
                 .append('(');
         StringBuilder sqlValues = new StringBuilder(") VALUES (");
-        for (String column : tableSpecs.getInsertableColumns()) {
+        for (String column : columns) {
             sqlSB.append(column).append(',');
             sqlValues.append("?,");
         }
@@ -161,6 +329,50 @@ public final class SqlStringBuilder {
         return sqlSB.toString();
     }
 
+    public static String createStatementForInsertReturningSql(TableSpecs tableSpecs) {
+        return appendReturning(new StringBuilder(createStatementForInsertSql(tableSpecs)), tableSpecs.getInsertReturningColumns());
+    }
+
+    /**
+     * One insert statement for {@code rowCount} entities, {@code INSERT INTO t(a,b) VALUES (?,?),(?,?) RETURNING ...}.
+     * The id columns are always returned, since the order of the returned rows is not guaranteed to follow the
+     * VALUES.
+     */
+    public static String createStatementForMultiRowInsertReturningSql(TableSpecs tableSpecs, int rowCount) {
+        String[] insertableColumns = tableSpecs.getInsertableColumns();
+
+        StringBuilder sqlSB = new StringBuilder("INSERT INTO ")
+                .append(tableSpecs.getTableName())
+                .append('(')
+                .append(String.join(",", insertableColumns))
+                .append(") VALUES ");
+
+        for (int row = 0; row < rowCount; row++) {
+            sqlSB.append('(');
+            for (int column = 0; column < insertableColumns.length; column++) {
+                sqlSB.append("?,");
+            }
+            sqlSB.setCharAt(sqlSB.length() - 1, ')');
+            sqlSB.append(',');
+        }
+        sqlSB.deleteCharAt(sqlSB.length() - 1);
+
+        Set<String> returningColumns = new LinkedHashSet<>(Arrays.asList(tableSpecs.getIdColumnNames()));
+        returningColumns.addAll(Arrays.asList(tableSpecs.getInsertReturningColumns()));
+        return appendReturning(sqlSB, returningColumns.toArray(new String[0]));
+    }
+
+    public static String createStatementForUpdateReturningSql(TableSpecs tableSpecs) {
+        return appendReturning(new StringBuilder(createStatementForUpdateSql(tableSpecs)), tableSpecs.getUpdateReturningColumns());
+    }
+
+    private static String appendReturning(StringBuilder sqlSB, String[] returningColumns) {
+        if (returningColumns.length > 0) {
+            sqlSB.append(" RETURNING ").append(String.join(",", returningColumns));
+        }
+        return sqlSB.toString();
+    }
+
     public static String deleteObjectByIdSql(TableSpecs tableSpecs) {
         StringBuilder sql = new StringBuilder()
                 .append("DELETE FROM ")
@@ -0,0 +1,312 @@
+package org.jnaalisv.sqlmapper;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import com.zaxxer.sansorm.internal.Introspector;
+import org.jnaalisv.sqlmapper.internal.Association;
+import org.jnaalisv.sqlmapper.internal.Dialect;
+import org.jnaalisv.sqlmapper.internal.StatementWrapper;
+import org.jnaalisv.sqlmapper.internal.VersionConflictException;
+import org.jnaalisv.sqlmapper.internal.VersionConflictsException;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects inserts, updates and deletes and writes them in one go on {@link #flush}. Pending writes are grouped
+ * by entity class and kind, and every group is sent as one JDBC batch over a single connection. Inserts and
+ * updates run parents first, following {@code @ManyToOne} references; deletes run children first. Within a
+ * group, rows are written in primary key order, so concurrent flushes lock rows in the same order.
+ *
+ * <p>Inserts of entities with database generated ids need the ids back for their children, so they execute row
+ * by row on one prepared statement, with {@code INSERT ... RETURNING} where the database supports it. Pooled
+ * sequence ids are assigned before the insert, so those entities are batched like any other.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+public final class UnitOfWork {
+
+    private enum Kind {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final SqlQueries sqlQueries;
+    private final Map<Kind, Map<Class<?>, List<Object>>> pending = new EnumMap<>(Kind.class);
+    private int pendingCount;
+
+    UnitOfWork(SqlQueries sqlQueries) {
+        this.sqlQueries = sqlQueries;
+        for (Kind kind : Kind.values()) {
+            pending.put(kind, new LinkedHashMap<>());
+        }
+    }
+
+    public UnitOfWork insert(Object entity) {
+        return add(Kind.INSERT, entity);
+    }
+
+    public UnitOfWork update(Object entity) {
+        return add(Kind.UPDATE, entity);
+    }
+
+    public UnitOfWork delete(Object entity) {
+        return add(Kind.DELETE, entity);
+    }
+
+    private UnitOfWork add(Kind kind, Object entity) {
+        pending.get(kind).computeIfAbsent(entity.getClass(), clazz -> new ArrayList<>()).add(entity);
+        ++pendingCount;
+        return this;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public void clear() {
+        pending.values().forEach(Map::clear);
+        pendingCount = 0;
+    }
+
+    /**
+     * Writes all pending operations. When the connection is in auto-commit mode the flush runs in its own
+     * transaction, which is rolled back on any failure; otherwise it joins the caller's transaction.
+     *
+     * @return the total number of rows written
+     * @throws VersionConflictsException listing every updated entity whose version did not match, after all
+     * groups have been executed
+     */
+    public int flush() {
+        if (pendingCount == 0) {
+            return 0;
+        }
+
+        int rowCount = sqlQueries.getConnectionWithDialect((connection, dialect) -> {
+            boolean ownTransaction = connection.getAutoCommit();
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                List<Runnable> versionUpdates = new ArrayList<>();
+                int rows = execute(connection, dialect, versionUpdates);
+                if (ownTransaction) {
+                    connection.commit();
+                }
+                versionUpdates.forEach(Runnable::run);
+                return rows;
+            } catch (Exception e) {
+                if (ownTransaction) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+
+        clear();
+        return rowCount;
+    }
+
+    private int execute(Connection connection, Dialect dialect, List<Runnable> versionUpdates) throws Exception {
+        Set<Class<?>> classes = new HashSet<>();
+        pending.values().forEach(groups -> classes.addAll(groups.keySet()));
+        List<Class<?>> order = dependencyOrder(classes);
+
+        List<VersionConflictException> conflicts = new ArrayList<>();
+        int rowCount = 0;
+
+        for (Class<?> clazz : order) {
+            List<Object> items = pending.get(Kind.INSERT).get(clazz);
+            if (items != null) {
+                rowCount += insert(connection, dialect, Introspector.getIntrospected(clazz), items);
+            }
+        }
+        for (Class<?> clazz : order) {
+            List<Object> items = pending.get(Kind.UPDATE).get(clazz);
+            if (items != null) {
+                rowCount += update(connection, Introspector.getIntrospected(clazz), items, conflicts, versionUpdates);
+            }
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            List<Object> items = pending.get(Kind.DELETE).get(order.get(i));
+            if (items != null) {
+                rowCount += delete(connection, Introspector.getIntrospected(order.get(i)), items);
+            }
+        }
+
+        if (!conflicts.isEmpty()) {
+            throw new VersionConflictsException(conflicts);
+        }
+        return rowCount;
+    }
+
+    private static int insert(Connection connection, Dialect dialect, Introspected introspected, List<Object> items) throws Exception {
+        List<Object> sorted = sortedById(introspected, items);
+
+        if (dialect.supportsReturning() && introspected.getInsertReturningColumns().length > 0) {
+            return sum(SqlQueries.insertRowsReturning(connection, introspected, sorted));
+        }
+
+        if (introspected.getGeneratedIdColumnNames() != null) {
+            return SqlQueries.prepareStatementForInsert(
+                    connection,
+                    () -> CachingSqlStringBuilder.createStatementForInsertSql(introspected),
+                    introspected.getGeneratedIdColumnNames(),
+                    preparedStatement -> {
+                        StatementWrapper statementWrapper = new StatementWrapper(preparedStatement);
+                        for (Object item : sorted) {
+                            statementWrapper.insert(introspected, item);
+                        }
+                        return statementWrapper.getTotalRowCount();
+                    }
+            );
+        }
+
+        return SqlQueries.prepareStatement(
+                connection,
+                () -> CachingSqlStringBuilder.createStatementForInsertSql(introspected),
+                preparedStatement -> {
+                    StatementWrapper statementWrapper = new StatementWrapper(preparedStatement);
+                    for (Object item : sorted) {
+                        statementWrapper.addBatch(introspected, item);
+                    }
+                    return sum(statementWrapper.executeBatch());
+                }
+        );
+    }
+
+    private static int update(Connection connection, Introspected introspected, List<Object> items,
+                              List<VersionConflictException> conflicts, List<Runnable> versionUpdates) throws Exception {
+        List<Object> sorted = sortedById(introspected, items);
+
+        return SqlQueries.prepareStatement(
+                connection,
+                () -> CachingSqlStringBuilder.createStatementForUpdateSql(introspected),
+                preparedStatement -> {
+                    StatementWrapper statementWrapper = new StatementWrapper(preparedStatement);
+                    for (Object item : sorted) {
+                        statementWrapper.addUpdateBatch(introspected, item);
+                    }
+                    int[] rowCounts = statementWrapper.executeBatch();
+
+                    if (introspected.hasVersionColumn()) {
+                        String versionColumn = introspected.getVersionColumnName();
+                        for (int i = 0; i < rowCounts.length; i++) {
+                            Object item = sorted.get(i);
+                            long oldVersion = (long) introspected.get(item, versionColumn);
+                            if (rowCounts[i] == 0) {
+                                conflicts.add(new VersionConflictException(item.getClass(), idOf(introspected, item), oldVersion));
+                            } else {
+                                versionUpdates.add(() -> {
+                                    try {
+                                        introspected.set(item, versionColumn, oldVersion + 1);
+                                    } catch (Exception e) {
+                                        throw new RuntimeException(e);
+                                    }
+                                });
+                            }
+                        }
+                    }
+                    return sum(rowCounts);
+                }
+        );
+    }
+
+    private static int delete(Connection connection, Introspected introspected, List<Object> items) throws Exception {
+        List<Object> sorted = sortedById(introspected, items);
+
+        return SqlQueries.prepareStatement(
+                connection,
+                () -> CachingSqlStringBuilder.deleteObjectByIdSql(introspected),
+                preparedStatement -> {
+                    StatementWrapper statementWrapper = new StatementWrapper(preparedStatement);
+                    for (Object item : sorted) {
+                        statementWrapper.addDeleteBatch(introspected, item);
+                    }
+                    return sum(statementWrapper.executeBatch());
+                }
+        );
+    }
+
+    /**
+     * Orders the classes so that the targets of {@code @ManyToOne} references come before the referring classes.
+     * Reference cycles are broken at the class visited first.
+     */
+    static List<Class<?>> dependencyOrder(Set<Class<?>> classes) throws InstantiationException, IllegalAccessException {
+        List<Class<?>> ordered = new ArrayList<>(classes.size());
+        Set<Class<?>> visited = new HashSet<>();
+        List<Class<?>> sortedByName = new ArrayList<>(classes);
+        sortedByName.sort((a, b) -> a.getName().compareTo(b.getName()));
+        for (Class<?> clazz : sortedByName) {
+            visit(clazz, classes, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visit(Class<?> clazz, Set<Class<?>> classes, Set<Class<?>> visited, List<Class<?>> ordered) throws InstantiationException, IllegalAccessException {
+        if (!visited.add(clazz)) {
+            return;
+        }
+        for (Association association : Introspector.getIntrospected(clazz).getAssociations()) {
+            if (association.getKind() == Association.Kind.MANY_TO_ONE && classes.contains(association.getTargetClass())) {
+                visit(association.getTargetClass(), classes, visited, ordered);
+            }
+        }
+        ordered.add(clazz);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> sortedById(Introspected introspected, List<Object> items) throws IllegalAccessException {
+        if (items.size() < 2) {
+            return items;
+        }
+
+        List<Object[]> keyed = new ArrayList<>(items.size());
+        for (Object item : items) {
+            keyed.add(new Object[]{introspected.getActualIds(item), item});
+        }
+        keyed.sort((a, b) -> {
+            Object[] idsA = (Object[]) a[0];
+            Object[] idsB = (Object[]) b[0];
+            for (int i = 0; i < idsA.length; i++) {
+                if (idsA[i] == null || idsB[i] == null) {
+                    return idsA[i] == idsB[i] ? 0 : idsA[i] == null ? -1 : 1;
+                }
+                int comparison = ((Comparable<Object>) idsA[i]).compareTo(idsB[i]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        });
+
+        List<Object> sorted = new ArrayList<>(keyed.size());
+        for (Object[] entry : keyed) {
+            sorted.add(entry[1]);
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+
+    private static long idOf(Introspected introspected, Object item) throws IllegalAccessException {
+        Object[] ids = introspected.getActualIds(item);
+        return ids.length > 0 && ids[0] instanceof Number ? ((Number) ids[0]).longValue() : 0;
+    }
+
+    private static int sum(int[] rowCounts) {
+        int sum = 0;
+        for (int rowCount : rowCounts) {
+            sum += rowCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(rowCount, 0);
+        }
+        return sum;
+    }
+}
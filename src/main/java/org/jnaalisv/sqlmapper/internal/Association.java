@@ -0,0 +1,67 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import javax.persistence.FetchType;
+import java.lang.reflect.Field;
+
+/**
+ * A {@code @ManyToOne} or {@code @OneToMany} field. For many-to-one the join column is the foreign key column
+ * of the owning entity, for one-to-many it is the foreign key column of the target entity pointing back at the owner.
+ */
+public final class Association {
+
+    public enum Kind {
+        MANY_TO_ONE, ONE_TO_MANY
+    }
+
+    private final Kind kind;
+    private final Field field;
+    private final Class<?> targetClass;
+    private final FetchType fetchType;
+    private final String joinColumn;
+    private final String mappedBy;
+
+    public Association(Kind kind, Field field, Class<?> targetClass, FetchType fetchType, String joinColumn, String mappedBy) {
+        this.kind = kind;
+        this.field = field;
+        this.targetClass = targetClass;
+        this.fetchType = fetchType;
+        this.joinColumn = joinColumn;
+        this.mappedBy = mappedBy;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getPropertyName() {
+        return field.getName();
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    public boolean isEager() {
+        return fetchType == FetchType.EAGER;
+    }
+
+    /**
+     * Join column, or null for a one-to-many that is resolved through {@link #getMappedBy()} on the target.
+     */
+    public String getJoinColumn() {
+        return joinColumn;
+    }
+
+    public String getMappedBy() {
+        return mappedBy;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + field.getDeclaringClass().getSimpleName() + '.' + field.getName() + " -> " + targetClass.getSimpleName();
+    }
+}
@@ -0,0 +1,26 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import javax.sql.DataSource;
+
+public interface DataSourceRouter {
+
+    DataSource acquireRead();
+
+    DataSource acquireWrite();
+
+    default void release(DataSource dataSource) {}
+
+    static DataSourceRouter single(DataSource dataSource) {
+        return new DataSourceRouter() {
+            @Override
+            public DataSource acquireRead() {
+                return dataSource;
+            }
+
+            @Override
+            public DataSource acquireWrite() {
+                return dataSource;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public enum Dialect {
+    GENERIC,
+    POSTGRESQL;
+
+    private static final boolean USE_RETURNING = Boolean.parseBoolean(System.getProperty("org.jnaalisv.sqlmapper.useReturning", "true"));
+
+    private static final Map<DataSource, Dialect> detected = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The dialect of the DataSource, detected from the metadata of its first connection and then remembered.
+     */
+    public static Dialect of(DataSource dataSource, Connection connection) throws SQLException {
+        Dialect dialect = detected.get(dataSource);
+        if (dialect == null) {
+            dialect = of(connection);
+            detected.put(dataSource, dialect);
+        }
+        return dialect;
+    }
+
+    public static Dialect of(Connection connection) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        if ("PostgreSQL".equalsIgnoreCase(productName)) {
+            return POSTGRESQL;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Whether inserts and updates can read back generated values with {@code RETURNING} in the same statement.
+     */
+    public boolean supportsReturning() {
+        return this == POSTGRESQL && USE_RETURNING;
+    }
+
+    /**
+     * A query returning the next value of the sequence; the generic form is understood by H2, HSQLDB, DB2 and
+     * SQL Server.
+     */
+    public String nextSequenceValueSql(String sequenceName) {
+        if (this == POSTGRESQL) {
+            return "SELECT nextval('" + sequenceName + "')";
+        }
+        return "SELECT NEXT VALUE FOR " + sequenceName;
+    }
+
+    /**
+     * A query returning the increment of the sequence given as its only parameter, or of no rows when the
+     * sequence is not listed; the generic form is understood by H2, HSQLDB and SQL Server.
+     */
+    public String sequenceIncrementSql() {
+        if (this == POSTGRESQL) {
+            return "SELECT increment FROM information_schema.sequences WHERE sequence_name = ?";
+        }
+        return "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = UPPER(?)";
+    }
+}
@@ -0,0 +1,9 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import java.sql.Connection;
+
+@FunctionalInterface
+public interface DialectConnectionConsumer<T> {
+
+    T consume(Connection connection, Dialect dialect) throws Exception;
+}
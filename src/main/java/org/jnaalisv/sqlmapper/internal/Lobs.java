@@ -0,0 +1,308 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Streaming access to LOB columns. Entity fields typed {@link Reader}, {@link InputStream} or {@link Supplier}
+ * read the LOB on demand and are only valid while the result set is open, i.e. inside
+ * {@code SqlQueries.forEach} or a publisher subscription. Setting {@code org.jnaalisv.sqlmapper.lobSpillThreshold}
+ * to a byte count detaches them from the result set instead: smaller LOBs are buffered on the heap and larger
+ * ones are copied to a memory-mapped temp file. A CLOB counts two bytes per character, its size as a Java string.
+ */
+public final class Lobs {
+
+    public static final long SPILL_THRESHOLD = Long.getLong("org.jnaalisv.sqlmapper.lobSpillThreshold", -1L);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private Lobs() {
+    }
+
+    public static Reader clobReader(Clob clob) throws SQLException, IOException {
+        return clobReader(clob, SPILL_THRESHOLD);
+    }
+
+    static Reader clobReader(Clob clob, long spillThreshold) throws SQLException, IOException {
+        if (spillThreshold < 0) {
+            return clob.getCharacterStream();
+        }
+        long bytes = clob.length() * Character.BYTES;
+        if (bytes < spillThreshold) {
+            return new StringReader(TypeMapper.readClob(clob));
+        }
+        return new InputStreamReader(streamOf(spill(clob)), StandardCharsets.UTF_8);
+    }
+
+    public static InputStream blobStream(Blob blob) throws SQLException, IOException {
+        return blobStream(blob, SPILL_THRESHOLD);
+    }
+
+    static InputStream blobStream(Blob blob, long spillThreshold) throws SQLException, IOException {
+        if (spillThreshold < 0) {
+            return blob.getBinaryStream();
+        }
+        long length = blob.length();
+        if (length < spillThreshold) {
+            return new ByteArrayInputStream(readBlob(blob));
+        }
+        return streamOf(spill(blob));
+    }
+
+    /**
+     * When spilling, the LOB is detached once and every {@code get()} opens a new reader over the detached copy.
+     */
+    public static Supplier<Reader> clobReaderSupplier(Clob clob) throws SQLException, IOException {
+        return clobReaderSupplier(clob, SPILL_THRESHOLD);
+    }
+
+    static Supplier<Reader> clobReaderSupplier(Clob clob, long spillThreshold) throws SQLException, IOException {
+        if (spillThreshold < 0) {
+            return () -> {
+                try {
+                    return clob.getCharacterStream();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+        if (clob.length() * Character.BYTES < spillThreshold) {
+            String text = TypeMapper.readClob(clob);
+            return () -> new StringReader(text);
+        }
+        ByteBuffer[] spilled = spill(clob);
+        return () -> new InputStreamReader(streamOf(spilled), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * When spilling, the LOB is detached once and every {@code get()} opens a new stream over the detached copy.
+     */
+    public static Supplier<InputStream> blobStreamSupplier(Blob blob) throws SQLException, IOException {
+        return blobStreamSupplier(blob, SPILL_THRESHOLD);
+    }
+
+    static Supplier<InputStream> blobStreamSupplier(Blob blob, long spillThreshold) throws SQLException, IOException {
+        if (spillThreshold < 0) {
+            return () -> {
+                try {
+                    return blob.getBinaryStream();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+        if (blob.length() < spillThreshold) {
+            byte[] bytes = readBlob(blob);
+            return () -> new ByteArrayInputStream(bytes);
+        }
+        ByteBuffer[] spilled = spill(blob);
+        return () -> streamOf(spilled);
+    }
+
+    public static Supplier<String> clobSupplier(Clob clob) throws SQLException, IOException {
+        if (SPILL_THRESHOLD < 0) {
+            return () -> {
+                try {
+                    return TypeMapper.readClob(clob);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+        Supplier<Reader> readers = clobReaderSupplier(clob, SPILL_THRESHOLD);
+        return () -> {
+            try (Reader reader = readers.get()) {
+                return readFully(reader, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    public static Supplier<byte[]> blobSupplier(Blob blob) throws SQLException, IOException {
+        if (SPILL_THRESHOLD < 0) {
+            return () -> {
+                try {
+                    return readBlob(blob);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+        }
+        Supplier<InputStream> streams = blobStreamSupplier(blob, SPILL_THRESHOLD);
+        return () -> {
+            try (InputStream in = streams.get()) {
+                return readFully(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    public static byte[] readBlob(Blob blob) throws SQLException {
+        long length = blob.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new SQLException("Blob of " + length + " bytes does not fit in a byte array");
+        }
+        return blob.getBytes(1, (int) length);
+    }
+
+    static String readFully(Reader reader, long sizeHint) throws IOException {
+        StringBuilder stringBuilder = new StringBuilder((int) Math.min(Math.max(sizeHint, 16), Integer.MAX_VALUE - 8));
+        char[] charBuffer = new char[BUFFER_SIZE];
+        int charsRead;
+        while ((charsRead = reader.read(charBuffer)) != -1) {
+            stringBuilder.append(charBuffer, 0, charsRead);
+        }
+        return stringBuilder.toString();
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        copy(inputStream, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Binds streaming values with the stream setters so the driver doesn't need the whole LOB in memory.
+     * Returns false if the value is not a stream and should be bound with {@code setObject}.
+     */
+    public static boolean bindStream(PreparedStatement stmt, int parameterIndex, Object value) throws SQLException {
+        if (value instanceof Reader) {
+            stmt.setCharacterStream(parameterIndex, (Reader) value);
+            return true;
+        } else if (value instanceof InputStream) {
+            stmt.setBinaryStream(parameterIndex, (InputStream) value);
+            return true;
+        } else if (value instanceof Clob) {
+            stmt.setClob(parameterIndex, (Clob) value);
+            return true;
+        } else if (value instanceof Blob) {
+            stmt.setBlob(parameterIndex, (Blob) value);
+            return true;
+        }
+        return false;
+    }
+
+    private static ByteBuffer[] spill(Clob clob) throws SQLException, IOException {
+        Path file = Files.createTempFile("sqlmapper-lob", ".tmp");
+        try (Reader reader = clob.getCharacterStream();
+             Writer writer = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+            char[] charBuffer = new char[BUFFER_SIZE];
+            int charsRead;
+            while ((charsRead = reader.read(charBuffer)) != -1) {
+                writer.write(charBuffer, 0, charsRead);
+            }
+        }
+        return map(file);
+    }
+
+    private static ByteBuffer[] spill(Blob blob) throws SQLException, IOException {
+        Path file = Files.createTempFile("sqlmapper-lob", ".tmp");
+        try (InputStream in = blob.getBinaryStream();
+             OutputStream out = Files.newOutputStream(file)) {
+            copy(in, out);
+        }
+        return map(file);
+    }
+
+    /**
+     * Maps the file in chunks of up to 2GB, the most a single buffer can address.
+     */
+    private static ByteBuffer[] map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] buffers = new ByteBuffer[(int) Math.max(1, (size + Integer.MAX_VALUE - 1) / Integer.MAX_VALUE)];
+            for (int i = 0; i < buffers.length; i++) {
+                long position = (long) i * Integer.MAX_VALUE;
+                buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, size - position));
+            }
+            return buffers;
+        } finally {
+            // the mappings stay valid after the file is unlinked
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static InputStream streamOf(ByteBuffer[] buffers) {
+        if (buffers.length == 1) {
+            return new ByteBufferInputStream(buffers[0].duplicate());
+        }
+        List<InputStream> streams = new ArrayList<>(buffers.length);
+        for (ByteBuffer buffer : buffers) {
+            streams.add(new ByteBufferInputStream(buffer.duplicate()));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int bytesRead;
+        while ((bytesRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, bytesRead);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads an RFC 4180 CSV file through a memory-mapped window that slides over the file, so files larger than
+ * one mapping can be read. A record is parsed into byte offsets within the window; field values are only decoded
+ * when asked for, and integers are parsed straight from the bytes. An unquoted empty field is null.
+ *
+ * <p>The text conversions of {@link #get(int, Class)} apply to CSV input only; they are deliberately not part of
+ * {@link TypeMapper}, which converts values read from JDBC.</p>
+ */
+public final class MappedCsvReader implements Closeable {
+
+    private static final int WINDOW_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.csvWindowSize", 64 * 1024 * 1024);
+
+    private static final Map<Class<?>, Function<String, Object>> TEXT_PARSERS = new HashMap<>();
+
+    static {
+        TEXT_PARSERS.put(String.class, text -> text);
+        TEXT_PARSERS.put(short.class, text -> Short.valueOf(text.trim()));
+        TEXT_PARSERS.put(Short.class, text -> Short.valueOf(text.trim()));
+        TEXT_PARSERS.put(double.class, Double::valueOf);
+        TEXT_PARSERS.put(Double.class, Double::valueOf);
+        TEXT_PARSERS.put(float.class, Float::valueOf);
+        TEXT_PARSERS.put(Float.class, Float::valueOf);
+        TEXT_PARSERS.put(boolean.class, MappedCsvReader::parseBoolean);
+        TEXT_PARSERS.put(Boolean.class, MappedCsvReader::parseBoolean);
+        TEXT_PARSERS.put(BigDecimal.class, text -> new BigDecimal(text.trim()));
+        TEXT_PARSERS.put(BigInteger.class, text -> new BigInteger(text.trim()));
+        TEXT_PARSERS.put(LocalDate.class, text -> LocalDate.parse(text.trim()));
+        TEXT_PARSERS.put(LocalDateTime.class, MappedCsvReader::parseLocalDateTime);
+        TEXT_PARSERS.put(LocalTime.class, text -> LocalTime.parse(text.trim()));
+        TEXT_PARSERS.put(Timestamp.class, text -> Timestamp.valueOf(parseLocalDateTime(text)));
+        TEXT_PARSERS.put(java.util.Date.class, text -> Timestamp.valueOf(parseLocalDateTime(text)));
+    }
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private int position;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+    private byte[] scratch = new byte[256];
+
+    public MappedCsvReader(Path path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    MappedCsvReader(Path path, int windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        map(0);
+
+        if (windowLimit >= 3 && (window.get(0) & 0xff) == 0xef && (window.get(1) & 0xff) == 0xbb && (window.get(2) & 0xff) == 0xbf) {
+            position = 3;
+        }
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        windowLimit = (int) Math.min(windowSize, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, windowLimit);
+        position = 0;
+    }
+
+    private boolean windowReachesEnd() {
+        return windowStart + windowLimit >= fileSize;
+    }
+
+    /**
+     * Advances to the next non-empty record.
+     *
+     * @return false at the end of the file
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (position >= windowLimit) {
+                if (windowReachesEnd()) {
+                    return false;
+                }
+                map(windowStart + position);
+            }
+
+            int end = parseRecord(position);
+            if (end < 0) {
+                if (position == 0) {
+                    throw new IOException("CSV record at offset " + windowStart + " is longer than the mapping window of " + windowSize + " bytes");
+                }
+                map(windowStart + position);
+                continue;
+            }
+
+            boolean blank = fieldCount == 1 && fieldEnds[0] == fieldStarts[0] && !fieldQuoted[0];
+            position = end;
+            if (!blank) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the offset after the record terminator, or -1 when the record continues past the window
+     */
+    private int parseRecord(int start) throws IOException {
+        fieldCount = 0;
+        int pos = start;
+
+        while (true) {
+            if (fieldCount == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                fieldQuoted = Arrays.copyOf(fieldQuoted, fieldCount * 2);
+            }
+
+            boolean quoted = pos < windowLimit && window.get(pos) == '"';
+            if (quoted) {
+                int contentStart = pos + 1;
+                pos = contentStart;
+                while (true) {
+                    if (pos >= windowLimit) {
+                        if (windowReachesEnd()) {
+                            throw new IOException("Unterminated quoted CSV field at offset " + (windowStart + contentStart - 1));
+                        }
+                        return -1;
+                    }
+                    if (window.get(pos) == '"') {
+                        if (pos + 1 < windowLimit && window.get(pos + 1) == '"') {
+                            pos += 2;
+                            continue;
+                        }
+                        if (pos + 1 >= windowLimit && !windowReachesEnd()) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    pos++;
+                }
+                fieldStarts[fieldCount] = contentStart;
+                fieldEnds[fieldCount] = pos;
+                pos++;
+            } else {
+                int fieldStart = pos;
+                while (pos < windowLimit) {
+                    byte b = window.get(pos);
+                    if (b == ',' || b == '\n' || b == '\r') {
+                        break;
+                    }
+                    pos++;
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = pos;
+            }
+            fieldQuoted[fieldCount] = quoted;
+            fieldCount++;
+
+            if (pos >= windowLimit) {
+                return windowReachesEnd() ? pos : -1;
+            }
+
+            byte separator = window.get(pos);
+            if (separator == ',') {
+                pos++;
+            } else if (separator == '\n') {
+                return pos + 1;
+            } else if (separator == '\r') {
+                if (pos + 1 < windowLimit) {
+                    return window.get(pos + 1) == '\n' ? pos + 2 : pos + 1;
+                }
+                return windowReachesEnd() ? pos + 1 : -1;
+            } else {
+                throw new IOException("Unexpected character after quoted CSV field at offset " + (windowStart + pos));
+            }
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isNull(int field) {
+        return field >= fieldCount || (!fieldQuoted[field] && fieldEnds[field] == fieldStarts[field]);
+    }
+
+    /**
+     * @return the field decoded as UTF-8, or null for an empty unquoted field
+     */
+    public String getString(int field) {
+        if (isNull(field)) {
+            return null;
+        }
+
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.position(start);
+        window.get(scratch, 0, length);
+
+        if (fieldQuoted[field]) {
+            int out = 0;
+            for (int i = 0; i < length; i++) {
+                byte b = scratch[i];
+                scratch[out++] = b;
+                if (b == '"') {
+                    i++;
+                }
+            }
+            length = out;
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true when {@link #get(int, Class)} can read fields as the type
+     */
+    public static boolean canRead(Class<?> type) {
+        return type == long.class || type == Long.class || type == int.class || type == Integer.class || TEXT_PARSERS.containsKey(type);
+    }
+
+    /**
+     * Reads the field as the type: integers straight from the bytes, other types from the decoded text.
+     *
+     * @return null for an empty unquoted field
+     * @throws IllegalArgumentException when the text is not a valid value of the type
+     */
+    public Object get(int field, Class<?> type) {
+        if (isNull(field)) {
+            return null;
+        }
+        if (type == long.class || type == Long.class) {
+            return getLong(field);
+        }
+        if (type == int.class || type == Integer.class) {
+            long value = getLong(field);
+            if ((int) value != value) {
+                throw new NumberFormatException("Out of integer range: " + value);
+            }
+            return (int) value;
+        }
+
+        Function<String, Object> parser = TEXT_PARSERS.get(type);
+        if (parser == null) {
+            throw new IllegalArgumentException("CSV fields cannot be read as " + type.getName());
+        }
+        return parser.apply(getString(field));
+    }
+
+    /**
+     * Parses a decimal integer straight from the mapped bytes, ignoring surrounding spaces.
+     *
+     * @throws NumberFormatException when the field is not an integer or does not fit in a long
+     */
+    public long getLong(int field) {
+        int pos = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (pos < end && window.get(pos) == ' ') {
+            pos++;
+        }
+        while (end > pos && window.get(end - 1) == ' ') {
+            end--;
+        }
+
+        boolean negative = pos < end && window.get(pos) == '-';
+        if (negative || (pos < end && window.get(pos) == '+')) {
+            pos++;
+        }
+        if (pos == end) {
+            throw new NumberFormatException("Not a number: \"" + getString(field) + '"');
+        }
+
+        // accumulated as a negative number, which also covers Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = window.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a number: \"" + getString(field) + '"');
+            }
+            if (value < multiplyLimit || value * 10 < limit + digit) {
+                throw new NumberFormatException("Out of long range: \"" + getString(field) + '"');
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    private static Object parseBoolean(String text) {
+        String value = text.trim();
+        return "1".equals(value) || "true".equalsIgnoreCase(value) || "t".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value);
+    }
+
+    /**
+     * Accepts both the ISO form {@code 2017-01-31T12:00} and the SQL form {@code 2017-01-31 12:00:00}.
+     */
+    private static LocalDateTime parseLocalDateTime(String text) {
+        String value = text.trim();
+        return value.indexOf('T') > 0 ? LocalDateTime.parse(value) : Timestamp.valueOf(value).toLocalDateTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
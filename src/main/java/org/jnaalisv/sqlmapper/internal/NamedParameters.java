@@ -0,0 +1,187 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Translates SQL with {@code :name} parameters into positional SQL. Each SQL text is parsed once; the result is
+ * kept in a concurrent cache, so binding by name only adds a map or getter lookup per parameter. Once the cache
+ * holds {@code namedParameterCacheSize} statements it is cleared, so generated SQL can't grow it without bound.
+ * Literals, quoted identifiers, comments and PostgreSQL {@code ::type} casts are left alone.
+ */
+public final class NamedParameters {
+
+    private static final int CACHE_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.namedParameterCacheSize", 500);
+
+    private static final ConcurrentHashMap<String, ParsedSql> parsedSqlCache = new ConcurrentHashMap<>();
+
+    private static final ClassValue<Map<String, Accessor>> accessors = new ClassValue<Map<String, Accessor>>() {
+        @Override
+        protected Map<String, Accessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private NamedParameters() {}
+
+    public static ParsedSql parse(String sql) {
+        ParsedSql parsedSql = parsedSqlCache.get(sql);
+        if (parsedSql != null) {
+            return parsedSql;
+        }
+        if (parsedSqlCache.size() >= CACHE_SIZE) {
+            parsedSqlCache.clear();
+        }
+        return parsedSqlCache.computeIfAbsent(sql, NamedParameters::doParse);
+    }
+
+    /**
+     * Drops the property accessors of the bean class.
+     */
+    public static void evict(Class<?> beanClass) {
+        accessors.remove(beanClass);
+    }
+
+    static ParsedSql doParse(String sql) {
+        StringBuilder positional = new StringBuilder(sql.length());
+        List<String> names = new ArrayList<>();
+
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                positional.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                positional.append(sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                positional.append(sql, i, end);
+                i = end;
+            } else if (c == ':' && i + 1 < length && sql.charAt(i + 1) == ':') {
+                positional.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(sql.charAt(i + 1))) {
+                int end = i + 1;
+                while (end < length && Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                }
+                names.add(sql.substring(i + 1, end));
+                positional.append('?');
+                i = end;
+            } else {
+                positional.append(c);
+                i++;
+            }
+        }
+        return new ParsedSql(positional.toString(), names.toArray(new String[0]));
+    }
+
+    public static final class ParsedSql {
+        private final String sql;
+        private final String[] parameterNames;
+
+        ParsedSql(String sql, String[] parameterNames) {
+            this.sql = sql;
+            this.parameterNames = parameterNames;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String[] getParameterNames() {
+            return parameterNames.clone();
+        }
+
+        /**
+         * Positional arguments taken from a {@code Map} keyed by parameter name, or from the getters or fields of a bean.
+         */
+        public Object[] toArgs(Object parameters) {
+            Object[] args = new Object[parameterNames.length];
+            if (parameters instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) parameters;
+                for (int i = 0; i < args.length; i++) {
+                    String name = parameterNames[i];
+                    if (!map.containsKey(name)) {
+                        throw new IllegalArgumentException("No value for named parameter :" + name);
+                    }
+                    args[i] = map.get(name);
+                }
+            } else if (args.length > 0) {
+                if (parameters == null) {
+                    throw new IllegalArgumentException("No values for named parameters of " + sql);
+                }
+                Map<String, Accessor> beanAccessors = accessors.get(parameters.getClass());
+                for (int i = 0; i < args.length; i++) {
+                    String name = parameterNames[i];
+                    Accessor accessor = beanAccessors.get(name);
+                    if (accessor == null) {
+                        accessor = accessorFor(parameters.getClass(), name);
+                        beanAccessors.put(name, accessor);
+                    }
+                    args[i] = accessor.get(parameters);
+                }
+            }
+            return args;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Accessor {
+        Object get(Object bean);
+    }
+
+    private static Accessor accessorFor(Class<?> type, String name) {
+        try {
+            BeanInfo beanInfo = java.beans.Introspector.getBeanInfo(type);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                Method readMethod = descriptor.getReadMethod();
+                if (descriptor.getName().equals(name) && readMethod != null) {
+                    readMethod.setAccessible(true);
+                    return bean -> {
+                        try {
+                            return readMethod.invoke(bean);
+                        } catch (IllegalAccessException | InvocationTargetException e) {
+                            throw new RuntimeException(e);
+                        }
+                    };
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new RuntimeException(e);
+        }
+
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(name);
+                field.setAccessible(true);
+                return bean -> {
+                    try {
+                        return field.get(bean);
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                };
+            } catch (NoSuchFieldException e) {
+                // try the superclass
+            }
+        }
+        throw new IllegalArgumentException("No value for named parameter :" + name + " on " + type.getCanonicalName());
+    }
+}
@@ -0,0 +1,154 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class QueryExecutors {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryExecutors.class);
+
+    public static final int POOL_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.asyncPoolSize", 10);
+    public static final int FAN_OUT_POOL_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.fanOutPoolSize", Runtime.getRuntime().availableProcessors());
+    private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("org.jnaalisv.sqlmapper.asyncVirtualThreads");
+
+    private QueryExecutors() {}
+
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = VIRTUAL_THREADS ? newVirtualThreadExecutor() : newBoundedExecutor(POOL_SIZE);
+    }
+
+    public static ExecutorService defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    private static final class FanOutExecutorHolder {
+        private static final ExecutorService EXECUTOR = newBoundedExecutor(FAN_OUT_POOL_SIZE, "sqlmapper-fan-out-");
+    }
+
+    /**
+     * A pool of its own for parallel scans and shard scatter-gather, so that they don't compete with async queries.
+     */
+    public static ExecutorService fanOutExecutor() {
+        return FanOutExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * An executor for async queries on a connection pool of the given size: the shared virtual-thread executor when
+     * those are enabled, otherwise a bounded executor with a thread per connection.
+     */
+    public static ExecutorService newAsyncExecutor(int poolSize) {
+        return VIRTUAL_THREADS ? defaultExecutor() : newBoundedExecutor(poolSize);
+    }
+
+    /**
+     * @return the maximum pool size the DataSource reports through {@code getMaximumPoolSize()}, as HikariCP does,
+     * or {@link #POOL_SIZE} for other DataSources
+     */
+    public static int poolSizeOf(DataSource dataSource) {
+        try {
+            Object poolSize = dataSource.getClass().getMethod("getMaximumPoolSize").invoke(dataSource);
+            if (poolSize instanceof Integer && (Integer) poolSize > 0) {
+                return (Integer) poolSize;
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("{} does not report its pool size", dataSource.getClass().getName());
+        }
+        return POOL_SIZE;
+    }
+
+    public static ExecutorService newBoundedExecutor(int threads) {
+        return newBoundedExecutor(threads, "sqlmapper-async-");
+    }
+
+    private static ExecutorService newBoundedExecutor(int threads, String threadNamePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new DaemonThreadFactory(threadNamePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the tasks on the executor and returns their results in order. The calling thread runs every task the
+     * executor has not started yet, so a fan-out nested in another one completes even when all pool threads are
+     * busy waiting. On failure the remaining tasks are cancelled and the first failure is rethrown.
+     */
+    public static <T> List<T> invokeAll(Executor executor, List<Callable<T>> tasks) {
+        List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            FutureTask<T> future = new FutureTask<>(task);
+            futures.add(future);
+            try {
+                executor.execute(future);
+            } catch (RejectedExecutionException e) {
+                // run by the caller below
+            }
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (FutureTask<T> future : futures) {
+                // no-op when a pool thread has already taken the task
+                future.run();
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return results;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.debug("Virtual threads are not available, falling back to a bounded executor");
+            return newBoundedExecutor(POOL_SIZE);
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
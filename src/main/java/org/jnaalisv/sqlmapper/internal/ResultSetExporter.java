@@ -0,0 +1,371 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Writes rows straight from a {@link ResultSet} to a channel as UTF-8 CSV or JSON lines. Values are encoded by
+ * hand into a direct buffer that is reused per thread, and integer columns are written from {@code getLong},
+ * so apart from the strings the driver hands out nothing is allocated per row.
+ */
+public final class ResultSetExporter {
+
+    public enum Format {
+        CSV, JSONL
+    }
+
+    private static final int BUFFER_SIZE = Math.max(64, Integer.getInteger("org.jnaalisv.sqlmapper.exportBufferSize", 64 * 1024));
+
+    private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private enum ColumnKind {
+        INTEGER, NUMBER, BOOLEAN, TEXT
+    }
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    private ResultSetExporter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = buffers.get();
+        this.buffer.clear();
+    }
+
+    /**
+     * @param headers column names for the CSV header and the JSON keys, or null to take them from the result set metadata
+     * @return the number of rows written
+     */
+    public static long export(ResultSet resultSet, String[] headers, WritableByteChannel channel, Format format) throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        ColumnKind[] kinds = new ColumnKind[columnCount];
+        String[] names = new String[columnCount];
+        for (int column = 1; column <= columnCount; column++) {
+            kinds[column - 1] = kindOf(metaData.getColumnType(column));
+            names[column - 1] = headers != null && headers.length >= column ? headers[column - 1] : metaData.getColumnLabel(column).toLowerCase();
+        }
+
+        ResultSetExporter exporter = new ResultSetExporter(channel);
+        return format == Format.CSV
+                ? exporter.writeCsv(resultSet, kinds, names)
+                : exporter.writeJsonLines(resultSet, kinds, names);
+    }
+
+    private static ColumnKind kindOf(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return ColumnKind.INTEGER;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return ColumnKind.NUMBER;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return ColumnKind.BOOLEAN;
+            default:
+                return ColumnKind.TEXT;
+        }
+    }
+
+    private long writeCsv(ResultSet resultSet, ColumnKind[] kinds, String[] names) throws SQLException, IOException {
+        for (int column = 0; column < names.length; column++) {
+            if (column > 0) {
+                put((byte) ',');
+            }
+            writeCsvText(names[column]);
+        }
+        put((byte) '\n');
+
+        long rowCount = 0;
+        while (resultSet.next()) {
+            for (int column = 1; column <= kinds.length; column++) {
+                if (column > 1) {
+                    put((byte) ',');
+                }
+                switch (kinds[column - 1]) {
+                    case INTEGER:
+                        long number = resultSet.getLong(column);
+                        if (!resultSet.wasNull()) {
+                            writeLong(number);
+                        }
+                        break;
+                    case BOOLEAN:
+                        boolean bool = resultSet.getBoolean(column);
+                        if (!resultSet.wasNull()) {
+                            put(bool ? TRUE : FALSE);
+                        }
+                        break;
+                    default:
+                        String text = resultSet.getString(column);
+                        if (text != null) {
+                            writeCsvText(text);
+                        }
+                        break;
+                }
+            }
+            put((byte) '\n');
+            ++rowCount;
+        }
+        flush();
+        return rowCount;
+    }
+
+    /**
+     * Keys are escaped like string values.
+     */
+    private long writeJsonLines(ResultSet resultSet, ColumnKind[] kinds, String[] names) throws SQLException, IOException {
+        long rowCount = 0;
+        while (resultSet.next()) {
+            put((byte) '{');
+            for (int column = 1; column <= kinds.length; column++) {
+                if (column > 1) {
+                    put((byte) ',');
+                }
+                writeJsonText(names[column - 1]);
+                put((byte) ':');
+
+                switch (kinds[column - 1]) {
+                    case INTEGER:
+                        long number = resultSet.getLong(column);
+                        if (resultSet.wasNull()) {
+                            put(NULL);
+                        } else {
+                            writeLong(number);
+                        }
+                        break;
+                    case BOOLEAN:
+                        boolean bool = resultSet.getBoolean(column);
+                        put(resultSet.wasNull() ? NULL : bool ? TRUE : FALSE);
+                        break;
+                    case NUMBER:
+                        String decimal = resultSet.getString(column);
+                        if (decimal == null) {
+                            put(NULL);
+                        } else {
+                            writeJsonNumber(decimal);
+                        }
+                        break;
+                    default:
+                        String text = resultSet.getString(column);
+                        if (text == null) {
+                            put(NULL);
+                        } else {
+                            writeJsonText(text);
+                        }
+                        break;
+                }
+            }
+            put((byte) '}');
+            put((byte) '\n');
+            ++rowCount;
+        }
+        flush();
+        return rowCount;
+    }
+
+    /**
+     * Writes a number as the driver formatted it when that is valid JSON. Other spellings, such as {@code .5},
+     * are normalized through BigDecimal, and values JSON cannot represent, such as NaN and Infinity, become null.
+     */
+    private void writeJsonNumber(String text) throws IOException {
+        if (isJsonNumber(text)) {
+            writeUtf8(text);
+            return;
+        }
+        try {
+            writeUtf8(new BigDecimal(text.trim()).toString());
+        } catch (NumberFormatException e) {
+            put(NULL);
+        }
+    }
+
+    private static boolean isJsonNumber(String text) {
+        int i = text.startsWith("-") ? 1 : 0;
+        int digits = skipDigits(text, i);
+        if (digits == i || (text.charAt(i) == '0' && digits > i + 1)) {
+            return false;
+        }
+        i = digits;
+        if (i < text.length() && text.charAt(i) == '.') {
+            digits = skipDigits(text, i + 1);
+            if (digits == i + 1) {
+                return false;
+            }
+            i = digits;
+        }
+        if (i < text.length() && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            digits = skipDigits(text, i);
+            if (digits == i) {
+                return false;
+            }
+            i = digits;
+        }
+        return i == text.length();
+    }
+
+    private static int skipDigits(String text, int index) {
+        while (index < text.length() && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    private void writeCsvText(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            writeUtf8(text);
+            return;
+        }
+
+        put((byte) '"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                put((byte) '"');
+            }
+            i = writeChar(text, i);
+        }
+        put((byte) '"');
+    }
+
+    private void writeJsonText(String text) throws IOException {
+        put((byte) '"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                put((byte) '\\');
+                put((byte) c);
+            } else if (c == '\n') {
+                put((byte) '\\');
+                put((byte) 'n');
+            } else if (c == '\r') {
+                put((byte) '\\');
+                put((byte) 'r');
+            } else if (c == '\t') {
+                put((byte) '\\');
+                put((byte) 't');
+            } else if (c < 0x20) {
+                put((byte) '\\');
+                put((byte) 'u');
+                put((byte) '0');
+                put((byte) '0');
+                put(HEX[c >> 4]);
+                put(HEX[c & 0xf]);
+            } else {
+                i = writeChar(text, i);
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void writeUtf8(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            i = writeChar(text, i);
+        }
+    }
+
+    /**
+     * Encodes the character at {@code index} (and its low surrogate) and returns the index of the last char consumed.
+     */
+    private int writeChar(String text, int index) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush();
+        }
+
+        char c = text.charAt(index);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xc0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3f)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < text.length() && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+            buffer.put((byte) (0xf0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xe0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (c & 0x3f)));
+        }
+        return index;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            put(LONG_MIN_VALUE);
+            return;
+        }
+        if (buffer.remaining() < 20) {
+            flush();
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int position = end - 1; position >= end - digits; position--) {
+            buffer.put(position, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            put(b);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
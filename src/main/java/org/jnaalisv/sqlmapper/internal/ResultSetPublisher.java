@@ -0,0 +1,224 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import com.zaxxer.sansorm.internal.Introspector;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold publisher over a single query. Each subscription opens its own connection on the first
+ * request, reads and hydrates rows only as they are requested and closes everything on completion,
+ * error or cancellation. Rows are emitted on the thread that calls {@link Subscription#request}.
+ */
+public final class ResultSetPublisher<T> implements Publisher<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultSetPublisher.class);
+
+    private static final int MAX_FETCH_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.maxFetchSize", 1000);
+
+    private final DataSourceRouter dataSourceRouter;
+    private final Callable<String> sqlProducer;
+    private final Class<T> entityClass;
+    private final Object[] args;
+
+    public ResultSetPublisher(DataSourceRouter dataSourceRouter, Callable<String> sqlProducer, Class<T> entityClass, Object... args) {
+        this.dataSourceRouter = dataSourceRouter;
+        this.sqlProducer = sqlProducer;
+        this.entityClass = entityClass;
+        this.args = args;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        subscriber.onSubscribe(new ResultSetSubscription(subscriber));
+    }
+
+    private final class ResultSetSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable requestError;
+        private boolean done;
+        private boolean rowPending;
+
+        private DataSource dataSource;
+        private Connection connection;
+        private PreparedStatement preparedStatement;
+        private ResultSet resultSet;
+        private Introspected introspected;
+        private ResultSetToolBox.ResultSetColumnInfo resultSetColumnInfo;
+
+        ResultSetSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Rule 3.9: request must be positive, was " + n);
+                drain();
+                return;
+            }
+
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, next));
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (done) {
+                return;
+            }
+
+            if (requestError != null) {
+                done = true;
+                close();
+                subscriber.onError(requestError);
+                return;
+            }
+
+            if (cancelled) {
+                done = true;
+                close();
+                return;
+            }
+
+            long demand = requested.get();
+            long emitted = 0;
+
+            try {
+                while (emitted != demand) {
+                    if (cancelled) {
+                        done = true;
+                        close();
+                        return;
+                    }
+
+                    if (resultSet == null) {
+                        open(demand);
+                    } else if (emitted == 0) {
+                        resultSet.setFetchSize(fetchSize(demand));
+                    }
+
+                    if (!rowPending && !resultSet.next()) {
+                        complete();
+                        return;
+                    }
+                    rowPending = false;
+
+                    T target = ResultSetToolBox.toObject(resultSet, entityClass, introspected, resultSetColumnInfo);
+                    subscriber.onNext(target);
+                    ++emitted;
+                }
+
+                // Look one row ahead so that a subscriber requesting exactly the remaining rows still sees onComplete
+                if (emitted != 0 && !cancelled) {
+                    if (resultSet.next()) {
+                        rowPending = true;
+                    } else {
+                        complete();
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                done = true;
+                close();
+                subscriber.onError(e);
+                return;
+            }
+
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        private void complete() {
+            done = true;
+            close();
+            subscriber.onComplete();
+        }
+
+        private void open(long demand) throws Exception {
+            String sql = sqlProducer.call();
+            LOGGER.debug("publish {}", sql);
+
+            dataSource = dataSourceRouter.acquireRead();
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize(demand));
+            if (args.length != 0) {
+                StatementWrapper.populateStatementParameters(preparedStatement, args);
+            }
+
+            resultSet = preparedStatement.executeQuery();
+            introspected = Introspector.getIntrospected(entityClass);
+            resultSetColumnInfo = new ResultSetToolBox.ResultSetColumnInfo(resultSet.getMetaData());
+        }
+
+        private int fetchSize(long demand) {
+            return (int) Math.min(demand, MAX_FETCH_SIZE);
+        }
+
+        private void close() {
+            closeQuietly(resultSet);
+            closeQuietly(preparedStatement);
+            closeQuietly(connection);
+            resultSet = null;
+            preparedStatement = null;
+            connection = null;
+            if (dataSource != null) {
+                dataSourceRouter.release(dataSource);
+                dataSource = null;
+            }
+        }
+
+        private void closeQuietly(AutoCloseable closeable) {
+            if (closeable == null) {
+                return;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOGGER.debug("close failed ", e);
+            }
+        }
+    }
+}
@@ -2,71 +2,398 @@ package org.jnaalisv.sqlmapper.internal;
 
 import com.zaxxer.sansorm.internal.Introspected;
 import com.zaxxer.sansorm.internal.Introspector;
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.MetricsRecorder;
 
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Consumer;
 
 public class ResultSetToolBox {
-    private static <T> void hydrateEntity(Introspected introspected, T target, ResultSet resultSet, ResultSetColumnInfo resultSetColumnInfo, Set<String> ignoredColumns) throws IllegalAccessException, SQLException, IOException {
+    private static <T> void hydrateEntity(T target, ResultSet resultSet, ResultSetColumnInfo resultSetColumnInfo, Introspected.FieldColumnInfo[] fields) throws IllegalAccessException, SQLException, IOException {
 
         for (int column = resultSetColumnInfo.columnCount; column > 0; column--) {
-            Object columnValue = resultSet.getObject(column);
-            String columnName = resultSetColumnInfo.columnNames[column - 1];
+            Introspected.FieldColumnInfo fcInfo = fields[column - 1];
+            if (fcInfo == null) {
+                if (resultSet.getObject(column) != null) {
+                    throw new RuntimeException("Cannot find field mapped to column " + resultSetColumnInfo.columnNames[column - 1] + " on type " + target.getClass().getCanonicalName());
+                }
+                continue;
+            }
+            if (fcInfo.getCreatorIndex() >= 0) {
+                continue;
+            }
 
-            if (columnValue == null || ignoredColumns.contains(columnName)) {
+            Object columnValue = fcInfo.readColumn(resultSet, column);
+            if (columnValue == null) {
                 continue;
             }
 
-            introspected.set(target, columnName, columnValue);
+            fcInfo.setValue(target, columnValue);
         }
     }
 
+    public static <T> T toObject(ResultSet resultSet, Class<T> targetClass, Introspected introspected, ResultSetColumnInfo resultSetColumnInfo) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+        Introspected.FieldColumnInfo[] fields = resultSetColumnInfo.fieldsFor(introspected);
+        T target = introspected.hasCreator()
+                ? targetClass.cast(construct(resultSet, introspected, fields, resultSetColumnInfo.creatorColumns))
+                : targetClass.newInstance();
+        hydrateEntity(target, resultSet, resultSetColumnInfo, fields);
+        return target;
+    }
+
+    /**
+     * Creates the entity through its {@code @ConstructorProperties} constructor from the given columns; the
+     * remaining fields are assigned afterwards.
+     */
+    private static Object construct(ResultSet resultSet, Introspected introspected, Introspected.FieldColumnInfo[] fields, int[] creatorColumns) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+        Object[] arguments = introspected.newCreatorArguments();
+        for (int column : creatorColumns) {
+            Introspected.FieldColumnInfo fcInfo = fields[column];
+            Object columnValue = fcInfo.readColumn(resultSet, column + 1);
+            if (columnValue != null) {
+                arguments[fcInfo.getCreatorIndex()] = fcInfo.toFieldValue(columnValue);
+            }
+        }
+        return introspected.create(arguments);
+    }
+
     public static <T> List<T> resultSetToList(ResultSet resultSet, Class<T> targetClass) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+        return resultSetToList(resultSet, targetClass, Introspector.getIntrospected(targetClass), null);
+    }
 
-        ResultSetColumnInfo resultSetColumnInfo = new ResultSetColumnInfo(resultSet.getMetaData());
-        Introspected introspected = Introspector.getIntrospected(targetClass);
+    /**
+     * @param resultSetColumnInfo a column plan from {@link #columnPlan} for the same SQL, or null to resolve it from this result set
+     */
+    public static <T> List<T> resultSetToList(ResultSet resultSet, Class<T> targetClass, Introspected introspected, ResultSetColumnInfo resultSetColumnInfo) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        if (resultSetColumnInfo == null) {
+            resultSetColumnInfo = new ResultSetColumnInfo(resultSet.getMetaData());
+        }
 
         final List<T> list = new ArrayList<>();
         while (resultSet.next()) {
+            list.add(toObject(resultSet, targetClass, introspected, resultSetColumnInfo));
+        }
 
-            T target = targetClass.newInstance();
-            hydrateEntity(introspected, target, resultSet, resultSetColumnInfo, Collections.emptySet());
-
-            list.add(target);
+        if (recorder.isEnabled()) {
+            recorder.rowsHydrated(targetClass, list.size(), System.nanoTime() - start);
         }
         return list;
     }
 
-    public static <T> Optional<T> resultSetToObject(ResultSet resultSet, Class<T> targetClass) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+    public static <T> long resultSetForEach(ResultSet resultSet, Class<T> targetClass, Consumer<? super T> consumer) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
 
         ResultSetColumnInfo resultSetColumnInfo = new ResultSetColumnInfo(resultSet.getMetaData());
         Introspected introspected = Introspector.getIntrospected(targetClass);
 
+        long rowCount = 0;
+        while (resultSet.next()) {
+            consumer.accept(toObject(resultSet, targetClass, introspected, resultSetColumnInfo));
+            ++rowCount;
+        }
+
+        if (recorder.isEnabled()) {
+            recorder.rowsHydrated(targetClass, (int) Math.min(rowCount, Integer.MAX_VALUE), System.nanoTime() - start);
+        }
+        return rowCount;
+    }
+
+    public static <T> Optional<T> resultSetToObject(ResultSet resultSet, Class<T> targetClass) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+        return resultSetToObject(resultSet, targetClass, Introspector.getIntrospected(targetClass), null);
+    }
+
+    public static <T> Optional<T> resultSetToObject(ResultSet resultSet, Class<T> targetClass, Introspected introspected, ResultSetColumnInfo resultSetColumnInfo) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        if (resultSetColumnInfo == null) {
+            resultSetColumnInfo = new ResultSetColumnInfo(resultSet.getMetaData());
+        }
+
+        Optional<T> result = Optional.empty();
         if (resultSet.next()) {
+            result = Optional.of(toObject(resultSet, targetClass, introspected, resultSetColumnInfo));
+        }
 
-            T target = (T) targetClass.newInstance();
-            hydrateEntity(introspected, target, resultSet, resultSetColumnInfo, Collections.emptySet());
-            return Optional.of(target);
+        if (recorder.isEnabled()) {
+            recorder.rowsHydrated(targetClass, result.isPresent() ? 1 : 0, System.nanoTime() - start);
         }
-        return Optional.empty();
+        return result;
     }
 
-    private static class ResultSetColumnInfo {
+    /**
+     * Resolves the column to field plan of a result set up front. The returned plan is not modified afterwards,
+     * so it can be shared between threads executing the same SQL.
+     */
+    public static ResultSetColumnInfo columnPlan(ResultSetMetaData metaData, Introspected introspected) throws SQLException {
+        ResultSetColumnInfo resultSetColumnInfo = new ResultSetColumnInfo(metaData);
+        resultSetColumnInfo.fieldsFor(introspected);
+        return resultSetColumnInfo;
+    }
+
+    /**
+     * Maps every row into a tuple with one entity per type, in the order of {@code entityTypes}. A column belongs
+     * to the entity whose table the driver reports for it, or whose table name prefixes the column label
+     * ({@code customers__name} or {@code "customers.name"}); otherwise to the first entity that has such a column.
+     * Entities repeated over several rows (the "one" side of a join) are hydrated once and shared, and entities
+     * whose id columns are all null (outer joins) are null in the tuple.
+     */
+    public static List<Object[]> resultSetToTuples(ResultSet resultSet, Class<?>... entityTypes) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        ResultSetColumnInfo resultSetColumnInfo = new ResultSetColumnInfo(resultSet.getMetaData());
+        TuplePlan plan = new TuplePlan(resultSet.getMetaData(), resultSetColumnInfo, entityTypes);
+
+        List<Map<List<Object>, Object>> identityMaps = new ArrayList<>(entityTypes.length);
+        for (int i = 0; i < entityTypes.length; i++) {
+            identityMaps.add(new HashMap<>());
+        }
+
+        final List<Object[]> tuples = new ArrayList<>();
+        while (resultSet.next()) {
+            Object[] tuple = new Object[entityTypes.length];
+            for (int entity = 0; entity < entityTypes.length; entity++) {
+                tuple[entity] = plan.toEntity(resultSet, entity, identityMaps.get(entity));
+            }
+            plan.linkReferences(tuple);
+            tuples.add(tuple);
+        }
+
+        if (recorder.isEnabled()) {
+            recorder.rowsHydrated(Object[].class, tuples.size(), System.nanoTime() - start);
+        }
+        return tuples;
+    }
+
+    private static final class TuplePlan {
+        private final Class<?>[] entityTypes;
+        private final Introspected[] introspecteds;
+        private final int[][] columnsByEntity;
+        private final int[][] creatorColumnsByEntity;
+        private final int[][] idColumnsByEntity;
+        private final Introspected.FieldColumnInfo[] fields;
+
+        TuplePlan(ResultSetMetaData metaData, ResultSetColumnInfo resultSetColumnInfo, Class<?>[] entityTypes) throws SQLException, IllegalAccessException, InstantiationException {
+            this.entityTypes = entityTypes;
+            this.introspecteds = new Introspected[entityTypes.length];
+            for (int i = 0; i < entityTypes.length; i++) {
+                introspecteds[i] = Introspector.getIntrospected(entityTypes[i]);
+            }
+
+            int columnCount = resultSetColumnInfo.columnCount;
+            int[] owners = new int[columnCount];
+            fields = new Introspected.FieldColumnInfo[columnCount];
+
+            for (int column = 0; column < columnCount; column++) {
+                String columnName = resultSetColumnInfo.columnNames[column];
+                String tableName = resultSetColumnInfo.tableNames[column];
+
+                String label = metaData.getColumnLabel(column + 1).toLowerCase();
+                int separator = label.indexOf("__");
+                int separatorLength = 2;
+                if (separator < 0) {
+                    separator = label.indexOf('.');
+                    separatorLength = 1;
+                }
+                if (separator > 0) {
+                    tableName = label.substring(0, separator);
+                    columnName = label.substring(separator + separatorLength);
+                }
+
+                owners[column] = -1;
+                for (int entity = 0; entity < introspecteds.length && owners[column] < 0; entity++) {
+                    if (tableName.equalsIgnoreCase(introspecteds[entity].getTableName())) {
+                        owners[column] = entity;
+                    }
+                }
+                if (owners[column] < 0) {
+                    for (int entity = 0; entity < introspecteds.length && owners[column] < 0; entity++) {
+                        if (introspecteds[entity].findFieldColumnInfo(columnName) != null) {
+                            owners[column] = entity;
+                        }
+                    }
+                }
+                if (owners[column] >= 0) {
+                    fields[column] = introspecteds[owners[column]].findFieldColumnInfo(columnName);
+                    if (fields[column] == null) {
+                        owners[column] = -1;
+                    }
+                }
+            }
+
+            columnsByEntity = new int[entityTypes.length][];
+            creatorColumnsByEntity = new int[entityTypes.length][];
+            idColumnsByEntity = new int[entityTypes.length][];
+            for (int entity = 0; entity < entityTypes.length; entity++) {
+                List<Integer> columns = new ArrayList<>();
+                List<String> idColumnNames = Arrays.asList(introspecteds[entity].getIdColumnNames());
+                int[] idColumns = new int[idColumnNames.size()];
+                Arrays.fill(idColumns, -1);
+                for (int column = 0; column < columnCount; column++) {
+                    if (owners[column] == entity) {
+                        columns.add(column);
+                        int idIndex = idColumnNames.indexOf(fields[column].getColumnName());
+                        if (idIndex >= 0) {
+                            idColumns[idIndex] = column;
+                        }
+                    }
+                }
+                columnsByEntity[entity] = columns.stream().mapToInt(Integer::intValue).toArray();
+                creatorColumnsByEntity[entity] = columns.stream().filter(column -> fields[column].getCreatorIndex() >= 0).mapToInt(Integer::intValue).toArray();
+                idColumnsByEntity[entity] = idColumns;
+            }
+        }
+
+        Object toEntity(ResultSet resultSet, int entity, Map<List<Object>, Object> identityMap) throws SQLException, IllegalAccessException, InstantiationException, IOException {
+            int[] idColumns = idColumnsByEntity[entity];
+
+            List<Object> key = null;
+            if (idColumns.length > 0 && idColumns[0] >= 0) {
+                Object[] ids = new Object[idColumns.length];
+                boolean allNull = true;
+                for (int i = 0; i < idColumns.length; i++) {
+                    if (idColumns[i] >= 0) {
+                        ids[i] = resultSet.getObject(idColumns[i] + 1);
+                        allNull &= ids[i] == null;
+                    }
+                }
+                if (allNull) {
+                    return null;
+                }
+                key = Arrays.asList(ids);
+                Object seen = identityMap.get(key);
+                if (seen != null) {
+                    return seen;
+                }
+            }
+
+            Object target = introspecteds[entity].hasCreator()
+                    ? construct(resultSet, introspecteds[entity], fields, creatorColumnsByEntity[entity])
+                    : entityTypes[entity].newInstance();
+            for (int column : columnsByEntity[entity]) {
+                Introspected.FieldColumnInfo fcInfo = fields[column];
+                if (fcInfo.getCreatorIndex() >= 0) {
+                    continue;
+                }
+                Object columnValue = fcInfo.readColumn(resultSet, column + 1);
+                if (columnValue != null) {
+                    fcInfo.setValue(target, columnValue);
+                }
+            }
+
+            if (key != null) {
+                identityMap.put(key, target);
+            }
+            return target;
+        }
+
+        /**
+         * Points many-to-one references at the entity of the same tuple instead of the id-only placeholder.
+         */
+        void linkReferences(Object[] tuple) throws IllegalAccessException {
+            for (int entity = 0; entity < tuple.length; entity++) {
+                if (tuple[entity] == null) {
+                    continue;
+                }
+                for (Association association : introspecteds[entity].getAssociations()) {
+                    if (association.getKind() != Association.Kind.MANY_TO_ONE) {
+                        continue;
+                    }
+                    for (int other = 0; other < tuple.length; other++) {
+                        if (tuple[other] != null && entityTypes[other] == association.getTargetClass()) {
+                            Object reference = association.getField().get(tuple[entity]);
+                            if (reference != null && reference != tuple[other]
+                                    && Arrays.equals(idsOf(other, reference), idsOf(other, tuple[other]))) {
+                                association.getField().set(tuple[entity], tuple[other]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private Object[] idsOf(int entity, Object target) throws IllegalAccessException {
+            Object[] ids = introspecteds[entity].getActualIds(target);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] instanceof Number) {
+                    ids[i] = ((Number) ids[i]).longValue();
+                }
+            }
+            return ids;
+        }
+    }
+
+    public static class ResultSetColumnInfo {
         public final int columnCount;
         public final String[] columnNames;
+        public final String[] tableNames;
+        private Introspected plannedFor;
+        private Introspected.FieldColumnInfo[] plannedFields;
+        private int[] creatorColumns;
+
         public ResultSetColumnInfo(ResultSetMetaData metaData) throws SQLException {
-            columnCount = metaData.getColumnCount();
+            this(metaData, metaData.getColumnCount());
+        }
+
+        /**
+         * @param columnCount how many leading columns belong to the entity; the columns after them are not hydrated
+         */
+        public ResultSetColumnInfo(ResultSetMetaData metaData, int columnCount) throws SQLException {
+            this.columnCount = columnCount;
             columnNames = new String[columnCount];
+            tableNames = new String[columnCount];
             for (int column = columnCount; column > 0; column--) {
                 columnNames[column - 1] = metaData.getColumnName(column).toLowerCase();
+                String tableName = metaData.getTableName(column);
+                tableNames[column - 1] = tableName == null ? "" : tableName.toLowerCase();
+            }
+        }
+
+        /**
+         * Column index to field plan for the given entity, resolved once per result set instead of once per row.
+         * For entities with a creator constructor the plan also lists the columns that become constructor arguments.
+         */
+        Introspected.FieldColumnInfo[] fieldsFor(Introspected introspected) {
+            if (plannedFor != introspected) {
+                Introspected.FieldColumnInfo[] fields = new Introspected.FieldColumnInfo[columnCount];
+                int creatorColumnCount = 0;
+                for (int column = 0; column < columnCount; column++) {
+                    fields[column] = introspected.findFieldColumnInfo(columnNames[column]);
+                    if (fields[column] != null && fields[column].getCreatorIndex() >= 0) {
+                        ++creatorColumnCount;
+                    }
+                }
+
+                int[] columns = new int[creatorColumnCount];
+                for (int column = 0, i = 0; column < columnCount; column++) {
+                    if (fields[column] != null && fields[column].getCreatorIndex() >= 0) {
+                        columns[i++] = column;
+                    }
+                }
+
+                plannedFields = fields;
+                creatorColumns = columns;
+                plannedFor = introspected;
             }
+            return plannedFields;
         }
     }
 }
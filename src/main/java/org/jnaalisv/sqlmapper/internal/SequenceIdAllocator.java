@@ -0,0 +1,108 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids from blocks reserved from a database sequence. The sequence must increment by the allocation
+ * size; every value {@code v} it returns reserves the ids {@code v} to {@code v + allocationSize - 1}, which are
+ * then handed out locally without touching the database. The increment is checked against the allocation size
+ * on the first refill, because a mismatch would hand out the same ids from several allocators.
+ */
+public final class SequenceIdAllocator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceIdAllocator.class);
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    private final String sequenceName;
+    private final int allocationSize;
+    private final Object refillLock = new Object();
+    private volatile Block block = new Block(0, 0);
+    private boolean incrementChecked;
+
+    public SequenceIdAllocator(String sequenceName, int allocationSize) {
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException("allocationSize must be positive, was " + allocationSize);
+        }
+        this.sequenceName = sequenceName;
+        this.allocationSize = allocationSize;
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    public int getAllocationSize() {
+        return allocationSize;
+    }
+
+    /**
+     * @param connection used only when the current block is used up
+     */
+    public long next(Connection connection) throws SQLException {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            synchronized (refillLock) {
+                if (block == current) {
+                    if (!incrementChecked) {
+                        checkIncrement(connection);
+                        incrementChecked = true;
+                    }
+                    long start = nextSequenceValue(connection);
+                    block = new Block(start, start + allocationSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException when the sequence does not increment by the allocation size
+     */
+    private void checkIncrement(Connection connection) throws SQLException {
+        // the metadata lists sequences without their schema
+        String unqualifiedName = sequenceName.substring(sequenceName.lastIndexOf('.') + 1);
+        try (PreparedStatement statement = connection.prepareStatement(Dialect.of(connection).sequenceIncrementSql())) {
+            statement.setString(1, unqualifiedName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    LOGGER.warn("Sequence {} was not found in the database metadata, cannot check that it increments by {}", sequenceName, allocationSize);
+                    return;
+                }
+                long increment = resultSet.getLong(1);
+                if (increment != allocationSize) {
+                    throw new IllegalStateException("Sequence " + sequenceName + " increments by " + increment
+                            + " but its allocationSize is " + allocationSize + ", ids would be handed out twice");
+                }
+            }
+        }
+    }
+
+    private long nextSequenceValue(Connection connection) throws SQLException {
+        String sql = Dialect.of(connection).nextSequenceValueSql(sequenceName);
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new SQLException("No value from sequence " + sequenceName);
+            }
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+public final class StatementCanceller {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementCanceller.class);
+
+    private static final ThreadLocal<StatementCanceller> CURRENT = new ThreadLocal<>();
+
+    private Statement statement;
+    private boolean cancelled;
+
+    /**
+     * @return the canceller of the {@link #runWith} call on this thread, if any. Every statement prepared by
+     * {@link org.jnaalisv.sqlmapper.SqlQueries} on the thread attaches to it.
+     */
+    public static StatementCanceller current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the operation with this canceller as the current one. Statements the operation hands to other threads
+     * are not covered.
+     */
+    public <T> T runWith(Supplier<T> operation) {
+        StatementCanceller previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return operation.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public synchronized void attach(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Statement cancelled before execution");
+        }
+        this.statement = statement;
+    }
+
+    public synchronized void detach() {
+        this.statement = null;
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                LOGGER.debug("Statement.cancel() failed ", e);
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
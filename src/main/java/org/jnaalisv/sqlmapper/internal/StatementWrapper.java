@@ -1,18 +1,30 @@
 package org.jnaalisv.sqlmapper.internal;
 
 import com.zaxxer.sansorm.internal.Introspected;
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.MetricsRecorder;
+import org.jnaalisv.sqlmapper.metrics.StatementTracker;
 
 import java.io.IOException;
 import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public final class StatementWrapper {
 
     private final PreparedStatement preparedStatement;
     private final int[] parameterTypes;
     private int totalRowCount;
+    private int batchSize;
+    private Class<?> batchEntityClass;
+    private String[] plannedColumns;
+    private Introspected.FieldColumnInfo[] plannedFields;
 
     public StatementWrapper(final PreparedStatement preparedStatement) throws SQLException {
         this.preparedStatement = preparedStatement;
@@ -20,7 +32,7 @@ public final class StatementWrapper {
         this.totalRowCount = 0;
     }
 
-    private static int[] getParameterTypes(PreparedStatement stmt) throws SQLException {
+    public static int[] getParameterTypes(PreparedStatement stmt) throws SQLException {
         ParameterMetaData metaData = stmt.getParameterMetaData();
         int[] parameterTypes = new int[metaData.getParameterCount()];
         for (int parameterIndex = 1; parameterIndex <= metaData.getParameterCount(); parameterIndex++) {
@@ -30,9 +42,27 @@ public final class StatementWrapper {
         return parameterTypes;
     }
 
-    private <T> int setStatementParameters(String[] columnNames, final Introspected introspected, final T item) throws SQLException, IllegalAccessException {
+    private Introspected.FieldColumnInfo[] fieldsFor(String[] columnNames, final Introspected introspected) {
+        if (plannedColumns != columnNames) {
+            Introspected.FieldColumnInfo[] fields = new Introspected.FieldColumnInfo[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                fields[i] = introspected.getFieldColumnInfo(columnNames[i]);
+            }
+            plannedFields = fields;
+            plannedColumns = columnNames;
+        }
+        return plannedFields;
+    }
 
+    /**
+     * @param update whether the statement is an update, which binds the incremented version and then the id and
+     * the previous version for its WHERE clause
+     */
+    private <T> int setStatementParameters(String[] columnNames, final Introspected introspected, final T item, boolean update) throws SQLException, IllegalAccessException {
+
+        Introspected.FieldColumnInfo[] fields = fieldsFor(columnNames, introspected);
         int parameterIndex = 1;
+        Object[] boundValues = Metrics.recorder().isEnabled() || StatementTracker.isTracking() ? new Object[parameterTypes.length] : null;
 
         long previousVersion = 0;
         Long newVersion;
@@ -40,15 +70,14 @@ public final class StatementWrapper {
 
         for (String column : columnNames) {
             int parameterType = parameterTypes[parameterIndex - 1];
-            Object fieldValue = introspected.get(item, column);
-            Object databaseValue = TypeMapper.mapSqlType(fieldValue, parameterType);
+            Object databaseValue = fields[parameterIndex - 1].getDatabaseValue(item, parameterType);
             if (databaseValue == null) {
                 preparedStatement.setNull(parameterIndex, parameterType);
             } else {
 
                 if (introspected.hasVersionColumn() && introspected.getVersionColumnName().equals(column)) {
 
-                    if (introspected.isPersisted(item)) {
+                    if (update) {
                         previousVersion = (long) databaseValue;
                         newVersion = previousVersion + 1;
                         databaseValue = newVersion;
@@ -56,7 +85,12 @@ public final class StatementWrapper {
                     versionSqlType = parameterType;
                 }
 
-                preparedStatement.setObject(parameterIndex, databaseValue, parameterType);
+                if (!Lobs.bindStream(preparedStatement, parameterIndex, databaseValue)) {
+                    preparedStatement.setObject(parameterIndex, databaseValue, parameterType);
+                }
+            }
+            if (boundValues != null) {
+                boundValues[parameterIndex - 1] = databaseValue;
             }
             ++parameterIndex;
         }
@@ -65,18 +99,30 @@ public final class StatementWrapper {
         if (parameterIndex <= parameterTypes.length) {
             for (Object id : introspected.getActualIds(item)) {
                 preparedStatement.setObject(parameterIndex, id, parameterTypes[parameterIndex - 1]);
+                if (boundValues != null) {
+                    boundValues[parameterIndex - 1] = id;
+                }
                 ++parameterIndex;
             }
         }
 
-        if (introspected.hasVersionColumn() && introspected.isPersisted(item)) {
+        if (introspected.hasVersionColumn() && update) {
             preparedStatement.setObject(parameterIndex, previousVersion, versionSqlType);
+            if (boundValues != null) {
+                boundValues[parameterIndex - 1] = previousVersion;
+            }
         }
 
+        if (boundValues != null) {
+            Metrics.argumentsBound(boundValues);
+        }
         return parameterIndex;
     }
 
     private <T> void updateGeneratedKeys(final Introspected introspected, final T item) throws SQLException, IOException, IllegalAccessException {
+        if (introspected.getGeneratedIdColumnNames() == null) {
+            return;
+        }
         try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
             if (generatedKeys != null && generatedKeys.next()) {
                 introspected.updateGeneratedIdValue(item, generatedKeys.getObject(1));
@@ -84,8 +130,8 @@ public final class StatementWrapper {
         }
     }
 
-    private <T> int insertOrUpdate(String[] columnNames, final Introspected introspected, final T target) throws SQLException, IOException, IllegalAccessException {
-        setStatementParameters(columnNames, introspected, target);
+    private <T> int insertOrUpdate(String[] columnNames, final Introspected introspected, final T target, boolean update) throws SQLException, IOException, IllegalAccessException {
+        setStatementParameters(columnNames, introspected, target, update);
 
         long oldVersion = 0;
 
@@ -93,12 +139,10 @@ public final class StatementWrapper {
             oldVersion = (long) introspected.get(target, introspected.getVersionColumnName());
         }
 
-        boolean isPersisted = introspected.isPersisted(target);
-
         int rowCount =  preparedStatement.executeUpdate();
 
-        if (introspected.hasVersionColumn() && isPersisted) {
-            if (rowCount == 0 && isPersisted) {
+        if (introspected.hasVersionColumn() && update) {
+            if (rowCount == 0) {
                 throw new VersionConflictException(target.getClass(), introspected.getIdColumnValue(target), oldVersion);
             }
 
@@ -113,30 +157,193 @@ public final class StatementWrapper {
     }
 
     public int[] executeBatch() throws SQLException {
-        return preparedStatement.executeBatch();
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        int[] rowCounts = preparedStatement.executeBatch();
+
+        if (recorder.isEnabled() && batchEntityClass != null) {
+            recorder.batchExecuted(batchEntityClass, batchSize, System.nanoTime() - start);
+        }
+        batchSize = 0;
+        return rowCounts;
     }
 
     public int getTotalRowCount() {
         return totalRowCount;
     }
 
-    public <T> void addBatch(final Introspected introspected, final T item) throws SQLException, IllegalAccessException {
-        setStatementParameters(introspected.getInsertableColumns(), introspected, item);
+    public <T> void addBatch(final Introspected introspected, final T item) throws SQLException, IllegalAccessException, IOException {
+        introspected.assignPooledId(item, preparedStatement.getConnection());
+        setStatementParameters(introspected.getInsertableColumns(), introspected, item, false);
+        addToBatch(item);
+    }
+
+    /**
+     * Adds an update of the item to the batch. Like {@link #update}, the new version is bound but not yet set on
+     * the item; an update count of zero for the item means a version conflict.
+     */
+    public <T> void addUpdateBatch(final Introspected introspected, final T item) throws SQLException, IllegalAccessException {
+        setStatementParameters(introspected.getUpdatableColumns(), introspected, item, true);
+        addToBatch(item);
+    }
+
+    public <T> void addDeleteBatch(final Introspected introspected, final T item) throws SQLException, IllegalAccessException {
+        int parameterIndex = 1;
+        for (Object id : introspected.getActualIds(item)) {
+            preparedStatement.setObject(parameterIndex, id, parameterTypes[parameterIndex - 1]);
+            ++parameterIndex;
+        }
+        addToBatch(item);
+    }
+
+    private <T> void addToBatch(final T item) throws SQLException {
         preparedStatement.addBatch();
         preparedStatement.clearParameters();
+        batchEntityClass = item.getClass();
+        ++batchSize;
     }
 
     public static <T> int insert(PreparedStatement preparedStatement, final Introspected introspected, final T target) throws IllegalAccessException, SQLException, IOException {
-        return new StatementWrapper(preparedStatement).insertOrUpdate(introspected.getInsertableColumns(), introspected, target);
+        return new StatementWrapper(preparedStatement).insert(introspected, target);
     }
 
     public static <T> int update(PreparedStatement preparedStatement, final Introspected introspected, final T target) throws IllegalAccessException, SQLException, IOException {
         return new StatementWrapper(preparedStatement)
-                .insertOrUpdate(introspected.getUpdatableColumns(), introspected, target);
+                .insertOrUpdate(introspected.getUpdatableColumns(), introspected, target, true);
+    }
+
+    public <T> int insert(final Introspected introspected, final T item) throws IllegalAccessException, SQLException, IOException {
+        introspected.assignPooledId(item, preparedStatement.getConnection());
+        return insertOrUpdate(introspected.getInsertableColumns(), introspected, item, false);
+    }
+
+    /**
+     * Inserts with an {@code INSERT ... RETURNING} statement and copies the returned values onto the target.
+     */
+    public static <T> int insertReturning(PreparedStatement preparedStatement, final Introspected introspected, final T target) throws IllegalAccessException, SQLException, IOException {
+        introspected.assignPooledId(target, preparedStatement.getConnection());
+        StatementWrapper statementWrapper = new StatementWrapper(preparedStatement);
+        statementWrapper.setStatementParameters(introspected.getInsertableColumns(), introspected, target, false);
+
+        try (ResultSet returned = preparedStatement.executeQuery()) {
+            if (!returned.next()) {
+                return 0;
+            }
+            applyReturnedValues(returned, introspected, target);
+            return 1;
+        }
+    }
+
+    /**
+     * Updates with an {@code UPDATE ... RETURNING} statement and copies the returned values onto the target. The
+     * new version is still computed and bound on the client like in {@link #update}; it is read back with the
+     * columns maintained by the database.
+     */
+    public static <T> int updateReturning(PreparedStatement preparedStatement, final Introspected introspected, final T target) throws IllegalAccessException, SQLException, IOException {
+        long oldVersion = 0;
+        if (introspected.hasVersionColumn()) {
+            oldVersion = (long) introspected.get(target, introspected.getVersionColumnName());
+        }
+
+        StatementWrapper statementWrapper = new StatementWrapper(preparedStatement);
+        statementWrapper.setStatementParameters(introspected.getUpdatableColumns(), introspected, target, true);
+
+        try (ResultSet returned = preparedStatement.executeQuery()) {
+            if (!returned.next()) {
+                if (introspected.hasVersionColumn()) {
+                    throw new VersionConflictException(target.getClass(), introspected.getIdColumnValue(target), oldVersion);
+                }
+                return 0;
+            }
+            applyReturnedValues(returned, introspected, target);
+            return 1;
+        }
     }
 
-    public <T> void insert(final Introspected introspected, final T item) throws IllegalAccessException, SQLException, IOException {
-        insertOrUpdate(introspected.getInsertableColumns(), introspected, item);
+    /**
+     * Inserts all items with one multi-row {@code INSERT ... VALUES (...),(...) RETURNING} statement. The returned
+     * rows can come back in any order, so they are matched to the items by id; the ids must be known before the
+     * insert.
+     */
+    public <T> int[] insertRowsReturning(final Introspected introspected, final List<T> items) throws IllegalAccessException, SQLException, IOException {
+        MetricsRecorder recorder = Metrics.recorder();
+        long start = recorder.isEnabled() ? System.nanoTime() : 0L;
+
+        String[] columnNames = introspected.getInsertableColumns();
+        Introspected.FieldColumnInfo[] fields = fieldsFor(columnNames, introspected);
+
+        for (T item : items) {
+            introspected.assignPooledId(item, preparedStatement.getConnection());
+        }
+
+        int parameterIndex = 1;
+        for (T item : items) {
+            for (Introspected.FieldColumnInfo field : fields) {
+                int parameterType = parameterTypes[parameterIndex - 1];
+                Object databaseValue = field.getDatabaseValue(item, parameterType);
+                if (databaseValue == null) {
+                    preparedStatement.setNull(parameterIndex, parameterType);
+                } else if (!Lobs.bindStream(preparedStatement, parameterIndex, databaseValue)) {
+                    preparedStatement.setObject(parameterIndex, databaseValue, parameterType);
+                }
+                ++parameterIndex;
+            }
+        }
+
+        Map<List<Object>, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            indexById.put(idKey(introspected.getActualIds(items.get(i))), i);
+        }
+
+        int[] rowCounts = new int[items.size()];
+        try (ResultSet returned = preparedStatement.executeQuery()) {
+            String[] idColumnNames = introspected.getIdColumnNames();
+            Object[] ids = new Object[idColumnNames.length];
+            while (returned.next()) {
+                for (int i = 0; i < ids.length; i++) {
+                    Introspected.FieldColumnInfo idInfo = introspected.getFieldColumnInfo(idColumnNames[i]);
+                    ids[i] = idInfo.toFieldValue(idInfo.readColumn(returned, returned.findColumn(idColumnNames[i])));
+                }
+                Integer index = indexById.get(idKey(ids));
+                if (index == null) {
+                    throw new SQLException("Returned row with id " + Arrays.toString(ids) + " does not match any inserted " + introspected.getTableName());
+                }
+                applyReturnedValues(returned, introspected, items.get(index));
+                rowCounts[index] = 1;
+            }
+        }
+
+        if (recorder.isEnabled() && !items.isEmpty()) {
+            recorder.batchExecuted(items.get(0).getClass(), items.size(), System.nanoTime() - start);
+        }
+        return rowCounts;
+    }
+
+    /**
+     * The ids as a map key, with integral numbers widened to {@code Long} so that an INTEGER column matches a
+     * {@code long} field.
+     */
+    private static List<Object> idKey(Object[] ids) {
+        Object[] key = new Object[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Object id = ids[i];
+            key[i] = id instanceof Integer || id instanceof Short || id instanceof Byte ? ((Number) id).longValue() : id;
+        }
+        return Arrays.asList(key);
+    }
+
+    private static <T> void applyReturnedValues(ResultSet returned, final Introspected introspected, final T target) throws SQLException, IllegalAccessException, IOException {
+        ResultSetMetaData metaData = returned.getMetaData();
+        for (int column = metaData.getColumnCount(); column > 0; column--) {
+            Introspected.FieldColumnInfo fcInfo = introspected.findFieldColumnInfo(metaData.getColumnLabel(column).toLowerCase());
+            if (fcInfo != null) {
+                Object value = fcInfo.readColumn(returned, column);
+                if (value != null) {
+                    fcInfo.setValue(target, value);
+                }
+            }
+        }
     }
 
     public static void populateStatementParameters(PreparedStatement stmt, Object... args) throws SQLException {
@@ -149,7 +356,23 @@ public final class StatementWrapper {
         for (int column = paramCount; column > 0; column--) {
             int parameterType = parameterMetaData.getParameterType(column);
             Object object = TypeMapper.mapSqlType(args[column - 1], parameterType);
-            stmt.setObject(column, object, parameterType);
+            if (!Lobs.bindStream(stmt, column, object)) {
+                stmt.setObject(column, object, parameterType);
+            }
+        }
+    }
+
+    public static void populateStatementParameters(PreparedStatement stmt, int[] parameterTypes, Object... args) throws SQLException {
+        if (args.length < parameterTypes.length) {
+            throw new RuntimeException("Too few parameters supplied for query");
+        }
+
+        for (int column = parameterTypes.length; column > 0; column--) {
+            int parameterType = parameterTypes[column - 1];
+            Object object = TypeMapper.mapSqlType(args[column - 1], parameterType);
+            if (!Lobs.bindStream(stmt, column, object)) {
+                stmt.setObject(column, object, parameterType);
+            }
         }
     }
 }
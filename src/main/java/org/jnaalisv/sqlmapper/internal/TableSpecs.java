@@ -1,8 +1,20 @@
 package org.jnaalisv.sqlmapper.internal;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public interface TableSpecs {
 
     String getTableName();
+
+    /**
+     * @return the entity class these specs were read from, or null when they do not describe one
+     */
+    default Class<?> getEntityClass() {
+        return null;
+    }
+
     String[] getColumnNames();
     String[] getColumnTableNames();
     String[] getIdColumnNames();
@@ -18,4 +30,29 @@ public interface TableSpecs {
     boolean hasVersionColumn();
     String getVersionColumnName();
 
+    /**
+     * Columns an insert should read back: the generated id, the version and the columns left to database defaults.
+     */
+    default String[] getInsertReturningColumns() {
+        Set<String> columns = new LinkedHashSet<>(Arrays.asList(getColumnNames()));
+        columns.removeAll(Arrays.asList(getInsertableColumns()));
+        if (hasVersionColumn()) {
+            columns.add(getVersionColumnName());
+        }
+        return columns.toArray(new String[0]);
+    }
+
+    /**
+     * Columns an update should read back: the version and the columns maintained by the database.
+     */
+    default String[] getUpdateReturningColumns() {
+        Set<String> columns = new LinkedHashSet<>(Arrays.asList(getColumnNames()));
+        columns.removeAll(Arrays.asList(getUpdatableColumns()));
+        columns.removeAll(Arrays.asList(getIdColumnNames()));
+        if (hasVersionColumn()) {
+            columns.add(getVersionColumnName());
+        }
+        return columns.toArray(new String[0]);
+    }
+
 }
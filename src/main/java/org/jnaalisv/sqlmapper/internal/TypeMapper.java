@@ -1,9 +1,16 @@
 package org.jnaalisv.sqlmapper.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
 import java.sql.SQLException;
@@ -13,69 +20,359 @@ import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+/**
+ * Converter table between field values and JDBC values. Each introspected field resolves its converters
+ * through {@link #convertersFor}; registering a converter bumps the generation, which makes those resolutions
+ * stale. Custom registrations take precedence over the built-in ones.
+ */
 public class TypeMapper {
 
+    public static final boolean JDBC42_TIME = Boolean.getBoolean("org.jnaalisv.sqlmapper.jdbc42");
+
+    public static final int ANY_SQL_TYPE = Integer.MIN_VALUE;
+
+    @FunctionalInterface
+    public interface ValueConverter {
+        Object convert(Object value) throws SQLException, IOException;
+    }
+
+    public static final ValueConverter IDENTITY = value -> value;
+
+    private static final List<ReaderEntry> readers = new CopyOnWriteArrayList<>();
+    private static final List<WriterEntry> writers = new CopyOnWriteArrayList<>();
+
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private static final ClassValue<AtomicReference<ArgumentWriters>> argumentWriters = new ClassValue<AtomicReference<ArgumentWriters>>() {
+        @Override
+        protected AtomicReference<ArgumentWriters> computeValue(Class<?> type) {
+            return new AtomicReference<>(new ArgumentWriters(type));
+        }
+    };
+
+    static {
+        readers.add(new ReaderEntry(Integer.class, boolean.class, value -> ((Integer) value) != 0));
+        readers.add(new ReaderEntry(Integer.class, Boolean.class, value -> ((Integer) value) != 0));
+        readers.add(new ReaderEntry(BigDecimal.class, BigInteger.class, value -> ((BigDecimal) value).toBigInteger()));
+        readers.add(new ReaderEntry(BigDecimal.class, Integer.class, value -> (int) ((BigDecimal) value).longValue()));
+        readers.add(new ReaderEntry(BigDecimal.class, Long.class, value -> ((BigDecimal) value).longValue()));
+        readers.add(new ReaderEntry(Clob.class, Reader.class, value -> Lobs.clobReader((Clob) value)));
+        readers.add(new ReaderEntry(Clob.class, Supplier.class, value -> Lobs.clobSupplier((Clob) value)));
+        readers.add(new ReaderEntry(Clob.class, null, value -> readClob((Clob) value)));
+        readers.add(new ReaderEntry(Blob.class, InputStream.class, value -> Lobs.blobStream((Blob) value)));
+        readers.add(new ReaderEntry(Blob.class, Supplier.class, value -> Lobs.blobSupplier((Blob) value)));
+        readers.add(new ReaderEntry(Blob.class, byte[].class, value -> Lobs.readBlob((Blob) value)));
+        readers.add(new ReaderEntry(String.class, Reader.class, value -> new StringReader((String) value)));
+        readers.add(new ReaderEntry(String.class, Supplier.class, value -> (Supplier<String>) () -> (String) value));
+        readers.add(new ReaderEntry(byte[].class, InputStream.class, value -> new ByteArrayInputStream((byte[]) value)));
+        readers.add(new ReaderEntry(Date.class, LocalDate.class, value -> ((Date) value).toLocalDate()));
+        readers.add(new ReaderEntry(Timestamp.class, LocalDateTime.class, value -> ((Timestamp) value).toLocalDateTime()));
+        readers.add(new ReaderEntry(Time.class, LocalTime.class, value -> ((Time) value).toLocalTime()));
+        try {
+            readers.add(new ReaderEntry(Class.forName("org.postgresql.util.PGobject"), null, PgObjects::citextValue));
+        } catch (ClassNotFoundException e) {
+            // PostgreSQL driver not present
+        }
+
+        if (!JDBC42_TIME) {
+            writers.add(new WriterEntry(LocalDateTime.class, Types.TIMESTAMP, value -> Timestamp.valueOf((LocalDateTime) value)));
+            writers.add(new WriterEntry(LocalDate.class, Types.DATE, value -> Date.valueOf((LocalDate) value)));
+            writers.add(new WriterEntry(LocalTime.class, Types.TIME, value -> Time.valueOf((LocalTime) value)));
+        }
+        writers.add(new WriterEntry(BigInteger.class, Types.DECIMAL, value -> new BigDecimal((BigInteger) value)));
+        writers.add(new WriterEntry(Supplier.class, ANY_SQL_TYPE, value -> ((Supplier<?>) value).get()));
+        writers.add(new WriterEntry(Boolean.class, Types.SMALLINT, value -> ((Boolean) value) ? (short) 1 : (short) 0));
+    }
+
+    public static void registerReader(Class<?> columnType, Class<?> fieldType, ValueConverter converter) {
+        readers.add(0, new ReaderEntry(columnType, fieldType, converter));
+        generation.incrementAndGet();
+    }
+
+    public static void registerWriter(Class<?> fieldType, int sqlType, ValueConverter converter) {
+        writers.add(0, new WriterEntry(fieldType, sqlType, converter));
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Removes every reader and writer registered with the given converter.
+     *
+     * @return true if anything was removed
+     */
+    public static boolean unregister(ValueConverter converter) {
+        boolean removed = readers.removeIf(entry -> entry.converter == converter);
+        removed |= writers.removeIf(entry -> entry.converter == converter);
+        if (removed) {
+            generation.incrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * Drops the writers resolved for values of the class.
+     */
+    public static void evict(Class<?> valueType) {
+        argumentWriters.remove(valueType);
+    }
+
+    public static int generation() {
+        return generation.get();
+    }
+
+    public static ValueConverter readerFor(Class<?> columnType, Class<?> fieldType) {
+        return readerFor(readers, columnType, fieldType);
+    }
+
+    private static ValueConverter readerFor(List<ReaderEntry> entries, Class<?> columnType, Class<?> fieldType) {
+        if (fieldType.isAssignableFrom(columnType)) {
+            return IDENTITY;
+        }
+        for (ReaderEntry entry : entries) {
+            if (entry.columnType.isAssignableFrom(columnType) && (entry.fieldType == null || entry.fieldType == fieldType)) {
+                return entry.converter;
+            }
+        }
+        return IDENTITY;
+    }
+
+    /**
+     * Like {@link #readerFor(Class, Class)}, but a {@link Supplier} field is matched by its type argument, so that
+     * {@code Supplier<Reader>} and {@code Supplier<String>} read the same CLOB differently.
+     */
+    public static ValueConverter readerFor(Class<?> columnType, Class<?> fieldType, Type genericFieldType) {
+        return readerFor(readers, columnType, fieldType, genericFieldType);
+    }
+
+    private static ValueConverter readerFor(List<ReaderEntry> entries, Class<?> columnType, Class<?> fieldType, Type genericFieldType) {
+        if (fieldType == Supplier.class && genericFieldType instanceof ParameterizedType) {
+            ValueConverter supplierReader = supplierReaderFor(columnType, ((ParameterizedType) genericFieldType).getActualTypeArguments()[0]);
+            if (supplierReader != null) {
+                return supplierReader;
+            }
+        }
+        return readerFor(entries, columnType, fieldType);
+    }
+
+    private static ValueConverter supplierReaderFor(Class<?> columnType, Type suppliedType) {
+        if (Clob.class.isAssignableFrom(columnType)) {
+            if (suppliedType == Reader.class) {
+                return value -> Lobs.clobReaderSupplier((Clob) value);
+            }
+            if (suppliedType == String.class) {
+                return value -> Lobs.clobSupplier((Clob) value);
+            }
+        } else if (Blob.class.isAssignableFrom(columnType)) {
+            if (suppliedType == InputStream.class) {
+                return value -> Lobs.blobStreamSupplier((Blob) value);
+            }
+            if (suppliedType == byte[].class) {
+                return value -> Lobs.blobSupplier((Blob) value);
+            }
+        } else if (columnType == String.class && suppliedType == Reader.class) {
+            return value -> (Supplier<Reader>) () -> new StringReader((String) value);
+        } else if (columnType == byte[].class && suppliedType == InputStream.class) {
+            return value -> (Supplier<InputStream>) () -> new ByteArrayInputStream((byte[]) value);
+        } else if (columnType == byte[].class && suppliedType == byte[].class) {
+            return value -> (Supplier<byte[]>) () -> (byte[]) value;
+        }
+        return null;
+    }
+
+    public static ValueConverter writerFor(Class<?> valueType, int sqlType) {
+        return writerFor(writers, valueType, sqlType);
+    }
+
+    private static ValueConverter writerFor(List<WriterEntry> entries, Class<?> valueType, int sqlType) {
+        for (WriterEntry entry : entries) {
+            if (entry.fieldType.isAssignableFrom(valueType) && (entry.sqlType == sqlType || entry.sqlType == ANY_SQL_TYPE)) {
+                return entry.converter;
+            }
+        }
+        return IDENTITY;
+    }
+
+    public static boolean isJavaTime(Class<?> type) {
+        return type == LocalDateTime.class || type == LocalDate.class || type == LocalTime.class;
+    }
+
+    /**
+     * Resolves the converters of a field against the current registrations. Readers are narrowed to those that
+     * produce the field type and writers to those that accept the declared value type; pass {@code Object.class}
+     * when the value type is only known at runtime.
+     */
+    public static FieldConverters convertersFor(Class<?> fieldType, Type genericFieldType, Class<?> valueType) {
+        // read the generation before the registrations, so that a concurrent registration always leaves the
+        // resolution stale rather than labelling an old snapshot with the new generation
+        int observed = generation.get();
+        List<ReaderEntry> fieldReaders = new ArrayList<>();
+        for (ReaderEntry entry : readers) {
+            if (entry.fieldType == null || entry.fieldType == fieldType) {
+                fieldReaders.add(entry);
+            }
+        }
+        return new FieldConverters(observed, fieldType, genericFieldType, fieldReaders, writersFor(valueType));
+    }
+
+    private static List<WriterEntry> writersFor(Class<?> valueType) {
+        List<WriterEntry> valueWriters = new ArrayList<>();
+        for (WriterEntry entry : writers) {
+            if (entry.fieldType.isAssignableFrom(valueType) || valueType.isAssignableFrom(entry.fieldType)) {
+                valueWriters.add(entry);
+            }
+        }
+        return valueWriters;
+    }
+
     public static final Object mapSqlType(Object object, int sqlType) {
         if (object == null) {
             return object;
         }
 
-        switch (sqlType) {
-            case Types.TIMESTAMP:
-                if (object instanceof LocalDateTime) {
-                    LocalDateTime localDateTime = (LocalDateTime) object;
-                    return Timestamp.valueOf(localDateTime);
-                }
-                break;
-
-            case Types.DATE:
-                if (object instanceof LocalDate) {
-                    LocalDate localDate = (LocalDate) object;
-                    return Date.valueOf(localDate);
-                }
-                break;
-
-            case Types.TIME:
-                if (object instanceof LocalTime) {
-                    LocalTime localTime = (LocalTime) object;
-                    return Time.valueOf(localTime);
-                }
-                break;
-
-            case Types.DECIMAL:
-                if (object instanceof BigInteger) {
-                    return new BigDecimal(((BigInteger) object));
-                } else if (object instanceof BigDecimal) {
-                    return object;
-                }
-                break;
-
-            case Types.SMALLINT:
-                if (object instanceof Boolean) {
-                    return (((Boolean) object) ? (short) 1 : (short) 0);
-                }
-                break;
-
-            default:
-                break;
-        }
-        return object;
+        Class<?> valueType = object.getClass();
+        AtomicReference<ArgumentWriters> holder = argumentWriters.get(valueType);
+        ArgumentWriters resolved = holder.get();
+        if (resolved.generation != generation.get()) {
+            ArgumentWriters fresh = new ArgumentWriters(valueType);
+            holder.compareAndSet(resolved, fresh);
+            resolved = fresh;
+        }
+        try {
+            return resolved.writerFor(valueType, sqlType).convert(object);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public static String readClob(Clob clob) throws IOException, SQLException {
 
         try (Reader reader = clob.getCharacterStream()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            char[] charBuffer = new char[1024];
-            while (true) {
-                int charsRead = reader.read(charBuffer);
-                if (charsRead == -1) {
-                    break;
-                }
-                stringBuilder.append(charBuffer, 0, charsRead);
+            return Lobs.readFully(reader, clob.length());
+        }
+    }
+
+    private static final class ReaderEntry {
+        private final Class<?> columnType;
+        private final Class<?> fieldType;
+        private final ValueConverter converter;
+
+        ReaderEntry(Class<?> columnType, Class<?> fieldType, ValueConverter converter) {
+            this.columnType = columnType;
+            this.fieldType = fieldType;
+            this.converter = converter;
+        }
+    }
+
+    private static final class WriterEntry {
+        private final Class<?> fieldType;
+        private final int sqlType;
+        private final ValueConverter converter;
+
+        WriterEntry(Class<?> fieldType, int sqlType, ValueConverter converter) {
+            this.fieldType = fieldType;
+            this.sqlType = sqlType;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * The converters of one field, resolved against the registrations of one generation. The reader and writer
+     * last used are remembered; they only ever come from this resolution's own snapshot.
+     */
+    public static final class FieldConverters {
+        private final int generation;
+        private final Class<?> fieldType;
+        private final Type genericFieldType;
+        private final List<ReaderEntry> readers;
+        private final List<WriterEntry> writers;
+        private volatile Resolved reader = Resolved.NONE;
+        private volatile Resolved writer = Resolved.NONE;
+
+        private FieldConverters(int generation, Class<?> fieldType, Type genericFieldType, List<ReaderEntry> readers, List<WriterEntry> writers) {
+            this.generation = generation;
+            this.fieldType = fieldType;
+            this.genericFieldType = genericFieldType;
+            this.readers = readers;
+            this.writers = writers;
+        }
+
+        /**
+         * @return false once a converter has been registered or unregistered after this resolution
+         */
+        public boolean isCurrent() {
+            return generation == TypeMapper.generation.get();
+        }
+
+        public ValueConverter readerFor(Class<?> columnType) {
+            Resolved resolved = reader;
+            if (resolved.type != columnType) {
+                resolved = new Resolved(columnType, 0, TypeMapper.readerFor(readers, columnType, fieldType, genericFieldType));
+                reader = resolved;
+            }
+            return resolved.converter;
+        }
+
+        public ValueConverter writerFor(Class<?> valueType, int sqlType) {
+            Resolved resolved = writer;
+            if (resolved.type != valueType || resolved.sqlType != sqlType) {
+                resolved = new Resolved(valueType, sqlType, TypeMapper.writerFor(writers, valueType, sqlType));
+                writer = resolved;
+            }
+            return resolved.converter;
+        }
+    }
+
+    private static final class Resolved {
+        static final Resolved NONE = new Resolved(null, 0, null);
+
+        final Class<?> type;
+        final int sqlType;
+        final ValueConverter converter;
+
+        Resolved(Class<?> type, int sqlType, ValueConverter converter) {
+            this.type = type;
+            this.sqlType = sqlType;
+            this.converter = converter;
+        }
+    }
+
+    /**
+     * Writers for argument values of one class, resolved against the registrations of one generation.
+     */
+    private static final class ArgumentWriters {
+        private final int generation;
+        private final List<WriterEntry> writers;
+        private final Map<Integer, ValueConverter> bySqlType = new ConcurrentHashMap<>();
+
+        ArgumentWriters(Class<?> valueType) {
+            this.generation = TypeMapper.generation.get();
+            this.writers = writersFor(valueType);
+        }
+
+        ValueConverter writerFor(Class<?> valueType, int sqlType) {
+            ValueConverter converter = bySqlType.get(sqlType);
+            if (converter == null) {
+                converter = TypeMapper.writerFor(writers, valueType, sqlType);
+                bySqlType.put(sqlType, converter);
             }
-            return stringBuilder.toString();
+            return converter;
+        }
+    }
+
+    private static final class PgObjects {
+        static Object citextValue(Object value) {
+            org.postgresql.util.PGobject pgObject = (org.postgresql.util.PGobject) value;
+            return "citext".equalsIgnoreCase(pgObject.getType()) ? pgObject.getValue() : value;
         }
     }
 }
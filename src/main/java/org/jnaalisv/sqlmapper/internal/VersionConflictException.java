@@ -1,8 +1,13 @@
 package org.jnaalisv.sqlmapper.internal;
 
 public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = -2090798337330227887L;
 
     public VersionConflictException(Class<?> entityClass, long id, long version) {
         super("UPDATE " + entityClass.getSimpleName() + ", id="+id+ ", version="+version + " failed.");
     }
+
+    protected VersionConflictException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,22 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a flush of several writes ran into version conflicts; holds one conflict per entity.
+ */
+public class VersionConflictsException extends VersionConflictException {
+    private static final long serialVersionUID = 8410195051124620499L;
+
+    private final List<VersionConflictException> conflicts;
+
+    public VersionConflictsException(List<VersionConflictException> conflicts) {
+        super(conflicts.size() + " version conflicts, first: " + conflicts.get(0).getMessage());
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    public List<VersionConflictException> getConflicts() {
+        return conflicts;
+    }
+}
@@ -0,0 +1,74 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompositeMetricsRecorder implements MetricsRecorder {
+
+    private final MetricsRecorder[] recorders;
+
+    public CompositeMetricsRecorder(MetricsRecorder... recorders) {
+        List<MetricsRecorder> enabled = new ArrayList<>();
+        for (MetricsRecorder recorder : Arrays.asList(recorders)) {
+            if (recorder.isEnabled()) {
+                enabled.add(recorder);
+            }
+        }
+        this.recorders = enabled.toArray(new MetricsRecorder[0]);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return recorders.length > 0;
+    }
+
+    @Override
+    public void connectionAcquired(long nanos) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.connectionAcquired(nanos);
+        }
+    }
+
+    @Override
+    public void statementPrepared(String sql, long nanos) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.statementPrepared(sql, nanos);
+        }
+    }
+
+    @Override
+    public void queryExecuted(long nanos) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.queryExecuted(nanos);
+        }
+    }
+
+    @Override
+    public void rowsHydrated(Class<?> entityClass, int rowCount, long nanos) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.rowsHydrated(entityClass, rowCount, nanos);
+        }
+    }
+
+    @Override
+    public void batchExecuted(Class<?> entityClass, int batchSize, long nanos) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.batchExecuted(entityClass, batchSize, nanos);
+        }
+    }
+
+    @Override
+    public void statementCompleted(String sql, Object[] args, long nanos, int rowCount) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.statementCompleted(sql, args, nanos, rowCount);
+        }
+    }
+
+    @Override
+    public void statementFailed(String sql, Object[] args, long nanos, Throwable error) {
+        for (MetricsRecorder recorder : recorders) {
+            recorder.statementFailed(sql, args, nanos, error);
+        }
+    }
+}
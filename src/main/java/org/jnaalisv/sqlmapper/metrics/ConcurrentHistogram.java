@@ -0,0 +1,131 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram in the style of HdrHistogram. Values below {@code 2 << subBucketBits} are
+ * counted exactly, larger values fall into one of {@code 1 << subBucketBits} linear sub-buckets per power of
+ * two. The default of 6 bits keeps the relative error under 1.6% for any long value, in 3712 counters.
+ */
+public final class ConcurrentHistogram {
+    private static final int DEFAULT_SUB_BUCKET_BITS = 6;
+
+    private final int subBucketBits;
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public ConcurrentHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS, Long.MAX_VALUE);
+    }
+
+    /**
+     * A smaller histogram: the relative error stays under {@code 1 / (1 << subBucketBits)}, and values above
+     * {@code highestTrackableValue} are counted as that value.
+     */
+    public ConcurrentHistogram(int subBucketBits, long highestTrackableValue) {
+        if (subBucketBits < 1 || subBucketBits > DEFAULT_SUB_BUCKET_BITS) {
+            throw new IllegalArgumentException("subBucketBits must be between 1 and " + DEFAULT_SUB_BUCKET_BITS + ", was " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(bucketIndex(highestTrackableValue, subBucketBits) + 1);
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > highestTrackableValue) {
+            value = highestTrackableValue;
+        }
+
+        counts.incrementAndGet(bucketIndex(value, subBucketBits));
+        totalCount.increment();
+        totalSum.add(value);
+
+        long currentMax = maxValue.get();
+        while (value > currentMax && !maxValue.compareAndSet(currentMax, value)) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    static int bucketIndex(long value) {
+        return bucketIndex(value, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static int bucketIndex(long value, int subBucketBits) {
+        if (value < 2L << subBucketBits) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return (shift << subBucketBits) + (int) (value >>> shift);
+    }
+
+    static long highestValueInBucket(int index) {
+        return highestValueInBucket(index, DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    static long highestValueInBucket(int index, int subBucketBits) {
+        if (index < 2 << subBucketBits) {
+            return index;
+        }
+        int shift = (index >>> subBucketBits) - 1;
+        long mantissa = index - ((long) shift << subBucketBits);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) getSum() / count;
+    }
+
+    /**
+     * Reads the counters in place, twice; values recorded meanwhile can only move the result up.
+     */
+    public long getValueAtPercentile(double percentile) {
+        int bucketCount = counts.length();
+        long count = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            count += counts.get(i);
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long cumulative = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestValueInBucket(i, subBucketBits), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        maxValue.set(0);
+    }
+}
@@ -0,0 +1,109 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps one {@link ConcurrentHistogram} per stage, per stage and entity class and per stage and
+ * SQL operation (the leading keyword of the statement), keyed as {@code STAGE}, {@code STAGE:Entity}
+ * and {@code STAGE:OPERATION}.
+ */
+public class HistogramMetricsRecorder implements MetricsRecorder {
+
+    private final ConcurrentMap<String, ConcurrentHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentHistogram> batchSizes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> rowCounts = new ConcurrentHashMap<>();
+    private final LongAdder errorCount = new LongAdder();
+
+    @Override
+    public void connectionAcquired(long nanos) {
+        timer(Stage.CONNECTION.name()).record(nanos);
+    }
+
+    @Override
+    public void statementPrepared(String sql, long nanos) {
+        timer(Stage.PREPARE.name()).record(nanos);
+        timer(Stage.PREPARE.name() + ':' + operationOf(sql)).record(nanos);
+    }
+
+    @Override
+    public void queryExecuted(long nanos) {
+        timer(Stage.EXECUTE.name()).record(nanos);
+    }
+
+    @Override
+    public void rowsHydrated(Class<?> entityClass, int rowCount, long nanos) {
+        timer(Stage.HYDRATE.name()).record(nanos);
+        timer(Stage.HYDRATE.name() + ':' + entityClass.getSimpleName()).record(nanos);
+        rowCounter(Stage.HYDRATE.name() + ':' + entityClass.getSimpleName()).add(rowCount);
+    }
+
+    @Override
+    public void batchExecuted(Class<?> entityClass, int batchSize, long nanos) {
+        timer(Stage.BATCH.name()).record(nanos);
+        timer(Stage.BATCH.name() + ':' + entityClass.getSimpleName()).record(nanos);
+        batchSizes.computeIfAbsent(entityClass.getSimpleName(), key -> new ConcurrentHistogram()).record(batchSize);
+    }
+
+    @Override
+    public void statementCompleted(String sql, Object[] args, long nanos, int rowCount) {
+        String key = Stage.STATEMENT.name() + ':' + operationOf(sql);
+        timer(key).record(nanos);
+        if (rowCount > 0) {
+            rowCounter(key).add(rowCount);
+        }
+    }
+
+    @Override
+    public void statementFailed(String sql, Object[] args, long nanos, Throwable error) {
+        errorCount.increment();
+    }
+
+    public Map<String, ConcurrentHistogram> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public Map<String, ConcurrentHistogram> getBatchSizes() {
+        return Collections.unmodifiableMap(batchSizes);
+    }
+
+    public long getRowCount(String key) {
+        LongAdder rowCount = rowCounts.get(key);
+        return rowCount == null ? 0 : rowCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    private ConcurrentHistogram timer(String key) {
+        ConcurrentHistogram histogram = timers.get(key);
+        if (histogram == null) {
+            histogram = timers.computeIfAbsent(key, k -> new ConcurrentHistogram());
+        }
+        return histogram;
+    }
+
+    private LongAdder rowCounter(String key) {
+        LongAdder rowCount = rowCounts.get(key);
+        if (rowCount == null) {
+            rowCount = rowCounts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        return rowCount;
+    }
+
+    static String operationOf(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        return sql.substring(start, end).toUpperCase();
+    }
+}
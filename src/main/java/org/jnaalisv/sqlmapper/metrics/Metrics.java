@@ -0,0 +1,67 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+public final class Metrics {
+
+    public static final Object[] NO_ARGS = new Object[0];
+
+    private static volatile MetricsRecorder recorder = MetricsRecorder.NO_OP;
+
+    private static final ThreadLocal<Object[]> boundArguments = new ThreadLocal<>();
+
+    private Metrics() {}
+
+    public static MetricsRecorder recorder() {
+        return recorder;
+    }
+
+    public static void setRecorder(MetricsRecorder metricsRecorder) {
+        recorder = metricsRecorder == null ? MetricsRecorder.NO_OP : metricsRecorder;
+    }
+
+    /**
+     * Remembers the values the mapper bound to the statement executing on this thread, so that statements built
+     * from entities are recorded and tracked with their arguments. Only the first row of a batch is kept.
+     */
+    public static void argumentsBound(Object[] args) {
+        if (boundArguments.get() == null) {
+            boundArguments.set(args);
+        }
+    }
+
+    /**
+     * @return the arguments remembered by {@link #argumentsBound} since the last call, or {@link #NO_ARGS}
+     */
+    public static Object[] takeBoundArguments() {
+        Object[] args = boundArguments.get();
+        if (args == null) {
+            return NO_ARGS;
+        }
+        boundArguments.remove();
+        return args;
+    }
+
+    public static int rowCountOf(Object result) {
+        if (result instanceof Integer) {
+            return (Integer) result;
+        } else if (result instanceof int[]) {
+            int rowCount = 0;
+            for (int count : (int[]) result) {
+                if (count > 0) {
+                    rowCount += count;
+                }
+            }
+            return rowCount;
+        } else if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        } else if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+}
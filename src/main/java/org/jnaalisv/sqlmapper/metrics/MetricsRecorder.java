@@ -0,0 +1,34 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+/**
+ * Receives timings from every stage of a SqlQueries call. All durations are in nanoseconds.
+ * Implementations must be thread-safe; the defaults do nothing so that a recorder only needs
+ * to implement the stages it is interested in.
+ */
+public interface MetricsRecorder {
+
+    MetricsRecorder NO_OP = new MetricsRecorder() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    default void connectionAcquired(long nanos) {}
+
+    default void statementPrepared(String sql, long nanos) {}
+
+    default void queryExecuted(long nanos) {}
+
+    default void rowsHydrated(Class<?> entityClass, int rowCount, long nanos) {}
+
+    default void batchExecuted(Class<?> entityClass, int batchSize, long nanos) {}
+
+    default void statementCompleted(String sql, Object[] args, long nanos, int rowCount) {}
+
+    default void statementFailed(String sql, Object[] args, long nanos, Throwable error) {}
+}
@@ -0,0 +1,11 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+@FunctionalInterface
+public interface ParameterRedactor {
+
+    ParameterRedactor NONE = (sql, index, value) -> value;
+
+    ParameterRedactor MASK_ALL = (sql, index, value) -> value == null ? null : "***";
+
+    Object redact(String sql, int index, Object value);
+}
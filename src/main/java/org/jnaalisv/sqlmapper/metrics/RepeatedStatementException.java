@@ -0,0 +1,20 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RepeatedStatementException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final List<StatementTracker.Finding> findings;
+
+    public RepeatedStatementException(String scopeName, int threshold, List<StatementTracker.Finding> findings) {
+        super("Statements repeated with more than " + threshold + " different arguments in scope '" + scopeName + "': " + findings);
+        this.findings = Collections.unmodifiableList(new ArrayList<>(findings));
+    }
+
+    public List<StatementTracker.Finding> getFindings() {
+        return findings;
+    }
+}
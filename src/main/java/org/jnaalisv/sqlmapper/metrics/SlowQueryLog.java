@@ -0,0 +1,238 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import org.jnaalisv.sqlmapper.internal.StatementWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs statements slower than a threshold together with their (redacted) arguments, elapsed time and
+ * row count. When given a DataSource, SELECT statements are explained once per fingerprint and the plan
+ * is attached to the entry. EXPLAIN runs on a single daemon thread shared by all logs, with a short queue, so the
+ * caller never waits for it or holds a second connection; plans that don't fit the queue are skipped. The thread
+ * exits when it has been idle for a while, so a discarded log leaves nothing running. Output is
+ * limited to {@code maxEntriesPerSecond}; statements under the threshold return after a single comparison.
+ */
+public class SlowQueryLog implements MetricsRecorder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final int RECENT_ENTRIES = 100;
+    private static final int MAX_EXPLAINED_FINGERPRINTS = 1000;
+    private static final int MAX_QUEUED_EXPLAINS = 16;
+
+    private final long thresholdNanos;
+    private final int maxEntriesPerSecond;
+    private final ParameterRedactor redactor;
+    private final DataSource explainDataSource;
+
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger entriesInWindow = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final Map<String, String> plans = new ConcurrentHashMap<>();
+    private final Deque<Entry> recentEntries = new ArrayDeque<>();
+
+    public SlowQueryLog(long threshold, TimeUnit unit) {
+        this(threshold, unit, 10, ParameterRedactor.NONE, null);
+    }
+
+    public SlowQueryLog(long threshold, TimeUnit unit, int maxEntriesPerSecond, ParameterRedactor redactor, DataSource explainDataSource) {
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.maxEntriesPerSecond = maxEntriesPerSecond;
+        this.redactor = redactor;
+        this.explainDataSource = explainDataSource;
+        this.windowStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void statementCompleted(String sql, Object[] args, long nanos, int rowCount) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        log(sql, args, nanos, rowCount, null);
+    }
+
+    @Override
+    public void statementFailed(String sql, Object[] args, long nanos, Throwable error) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        log(sql, args, nanos, -1, error);
+    }
+
+    private void log(String sql, Object[] args, long nanos, int rowCount, Throwable error) {
+        if (!tryAcquire()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+
+        Object[] redactedArgs = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            redactedArgs[i] = redactor.redact(sql, i, args[i]);
+        }
+
+        Entry entry = new Entry(sql, redactedArgs, nanos, rowCount);
+
+        synchronized (recentEntries) {
+            recentEntries.addFirst(entry);
+            if (recentEntries.size() > RECENT_ENTRIES) {
+                recentEntries.removeLast();
+            }
+        }
+
+        long suppressedCount = suppressed.getAndSet(0);
+        if (error != null) {
+            LOGGER.warn("Slow query failed: {} (suppressed {})", entry, suppressedCount, error);
+        } else {
+            LOGGER.warn("Slow query: {} (suppressed {})", entry, suppressedCount);
+            explainLater(entry, args);
+        }
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= TimeUnit.SECONDS.toNanos(1) && windowStart.compareAndSet(start, now)) {
+            entriesInWindow.set(0);
+        }
+        return entriesInWindow.incrementAndGet() <= maxEntriesPerSecond;
+    }
+
+    private static final class ExplainExecutorHolder {
+        private static final ExecutorService EXECUTOR = newExplainExecutor();
+    }
+
+    private static ExecutorService newExplainExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_EXPLAINS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sqlmapper-slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void explainLater(Entry entry, Object[] args) {
+        String sql = entry.getSql();
+        if (explainDataSource == null || !"SELECT".equals(HistogramMetricsRecorder.operationOf(sql))) {
+            return;
+        }
+
+        String fingerprint = SqlFingerprint.of(sql);
+        if (plans.size() >= MAX_EXPLAINED_FINGERPRINTS || plans.putIfAbsent(fingerprint, "") != null) {
+            return;
+        }
+
+        try {
+            ExplainExecutorHolder.EXECUTOR.execute(() -> {
+                String plan = explain(sql, args);
+                plans.put(fingerprint, plan);
+                entry.plan = plan;
+                LOGGER.warn("Plan of slow query {}:\n{}", sql, plan);
+            });
+        } catch (RejectedExecutionException e) {
+            // queue full: forget the fingerprint so a later occurrence can be explained
+            plans.remove(fingerprint);
+        }
+    }
+
+    private String explain(String sql, Object[] args) {
+        String plan;
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN " + sql)) {
+
+            if (args.length != 0) {
+                StatementWrapper.populateStatementParameters(preparedStatement, args);
+            }
+
+            StringBuilder planBuilder = new StringBuilder();
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    planBuilder.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            plan = planBuilder.toString().trim();
+        } catch (Exception e) {
+            LOGGER.debug("EXPLAIN failed for {}", sql, e);
+            plan = "EXPLAIN failed: " + e.getMessage();
+        }
+
+        return plan;
+    }
+
+    public List<Entry> getRecentEntries() {
+        synchronized (recentEntries) {
+            return new ArrayList<>(recentEntries);
+        }
+    }
+
+    public static final class Entry {
+        private final String sql;
+        private final Object[] args;
+        private final long elapsedNanos;
+        private final int rowCount;
+        private volatile String plan;
+
+        Entry(String sql, Object[] args, long elapsedNanos, int rowCount) {
+            this.sql = sql;
+            this.args = args;
+            this.elapsedNanos = elapsedNanos;
+            this.rowCount = rowCount;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Object[] getArgs() {
+            return args.clone();
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return the EXPLAIN output, once the background thread has produced it, otherwise null
+         */
+        public String getPlan() {
+            return plan;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder()
+                    .append(getElapsedMillis()).append("ms, rows=").append(rowCount)
+                    .append(", sql=").append(sql)
+                    .append(", args=").append(Arrays.toString(args));
+            String explained = plan;
+            if (explained != null) {
+                sb.append(", plan=\n").append(explained);
+            }
+            return sb.toString();
+        }
+    }
+}
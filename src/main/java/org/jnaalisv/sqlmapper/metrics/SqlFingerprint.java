@@ -0,0 +1,109 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Normalizes SQL text so that statements differing only in literals, whitespace, letter case or
+ * the length of an IN list map to the same fingerprint.
+ */
+public final class SqlFingerprint {
+    private static final int CACHE_SIZE = Integer.getInteger("org.jnaalisv.sqlmapper.fingerprintCacheSize", 1000);
+
+    private static final Map<String, String> fingerprintCache = new ConcurrentHashMap<>();
+
+    private SqlFingerprint() {}
+
+    public static String of(String sql) {
+        String fingerprint = fingerprintCache.get(sql);
+        if (fingerprint == null) {
+            fingerprint = normalize(sql);
+            if (fingerprintCache.size() >= CACHE_SIZE) {
+                fingerprintCache.clear();
+            }
+            fingerprintCache.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i);
+                appendPlaceholder(sb);
+            } else if (c == '?') {
+                i++;
+                appendPlaceholder(sb);
+            } else if (Character.isDigit(c) && !isIdentifierPart(sb)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendPlaceholder(sb);
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    private static int skipQuoted(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char previous = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_';
+    }
+
+    // Collapses "?, ?, ?" into a single "?" so that IN lists of any length share a fingerprint
+    private static void appendPlaceholder(StringBuilder sb) {
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end > 1 && sb.charAt(end - 1) == ',') {
+            int previous = end - 1;
+            while (previous > 0 && sb.charAt(previous - 1) == ' ') {
+                previous--;
+            }
+            if (previous > 0 && sb.charAt(previous - 1) == '?') {
+                sb.setLength(previous);
+                return;
+            }
+        }
+        sb.append('?');
+    }
+}
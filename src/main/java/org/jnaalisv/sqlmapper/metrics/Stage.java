@@ -0,0 +1,10 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+public enum Stage {
+    CONNECTION,
+    PREPARE,
+    EXECUTE,
+    HYDRATE,
+    BATCH,
+    STATEMENT
+}
@@ -0,0 +1,64 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.beans.ConstructorProperties;
+
+public final class StatementSnapshot {
+    private final String fingerprint;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double totalMillis;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+
+    @ConstructorProperties({"fingerprint", "calls", "errors", "rows", "totalMillis", "meanMillis", "p50Millis", "p99Millis"})
+    public StatementSnapshot(String fingerprint, long calls, long errors, long rows, double totalMillis, double meanMillis, double p50Millis, double p99Millis) {
+        this.fingerprint = fingerprint;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.totalMillis = totalMillis;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    @Override
+    public String toString() {
+        return fingerprint + " calls=" + calls + ", errors=" + errors + ", rows=" + rows
+                + ", total=" + totalMillis + "ms, mean=" + meanMillis + "ms, p50=" + p50Millis + "ms, p99=" + p99Millis + "ms";
+    }
+}
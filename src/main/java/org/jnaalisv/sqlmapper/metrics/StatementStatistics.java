@@ -0,0 +1,169 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process equivalent of pg_stat_statements. Statistics are kept per {@link SqlFingerprint} for at
+ * most {@code maxStatements} fingerprints; when a new fingerprint arrives at capacity the least
+ * called entry is dropped. Latencies go into a coarse histogram of about 5KB per statement, with
+ * percentiles within 6.25% and capped at one hour.
+ */
+public class StatementStatistics implements MetricsRecorder, StatementStatisticsMXBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int LATENCY_SUB_BUCKET_BITS = 4;
+    private static final long LATENCY_MAX_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final int maxStatements;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Object newEntryLock = new Object();
+
+    private ObjectName objectName;
+
+    public StatementStatistics() {
+        this(Integer.getInteger("org.jnaalisv.sqlmapper.maxTrackedStatements", 500));
+    }
+
+    public StatementStatistics(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void statementCompleted(String sql, Object[] args, long nanos, int rowCount) {
+        Entry entry = entry(sql);
+        entry.calls.increment();
+        entry.totalNanos.add(nanos);
+        entry.latency.record(nanos);
+        if (rowCount > 0) {
+            entry.rows.add(rowCount);
+        }
+    }
+
+    @Override
+    public void statementFailed(String sql, Object[] args, long nanos, Throwable error) {
+        Entry entry = entry(sql);
+        entry.calls.increment();
+        entry.errors.increment();
+        entry.totalNanos.add(nanos);
+        entry.latency.record(nanos);
+    }
+
+    private Entry entry(String sql) {
+        String fingerprint = SqlFingerprint.of(sql);
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            // new fingerprints are rare once the application is warmed up
+            synchronized (newEntryLock) {
+                entry = entries.get(fingerprint);
+                if (entry == null) {
+                    if (entries.size() >= maxStatements) {
+                        evictLeastCalled();
+                    }
+                    entry = new Entry(fingerprint);
+                    entries.put(fingerprint, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    private void evictLeastCalled() {
+        Entry leastCalled = null;
+        long leastCalls = Long.MAX_VALUE;
+        for (Entry entry : entries.values()) {
+            long calls = entry.calls.sum();
+            if (calls < leastCalls) {
+                leastCalled = entry;
+                leastCalls = calls;
+            }
+        }
+        if (leastCalled != null) {
+            entries.remove(leastCalled.fingerprint, leastCalled);
+        }
+    }
+
+    public List<StatementSnapshot> snapshot() {
+        List<StatementSnapshot> snapshots = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            snapshots.add(entry.snapshot());
+        }
+        snapshots.sort(Comparator.comparingDouble(StatementSnapshot::getTotalMillis).reversed());
+        return snapshots;
+    }
+
+    public StatementSnapshot snapshot(String sql) {
+        Entry entry = entries.get(SqlFingerprint.of(sql));
+        return entry == null ? null : entry.snapshot();
+    }
+
+    @Override
+    public List<StatementSnapshot> getTopStatements() {
+        return snapshot();
+    }
+
+    @Override
+    public int getStatementCount() {
+        return entries.size();
+    }
+
+    @Override
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    @Override
+    public void reset() {
+        entries.clear();
+    }
+
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        objectName = new ObjectName("org.jnaalisv.sqlmapper:type=StatementStatistics,name=" + ObjectName.quote(name));
+        mBeanServer.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final ConcurrentHistogram latency = new ConcurrentHistogram(LATENCY_SUB_BUCKET_BITS, LATENCY_MAX_NANOS);
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        StatementSnapshot snapshot() {
+            long callCount = calls.sum();
+            long total = totalNanos.sum();
+            return new StatementSnapshot(
+                    fingerprint,
+                    callCount,
+                    errors.sum(),
+                    rows.sum(),
+                    total / NANOS_PER_MILLI,
+                    callCount == 0 ? 0.0 : total / NANOS_PER_MILLI / callCount,
+                    latency.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        }
+    }
+}
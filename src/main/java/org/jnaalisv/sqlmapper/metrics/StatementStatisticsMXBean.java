@@ -0,0 +1,14 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import java.util.List;
+
+public interface StatementStatisticsMXBean {
+
+    int getStatementCount();
+
+    int getMaxStatements();
+
+    List<StatementSnapshot> getTopStatements();
+
+    void reset();
+}
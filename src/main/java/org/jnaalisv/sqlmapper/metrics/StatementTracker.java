@@ -0,0 +1,206 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detects the same statement shape executing over and over within a tracking scope, typically an N+1 loop
+ * calling {@code queryForOneById} per element. Scopes are opened per thread and nest; statements count against
+ * the innermost open scope. When a {@link SqlFingerprint} runs with more than {@code threshold} different
+ * argument lists in a scope, the first call site outside the library is logged once, and a strict scope throws a
+ * {@link RepeatedStatementException} on close. Re-running a statement with the same arguments is not flagged.
+ *
+ * <p>While no scope is open anywhere, {@link #statementExecuted} returns after reading one volatile field.</p>
+ */
+public final class StatementTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementTracker.class);
+
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("org.jnaalisv.sqlmapper.repeatedStatementThreshold", 10);
+    public static final boolean DEFAULT_STRICT = Boolean.getBoolean("org.jnaalisv.sqlmapper.repeatedStatementStrict");
+
+    private static final String[] LIBRARY_PACKAGES = {
+            "org.jnaalisv.sqlmapper.internal.",
+            "org.jnaalisv.sqlmapper.metrics.",
+            "com.zaxxer.sansorm.",
+            "java.",
+            "sun.",
+            "jdk."
+    };
+
+    private static final AtomicInteger openScopes = new AtomicInteger();
+    private static final ThreadLocal<Deque<Scope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private StatementTracker() {}
+
+    public static Scope open(String name, int threshold, boolean strict) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive, was " + threshold);
+        }
+        Scope scope = new Scope(name, threshold, strict);
+        scopes.get().push(scope);
+        openScopes.incrementAndGet();
+        return scope;
+    }
+
+    /**
+     * @return whether a scope is open on this thread, so that statements built from entities have to remember
+     * their bound values
+     */
+    public static boolean isTracking() {
+        return openScopes.get() != 0 && scopes.get().peek() != null;
+    }
+
+    public static void statementExecuted(String sql, Object[] args) {
+        if (openScopes.get() == 0) {
+            return;
+        }
+        Scope scope = scopes.get().peek();
+        if (scope != null) {
+            scope.record(sql, args);
+        }
+    }
+
+    static String callSite(StackTraceElement[] stackTrace) {
+        for (StackTraceElement element : stackTrace) {
+            if (!isLibraryFrame(element.getClassName())) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    private static boolean isLibraryFrame(String className) {
+        for (String libraryPackage : LIBRARY_PACKAGES) {
+            if (className.startsWith(libraryPackage)) {
+                return true;
+            }
+        }
+        // classes of the root package, including their lambdas and nested classes
+        return className.startsWith("org.jnaalisv.sqlmapper.") && className.indexOf('.', "org.jnaalisv.sqlmapper.".length()) < 0;
+    }
+
+    /**
+     * A tracking window, closed on the thread that opened it.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final String name;
+        private final int threshold;
+        private final boolean strict;
+        private final Thread owner = Thread.currentThread();
+        private final Map<String, Counter> counters = new HashMap<>();
+        private final List<Finding> findings = new ArrayList<>();
+        private boolean closed;
+
+        private Scope(String name, int threshold, boolean strict) {
+            this.name = name;
+            this.threshold = threshold;
+            this.strict = strict;
+        }
+
+        private void record(String sql, Object[] args) {
+            String fingerprint = SqlFingerprint.of(sql);
+            Counter counter = counters.computeIfAbsent(fingerprint, key -> new Counter());
+            ++counter.count;
+
+            // only the first threshold + 1 argument lists matter, keep the set bounded
+            if (counter.distinctArguments.size() <= threshold
+                    && counter.distinctArguments.add(Arrays.asList(args))
+                    && counter.distinctArguments.size() == threshold + 1) {
+                Finding finding = new Finding(fingerprint, callSite(new Throwable().getStackTrace()), counter);
+                findings.add(finding);
+                LOGGER.warn("Statement repeated with {} different arguments in scope '{}' from {}: {}", counter.distinctArguments.size(), name, finding.callSite, fingerprint);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the statements that ran with more than the threshold different arguments so far
+         */
+        public List<Finding> getFindings() {
+            return Collections.unmodifiableList(findings);
+        }
+
+        /**
+         * @throws RepeatedStatementException in strict mode, when any statement was reported
+         * @throws IllegalStateException when closed on another thread, where the scope stays open, or out of
+         * nesting order, where it is closed anyway
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            // only the owner can take the scope off its thread's stack
+            if (Thread.currentThread() != owner) {
+                throw new IllegalStateException("Tracking scope '" + name + "' must be closed on the thread that opened it");
+            }
+            try {
+                Deque<Scope> open = scopes.get();
+                boolean innermost = open.peek() == this;
+                open.remove(this);
+                if (!innermost) {
+                    throw new IllegalStateException("Tracking scope '" + name + "' must be closed innermost first");
+                }
+
+                if (strict && !findings.isEmpty()) {
+                    throw new RepeatedStatementException(name, threshold, findings);
+                }
+            } finally {
+                closed = true;
+                openScopes.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Counter {
+        final Set<List<Object>> distinctArguments = new HashSet<>();
+        int count;
+    }
+
+    public static final class Finding {
+        private final String fingerprint;
+        private final String callSite;
+        private final Counter counter;
+
+        private Finding(String fingerprint, String callSite, Counter counter) {
+            this.fingerprint = fingerprint;
+            this.callSite = callSite;
+            this.counter = counter;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getCallSite() {
+            return callSite;
+        }
+
+        /**
+         * @return how many times the statement ran in the scope, including calls after it was reported
+         */
+        public int getCount() {
+            return counter.count;
+        }
+
+        @Override
+        public String toString() {
+            return fingerprint + " x" + counter.count + " at " + callSite;
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package com.zaxxer.sansorm.internal;
 
+import org.jnaalisv.sqlmapper.CachingSqlStringBuilder;
 import org.jnaalisv.sqlmapper.entities.Customer;
 import org.jnaalisv.sqlmapper.entities.Product;
+import org.jnaalisv.sqlmapper.entities.ProductCode;
 import org.junit.Test;
 
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.beans.ConstructorProperties;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 
 public class IntrospectedTest {
 
@@ -77,4 +86,74 @@ public class IntrospectedTest {
         assertThat(columnTableNames).containsExactly(null, null, null);
     }
 
+
+    @Test
+    public void finalFieldsAreMappedThroughTheCreator() throws IllegalAccessException, InstantiationException {
+        Introspected introspected = Introspector.getIntrospected(ProductCode.class);
+
+        assertThat(introspected.hasCreator()).isTrue();
+        assertThat(introspected.getColumnNames()).containsExactly("id", "product_code", "rank", "unit_price");
+        assertThat(introspected.getFieldColumnInfo("product_code").getCreatorIndex()).isEqualTo(1);
+        assertThat(introspected.getFieldColumnInfo("unit_price").getCreatorIndex()).isEqualTo(-1);
+        assertThat(introspected.newCreatorArguments()).containsExactly(0L, null, 0);
+    }
+
+    @Test
+    public void evictedClassesAreIntrospectedAgain() throws IllegalAccessException, InstantiationException {
+        Introspected introspected = Introspector.getIntrospected(Customer.class);
+        assertThat(Introspector.getIntrospected(Customer.class)).isSameAs(introspected);
+
+        String insertSql = CachingSqlStringBuilder.createStatementForInsertSql(introspected);
+        assertThat(CachingSqlStringBuilder.createStatementForInsertSql(introspected)).isSameAs(insertSql);
+
+        Introspector.evict(Customer.class);
+
+        Introspected reintrospected = Introspector.getIntrospected(Customer.class);
+        assertThat(reintrospected).isNotSameAs(introspected);
+        assertThat(CachingSqlStringBuilder.createStatementForInsertSql(reintrospected)).isEqualTo(insertSql).isNotSameAs(insertSql);
+    }
+
+    @Table(name = "products")
+    static class FinalVersion {
+        @Id
+        @Column(name = "id")
+        private final long id;
+
+        @Version
+        private final long version;
+
+        @ConstructorProperties({"id", "version"})
+        FinalVersion(long id, long version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+
+    @Test
+    public void versionFieldsMustNotBeFinal() {
+        Throwable thrown = catchThrowable(() -> Introspector.getIntrospected(FinalVersion.class));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(thrown.getMessage()).contains("FinalVersion.version");
+    }
+
+    @Table(name = "products")
+    static class MisnamedCreator {
+        @Id
+        @Column(name = "id")
+        private final long id;
+
+        @ConstructorProperties({"productId"})
+        MisnamedCreator(long id) {
+            this.id = id;
+        }
+    }
+
+    @Test
+    public void creatorPropertiesMustNameMappedFields() {
+        Throwable thrown = catchThrowable(() -> Introspector.getIntrospected(MisnamedCreator.class));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(thrown.getMessage()).contains("'productId'");
+    }
 }
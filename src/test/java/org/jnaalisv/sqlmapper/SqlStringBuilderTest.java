@@ -3,12 +3,15 @@ package org.jnaalisv.sqlmapper;
 import com.zaxxer.sansorm.internal.Introspected;
 import com.zaxxer.sansorm.internal.Introspector;
 import org.jnaalisv.sqlmapper.entities.Customer;
+import org.jnaalisv.sqlmapper.entities.Order;
+import org.jnaalisv.sqlmapper.entities.OrderSummary;
 import org.jnaalisv.sqlmapper.entities.Product;
 import org.jnaalisv.sqlmapper.internal.TableSpecs;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
 
 public class SqlStringBuilderTest {
 
@@ -33,6 +36,18 @@ public class SqlStringBuilderTest {
                 "WHERE  id=?");
     }
 
+    @Test
+    public void existsFromClause() {
+        String sql = SqlStringBuilder.existsFromClause(tableSpecs, "product_code=?");
+        assertThat(sql).isEqualTo("SELECT 1 WHERE EXISTS (SELECT 1 FROM products products WHERE  product_code=?)");
+    }
+
+    @Test
+    public void aggregateFromClause() {
+        String sql = SqlStringBuilder.aggregateFromClause(tableSpecs, "MAX", "rank", "product_code=?");
+        assertThat(sql).isEqualTo("SELECT MAX(products.rank) FROM products products WHERE  product_code=?");
+    }
+
     @Test
     public void generateSelectFromClause() {
         String sql = SqlStringBuilder.generateSelectFromClause(tableSpecs, "id=?");
@@ -47,6 +62,47 @@ public class SqlStringBuilderTest {
                 "WHERE  id=?");
     }
 
+    @Test
+    public void selectIdRangeFromClause() {
+        String sql = SqlStringBuilder.selectIdRangeFromClause(tableSpecs, "rank > ? ORDER BY rank");
+        assertThat(sql).isEqualTo("SELECT MIN(products.id), MAX(products.id) " +
+                "FROM products products " +
+                "WHERE (rank > ?)");
+    }
+
+    @Test
+    public void keywordsInsideLiteralsAndIdentifiersAreIgnored() {
+        assertThat(SqlStringBuilder.countObjectsFromClause(tableSpecs, "product_code = 'WHERE'"))
+                .isEqualTo("SELECT COUNT(products.id) FROM products products WHERE  product_code = 'WHERE'");
+        assertThat(SqlStringBuilder.selectIdRangeFromClause(tableSpecs, "product_type <> 'JOIN' ORDER BY rank"))
+                .isEqualTo("SELECT MIN(products.id), MAX(products.id) FROM products products WHERE (product_type <> 'JOIN')");
+        assertThat(SqlStringBuilder.generateSelectWithinIdRange(tableSpecs, "id IN (SELECT id FROM products WHERE rank > ?)"))
+                .endsWith(" AND (id IN (SELECT id FROM products WHERE rank > ?))");
+        assertThat(SqlStringBuilder.indexOfKeyword("nowhere = ?", "WHERE")).isEqualTo(-1);
+    }
+
+    @Test
+    public void rangeScansRejectFullClauses() {
+        for (String clause : new String[]{"WHERE rank > ?", "JOIN orders o ON o.id = products.id"}) {
+            assertThat(catchThrowable(() -> SqlStringBuilder.selectIdRangeFromClause(tableSpecs, clause))).isInstanceOf(IllegalArgumentException.class);
+            assertThat(catchThrowable(() -> SqlStringBuilder.generateSelectWithinIdRange(tableSpecs, clause))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    public void generateSelectWithinIdRange() {
+        String sql = SqlStringBuilder.generateSelectWithinIdRange(tableSpecs, "rank > ? OR rank < ? ORDER BY rank");
+        assertThat(sql).isEqualTo("SELECT products.id," +
+                "products.product_type," +
+                "products.product_code," +
+                "products.rank," +
+                "products.unit_price," +
+                "products.introduced," +
+                "products.last_modified " +
+                "FROM products products " +
+                "WHERE products.id BETWEEN ? AND ? AND (rank > ? OR rank < ?)");
+    }
+
     @Test
     public void getColumnsCsv() {
         String sql = SqlStringBuilder.getColumnsCsv(tableSpecs, tableSpecs.getTableName());
@@ -88,4 +144,47 @@ public class SqlStringBuilderTest {
 
         assertThat(sql).isEqualTo("DELETE FROM customers WHERE id=? AND version=?");
     }
+
+    @Test
+    public void selectWhereJoinColumnInSql() throws IllegalAccessException, InstantiationException {
+
+        Introspected introspectedOrder = Introspector.getIntrospected(Order.class);
+
+        String sql = SqlStringBuilder.selectWhereColumnIn(introspectedOrder, "customer_id", 3);
+
+        assertThat(sql).isEqualTo("SELECT orders.id,orders.customer_id,orders.description FROM orders orders WHERE orders.customer_id IN (?,?,?)");
+        assertThat(SqlStringBuilder.createStatementForInsertSql(introspectedOrder)).isEqualTo("INSERT INTO orders(customer_id,description) VALUES (?,?)");
+    }
+
+    @Test
+    public void unmappedJoinColumnIsSelected() throws IllegalAccessException, InstantiationException {
+
+        Introspected introspectedSummary = Introspector.getIntrospected(OrderSummary.class);
+
+        String sql = SqlStringBuilder.selectWhereColumnIn(introspectedSummary, "customer_id", 2);
+
+        assertThat(sql).isEqualTo("SELECT orders.id,orders.description,orders.customer_id FROM orders orders WHERE orders.customer_id IN (?,?)");
+    }
+
+    @Test
+    public void insertReturningSql() throws IllegalAccessException, InstantiationException {
+
+        Introspected introspectedCustomer = Introspector.getIntrospected(Customer.class);
+
+        assertThat(SqlStringBuilder.createStatementForInsertReturningSql(introspectedCustomer))
+                .isEqualTo("INSERT INTO customers(version,name) VALUES (?,?) RETURNING id,version");
+        assertThat(SqlStringBuilder.createStatementForMultiRowInsertReturningSql(introspectedCustomer, 3))
+                .isEqualTo("INSERT INTO customers(version,name) VALUES (?,?),(?,?),(?,?) RETURNING id,version");
+    }
+
+    @Test
+    public void updateReturningSql() throws IllegalAccessException, InstantiationException {
+
+        Introspected introspectedCustomer = Introspector.getIntrospected(Customer.class);
+
+        assertThat(SqlStringBuilder.createStatementForUpdateReturningSql(introspectedCustomer))
+                .isEqualTo("UPDATE customers SET version=?,name=? WHERE id=? AND version=? RETURNING version");
+        assertThat(SqlStringBuilder.createStatementForUpdateReturningSql(tableSpecs))
+                .isEqualTo(SqlStringBuilder.createStatementForUpdateSql(tableSpecs));
+    }
 }
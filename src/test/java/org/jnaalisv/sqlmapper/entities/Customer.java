@@ -3,8 +3,10 @@ package org.jnaalisv.sqlmapper.entities;
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Version;
+import java.util.List;
 
 @Table(name = "customers")
 public class Customer {
@@ -21,6 +23,9 @@ public class Customer {
     @Column(name = "name")
     private String name;
 
+    @OneToMany(mappedBy = "customer")
+    private List<Order> orders;
+
     public Customer() {}
 
     public Customer(String name) {
@@ -38,4 +43,12 @@ public class Customer {
     public long getId() {
         return id;
     }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
 }
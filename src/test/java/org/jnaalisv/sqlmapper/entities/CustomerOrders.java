@@ -0,0 +1,38 @@
+package org.jnaalisv.sqlmapper.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import java.util.List;
+
+/**
+ * A customer with a one-to-many that has no back reference on the target.
+ */
+@Table(name = "customers")
+public class CustomerOrders {
+
+    @Id
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "name")
+    private String name;
+
+    @OneToMany
+    @JoinColumn(name = "customer_id")
+    private List<OrderSummary> orders;
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<OrderSummary> getOrders() {
+        return orders;
+    }
+}
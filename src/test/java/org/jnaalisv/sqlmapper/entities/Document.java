@@ -0,0 +1,50 @@
+package org.jnaalisv.sqlmapper.entities;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Reader;
+import java.util.function.Supplier;
+
+@Table(name = "documents")
+public class Document {
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue
+    private long id;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "body")
+    private Reader body;
+
+    @Column(name = "attachment")
+    private Supplier<byte[]> attachment;
+
+    public Document() {}
+
+    public Document(String title, Reader body, Supplier<byte[]> attachment) {
+        this.title = title;
+        this.body = body;
+        this.attachment = attachment;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Reader getBody() {
+        return body;
+    }
+
+    public Supplier<byte[]> getAttachment() {
+        return attachment;
+    }
+}
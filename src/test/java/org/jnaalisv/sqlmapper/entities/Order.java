@@ -0,0 +1,43 @@
+package org.jnaalisv.sqlmapper.entities;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+@Table(name = "orders")
+public class Order {
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue
+    private long id;
+
+    @ManyToOne
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
+    @Column(name = "description")
+    private String description;
+
+    public Order() {}
+
+    public Order(Customer customer, String description) {
+        this.customer = customer;
+        this.description = description;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
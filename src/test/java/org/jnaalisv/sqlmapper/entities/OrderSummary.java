@@ -0,0 +1,27 @@
+package org.jnaalisv.sqlmapper.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A view of orders that leaves out the customer_id column.
+ */
+@Table(name = "orders")
+public class OrderSummary {
+
+    @Id
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "description")
+    private String description;
+
+    public long getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,47 @@
+package org.jnaalisv.sqlmapper.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.beans.ConstructorProperties;
+import java.math.BigDecimal;
+
+@Table(name = "products")
+public class ProductCode {
+
+    @Id
+    @Column(name = "id")
+    private final long id;
+
+    @Column(name = "product_code")
+    private final String productCode;
+
+    @Column(name = "rank")
+    private final int rank;
+
+    @Column(name = "unit_price")
+    private BigDecimal unitPrice;
+
+    @ConstructorProperties({"id", "productCode", "rank"})
+    public ProductCode(long id, String productCode, int rank) {
+        this.id = id;
+        this.productCode = productCode;
+        this.rank = rank;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getProductCode() {
+        return productCode;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+}
@@ -0,0 +1,48 @@
+package org.jnaalisv.sqlmapper.entities;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+@Table(name = "widgets")
+public class Widget {
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "widget_seq")
+    @SequenceGenerator(name = "widget_seq", sequenceName = "widget_seq", allocationSize = 50)
+    private long id;
+
+    @Version
+    @Column(name = "version")
+    private long version = 0l;
+
+    @Column(name = "name")
+    private String name;
+
+    public Widget() {}
+
+    public Widget(String name) {
+        this.name = name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
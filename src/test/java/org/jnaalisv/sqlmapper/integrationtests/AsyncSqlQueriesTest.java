@@ -0,0 +1,141 @@
+package org.jnaalisv.sqlmapper.integrationtests;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.jnaalisv.sqlmapper.AsyncSqlQueries;
+import org.jnaalisv.sqlmapper.SqlQueries;
+import org.jnaalisv.sqlmapper.entities.Customer;
+import org.jnaalisv.sqlmapper.entities.Product;
+import org.jnaalisv.sqlmapper.internal.QueryExecutors;
+import org.jnaalisv.sqlmapper.internal.ResultSetConsumer;
+import org.jnaalisv.sqlmapper.spring.DataSourceConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+@Sql({"classpath:test-data.sql"})
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {DataSourceConfig.class})
+public class AsyncSqlQueriesTest {
+
+    @Autowired
+    private DataSource hikariDataSource;
+
+    private AsyncSqlQueries asyncSqlQueries;
+
+    @Before
+    public void setDataSource() {
+        asyncSqlQueries = new SqlQueries(hikariDataSource).async();
+    }
+
+    @Test
+    public void fanOut() throws ExecutionException, InterruptedException {
+        CompletableFuture<List<Product>> products = asyncSqlQueries.queryAll(Product.class);
+        CompletableFuture<List<Customer>> customers = asyncSqlQueries.queryAll(Customer.class);
+        CompletableFuture<Optional<Product>> productA1 = asyncSqlQueries.queryForOneByClause(Product.class, "product_code = ?", "A1");
+        CompletableFuture<Integer> productCount = asyncSqlQueries.countObjectsFromClause(Product.class, null);
+
+        CompletableFuture.allOf(products, customers, productA1, productCount).get();
+
+        assertThat(products.get()).hasSize(3);
+        assertThat(customers.get()).hasSize(1);
+        assertThat(productA1.get().get().getProductCode()).isEqualTo("A1");
+        assertThat(productCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void failedQueryCompletesExceptionally() {
+        CompletableFuture<List<Product>> products = asyncSqlQueries.query(Product.class, "INVALID");
+
+        Throwable thrown = catchThrowable(products::get);
+
+        assertThat(thrown)
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(SQLException.class);
+    }
+
+    private static volatile CountDownLatch executing;
+    private static volatile CountDownLatch released;
+
+    /**
+     * Called by the statements under test through an H2 alias. Blocks on the first row until the test releases it;
+     * H2 checks for cancellation every few hundred rows after that.
+     */
+    public static int block(long row) throws InterruptedException {
+        if (row == 1) {
+            executing.countDown();
+            released.await(5, TimeUnit.SECONDS);
+        }
+        return 0;
+    }
+
+    @Test
+    public void cancelExecute() throws Exception {
+        assertCancelsStatement((async, sum) -> async.execute(() -> BLOCKING_SQL, sum));
+    }
+
+    @Test
+    public void cancelSupply() throws Exception {
+        assertCancelsStatement((async, sum) -> async.supply(sqlQueries -> sqlQueries.execute(() -> BLOCKING_SQL, sum)));
+    }
+
+    @Test
+    public void poolSizeIsReadFromTheDataSource() {
+        assertThat(QueryExecutors.poolSizeOf(hikariDataSource)).isEqualTo(((HikariDataSource) hikariDataSource).getMaximumPoolSize());
+    }
+
+    private static final String BLOCKING_SQL = "select sum(block(x)) from system_range(1, 100000)";
+
+    private void assertCancelsStatement(BiFunction<AsyncSqlQueries, ResultSetConsumer<Long>, CompletableFuture<Long>> call) throws Exception {
+        new SqlQueries(hikariDataSource).executeUpdate(
+                () -> "CREATE ALIAS IF NOT EXISTS block FOR \"" + AsyncSqlQueriesTest.class.getName() + ".block\"",
+                PreparedStatement::executeUpdate);
+        executing = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean consumed = new AtomicBoolean();
+        Executor executor = task -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finished.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        };
+
+        CompletableFuture<Long> sum = call.apply(new AsyncSqlQueries(new SqlQueries(hikariDataSource), executor), resultSet -> {
+            consumed.set(true);
+            return resultSet.next() ? resultSet.getLong(1) : null;
+        });
+        assertThat(executing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sum.cancel(true)).isTrue();
+        released.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sum.isCancelled()).isTrue();
+        assertThat(consumed.get()).isFalse();
+    }
+}
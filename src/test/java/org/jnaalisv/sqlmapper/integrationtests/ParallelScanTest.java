@@ -0,0 +1,85 @@
+package org.jnaalisv.sqlmapper.integrationtests;
+
+import org.jnaalisv.sqlmapper.SqlQueries;
+import org.jnaalisv.sqlmapper.entities.Product;
+import org.jnaalisv.sqlmapper.entities.Widget;
+import org.jnaalisv.sqlmapper.spring.DataSourceConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Sql({"classpath:test-data.sql"})
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {DataSourceConfig.class})
+public class ParallelScanTest {
+
+    @Autowired
+    private DataSource hikariDataSource;
+
+    private SqlQueries sqlQueries;
+
+    @Before
+    public void setDataSource() {
+        sqlQueries = new SqlQueries(hikariDataSource);
+    }
+
+    @Test
+    public void scanAllPartitions() {
+        Queue<Product> products = new ConcurrentLinkedQueue<>();
+
+        long rowCount = sqlQueries.scanParallel(Product.class, null, 2, products::add);
+
+        assertThat(rowCount).isEqualTo(3);
+        assertThat(products.stream().map(Product::getProductCode).collect(Collectors.toList()))
+                .containsOnly("A1", "B2", "C3");
+    }
+
+    @Test
+    public void scanWithClause() {
+        Queue<Product> products = new ConcurrentLinkedQueue<>();
+
+        long rowCount = sqlQueries.scanParallel(Product.class, "rank < ?", 8, products::add, 3);
+
+        assertThat(rowCount).isEqualTo(2);
+        assertThat(products.stream().map(Product::getProductCode).collect(Collectors.toList()))
+                .containsOnly("B2", "C3");
+    }
+
+    @Test
+    public void scanEmptyRange() {
+        long rowCount = sqlQueries.scanParallel(Product.class, "rank > ?", 4, product -> {}, 100);
+
+        assertThat(rowCount).isEqualTo(0);
+    }
+
+    @Test
+    public void scanIdsSpanningTheWholeLongRange() {
+        long[] ids = {Long.MIN_VALUE, -1, 0, Long.MAX_VALUE};
+        try {
+            for (long id : ids) {
+                sqlQueries.executeUpdate(() -> "INSERT INTO widgets(id, name) VALUES (?, ?)", PreparedStatement::executeUpdate, id, "extreme");
+            }
+            Queue<Widget> widgets = new ConcurrentLinkedQueue<>();
+
+            long rowCount = sqlQueries.scanParallel(Widget.class, "name = ?", 3, widgets::add, "extreme");
+
+            assertThat(rowCount).isEqualTo(ids.length);
+            assertThat(widgets.stream().map(Widget::getId).collect(Collectors.toList()))
+                    .containsOnly(Long.MIN_VALUE, -1L, 0L, Long.MAX_VALUE);
+        } finally {
+            sqlQueries.executeUpdate(() -> "DELETE FROM widgets WHERE name = ?", PreparedStatement::executeUpdate, "extreme");
+        }
+    }
+}
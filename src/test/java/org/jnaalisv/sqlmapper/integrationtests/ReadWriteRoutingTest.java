@@ -0,0 +1,97 @@
+package org.jnaalisv.sqlmapper.integrationtests;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jnaalisv.sqlmapper.ReadWriteRouting;
+import org.jnaalisv.sqlmapper.SqlQueries;
+import org.jnaalisv.sqlmapper.entities.Product;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadWriteRoutingTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica1;
+    private HikariDataSource replica2;
+
+    @Before
+    public void createDatabases() {
+        primary = database("primary", "P1");
+        replica1 = database("replica1", "R1");
+        replica2 = database("replica2", "R2");
+    }
+
+    @After
+    public void closeDatabases() {
+        primary.close();
+        replica1.close();
+        replica2.close();
+    }
+
+    private static HikariDataSource database(String name, String productCode) {
+        HikariConfig dataSourceConfig = new HikariConfig();
+        dataSourceConfig.setDriverClassName("org.h2.Driver");
+        dataSourceConfig.setJdbcUrl("jdbc:h2:mem:" + name);
+        dataSourceConfig.setUsername("sa");
+        dataSourceConfig.setPassword("");
+        HikariDataSource dataSource = new HikariDataSource(dataSourceConfig);
+
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("create-db.sql")), dataSource);
+        new SqlQueries(dataSource).insertObject(new Product(productCode));
+        return dataSource;
+    }
+
+    private static String productCodeFrom(SqlQueries sqlQueries) {
+        return sqlQueries.queryAll(Product.class).get(0).getProductCode();
+    }
+
+    @Test
+    public void readsRoundRobinOverReplicas() {
+        SqlQueries sqlQueries = new SqlQueries(new ReadWriteRouting(primary, Arrays.<DataSource>asList(replica1, replica2)));
+
+        assertThat(Arrays.asList(productCodeFrom(sqlQueries), productCodeFrom(sqlQueries), productCodeFrom(sqlQueries), productCodeFrom(sqlQueries)))
+                .containsExactly("R1", "R2", "R1", "R2");
+        assertThat(sqlQueries.countObjectsFromClause(Product.class, "product_code = ?", "P1")).isEqualTo(0);
+    }
+
+    @Test
+    public void writesGoToPrimary() {
+        SqlQueries sqlQueries = new SqlQueries(new ReadWriteRouting(primary, Arrays.<DataSource>asList(replica1, replica2)));
+
+        sqlQueries.insertObject(new Product("W1"));
+
+        assertThat(new SqlQueries(primary).countObjectsFromClause(Product.class, "product_code = ?", "W1")).isEqualTo(1);
+        assertThat(new SqlQueries(replica1).countObjectsFromClause(Product.class, "product_code = ?", "W1")).isEqualTo(0);
+        assertThat(new SqlQueries(replica2).countObjectsFromClause(Product.class, "product_code = ?", "W1")).isEqualTo(0);
+    }
+
+    @Test
+    public void readYourWritesPinsThreadToPrimary() {
+        ReadWriteRouting routing = new ReadWriteRouting(
+                primary,
+                Arrays.<DataSource>asList(replica1, replica2),
+                ReadWriteRouting.ReplicaSelection.LEAST_IN_FLIGHT,
+                1,
+                TimeUnit.MINUTES);
+        SqlQueries sqlQueries = new SqlQueries(routing);
+
+        assertThat(productCodeFrom(sqlQueries)).startsWith("R");
+
+        sqlQueries.insertObject(new Product("W1"));
+        assertThat(sqlQueries.exists(Product.class, "product_code = ?", "W1")).isTrue();
+        assertThat(productCodeFrom(sqlQueries)).isEqualTo("P1");
+
+        routing.unpin();
+        assertThat(productCodeFrom(sqlQueries)).startsWith("R");
+    }
+}
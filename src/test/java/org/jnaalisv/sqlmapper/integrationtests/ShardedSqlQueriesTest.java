@@ -0,0 +1,134 @@
+package org.jnaalisv.sqlmapper.integrationtests;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jnaalisv.sqlmapper.ShardedSqlQueries;
+import org.jnaalisv.sqlmapper.SqlQueries;
+import org.jnaalisv.sqlmapper.entities.Product;
+import org.jnaalisv.sqlmapper.entities.Widget;
+import org.jnaalisv.sqlmapper.internal.QueryExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+public class ShardedSqlQueriesTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+    private ShardedSqlQueries shardedSqlQueries;
+
+    @Before
+    public void createShards() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            HikariConfig dataSourceConfig = new HikariConfig();
+            dataSourceConfig.setDriverClassName("org.h2.Driver");
+            dataSourceConfig.setJdbcUrl("jdbc:h2:mem:shard" + shard);
+            dataSourceConfig.setUsername("sa");
+            dataSourceConfig.setPassword("");
+            HikariDataSource dataSource = new HikariDataSource(dataSourceConfig);
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("create-db.sql")), dataSource);
+            dataSources.add(dataSource);
+        }
+
+        shardedSqlQueries = new ShardedSqlQueries(new ArrayList<DataSource>(dataSources));
+
+        for (long id = 1; id <= 12; id++) {
+            shardedSqlQueries.shardFor(id).executeUpdate(
+                    () -> "insert into products(id, product_code, rank) values (?, ?, ?)",
+                    PreparedStatement::executeUpdate,
+                    id, "P" + id, (int) id);
+        }
+    }
+
+    @After
+    public void closeShards() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    public void rowsAreSpreadOverShards() {
+        assertThat(shardedSqlQueries.countObjectsFromClause(Product.class, null)).isEqualTo(12);
+
+        long nonEmptyShards = dataSources.stream()
+                .filter(dataSource -> new SqlQueries(dataSource).countLong(Product.class, null) > 0)
+                .count();
+        assertThat(nonEmptyShards).isGreaterThan(1);
+    }
+
+    @Test
+    public void singleEntityOperationsAreRouted() {
+        Product product = shardedSqlQueries.queryForOneById(Product.class, 7l).get();
+        assertThat(product.getProductCode()).isEqualTo("P7");
+
+        product.setProductCode("P7-UPDATED");
+        assertThat(shardedSqlQueries.updateObject(product)).isEqualTo(1);
+        assertThat(shardedSqlQueries.queryForOneById(Product.class, 7l).get().getProductCode()).isEqualTo("P7-UPDATED");
+
+        assertThat(shardedSqlQueries.deleteObjectById(Product.class, 7l)).isEqualTo(1);
+        assertThat(shardedSqlQueries.queryForOneById(Product.class, 7l)).isEmpty();
+    }
+
+    @Test
+    public void scatterGatherAppliesOrderAndLimitAfterMerge() {
+        List<Product> products = shardedSqlQueries.queryTopN(
+                Product.class,
+                "rank > ?",
+                Comparator.comparing(Product::getRank).reversed(),
+                3,
+                0);
+
+        assertThat(products.stream().map(Product::getRank).collect(Collectors.toList())).containsExactly(12, 11, 10);
+    }
+
+    @Test
+    public void nestedFanOutCompletesOnASingleThread() {
+        ExecutorService executor = QueryExecutors.newBoundedExecutor(1);
+        try {
+            ShardedSqlQueries singleThreaded = new ShardedSqlQueries(new ArrayList<DataSource>(dataSources), executor);
+
+            List<Long> rowCounts = singleThreaded.scatter(shard -> shard.scanParallel(executor, Product.class, null, 4, product -> {}));
+
+            assertThat(rowCounts.stream().mapToLong(Long::longValue).sum()).isEqualTo(12);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void insertWithDatabaseGeneratedIdIsRejected() {
+        Throwable thrown = catchThrowable(() -> shardedSqlQueries.insertObject(new Product(100l, "X1")));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void insertWithPooledIdIsRoutedAndReadBack() {
+        List<Widget> widgets = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Widget widget = new Widget("W" + i);
+            assertThat(shardedSqlQueries.insertObject(widget)).isEqualTo(1);
+            widgets.add(widget);
+        }
+
+        for (Widget widget : widgets) {
+            assertThat(shardedSqlQueries.queryForOneById(Widget.class, widget.getId()).get().getName()).isEqualTo(widget.getName());
+        }
+        assertThat(shardedSqlQueries.countObjectsFromClause(Widget.class, null)).isEqualTo(6);
+    }
+}
@@ -1,13 +1,34 @@
 package org.jnaalisv.sqlmapper.integrationtests;
 
+import org.jnaalisv.sqlmapper.ColumnBuffer;
+import org.jnaalisv.sqlmapper.ColumnarResult;
+import org.jnaalisv.sqlmapper.CompiledQuery;
+import org.jnaalisv.sqlmapper.ImportResult;
 import org.jnaalisv.sqlmapper.SqlQueries;
 import org.jnaalisv.sqlmapper.entities.Customer;
+import org.jnaalisv.sqlmapper.entities.CustomerOrders;
+import org.jnaalisv.sqlmapper.entities.Document;
+import org.jnaalisv.sqlmapper.entities.Order;
+import org.jnaalisv.sqlmapper.entities.OrderSummary;
 import org.jnaalisv.sqlmapper.entities.Product;
+import org.jnaalisv.sqlmapper.entities.ProductCode;
+import org.jnaalisv.sqlmapper.entities.Widget;
+import org.jnaalisv.sqlmapper.internal.ResultSetExporter;
+import org.jnaalisv.sqlmapper.internal.SequenceIdAllocator;
 import org.jnaalisv.sqlmapper.internal.VersionConflictException;
+import org.jnaalisv.sqlmapper.internal.VersionConflictsException;
+import org.jnaalisv.sqlmapper.metrics.HistogramMetricsRecorder;
+import org.jnaalisv.sqlmapper.metrics.Metrics;
+import org.jnaalisv.sqlmapper.metrics.ParameterRedactor;
+import org.jnaalisv.sqlmapper.metrics.RepeatedStatementException;
+import org.jnaalisv.sqlmapper.metrics.SlowQueryLog;
+import org.jnaalisv.sqlmapper.metrics.StatementTracker;
 import org.jnaalisv.sqlmapper.spring.DataSourceConfig;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
 import org.springframework.test.context.ContextConfiguration;
@@ -15,11 +36,27 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
@@ -124,6 +161,48 @@ public class SqlQueriesTest {
         assertThat(sqlQueries.countObjectsFromClause(Product.class, "product_code like ?", "DOESNT EXIST!")).isEqualTo(0);
     }
 
+    @Test
+    public void countLongAndExists() {
+        assertThat(sqlQueries.countLong(Product.class, null)).isEqualTo(3l);
+        assertThat(sqlQueries.countLong(Product.class, "rank > ?", 1)).isEqualTo(2l);
+
+        assertThat(sqlQueries.exists(Product.class, "product_code = ?", "A1")).isTrue();
+        assertThat(sqlQueries.exists(Product.class, "product_code = ?", "DOESNT EXIST!")).isFalse();
+        assertThat(sqlQueries.exists(Product.class, "rank > ? ORDER BY rank LIMIT 2", 1)).isTrue();
+    }
+
+    @Test
+    public void primitiveAggregates() {
+        assertThat(sqlQueries.minLong(Product.class, "rank", null).getAsLong()).isEqualTo(1l);
+        assertThat(sqlQueries.maxLong(Product.class, "rank", null).getAsLong()).isEqualTo(3l);
+        assertThat(sqlQueries.sumLong(Product.class, "rank", "product_code <> ?", "A1")).isEqualTo(3l);
+        assertThat(sqlQueries.maxLong(Product.class, "rank", "product_code = ?", "DOESNT EXIST!").isPresent()).isFalse();
+        assertThat(sqlQueries.sumLong(Product.class, "rank", "product_code = ?", "DOESNT EXIST!")).isEqualTo(0l);
+
+        assertThat(sqlQueries.minDouble(Product.class, "unitPrice", null).getAsDouble()).isEqualTo(12.5);
+        assertThat(sqlQueries.sumDouble(Product.class, "unitPrice", null)).isEqualTo(49.0);
+        assertThat(sqlQueries.minDouble(Product.class, "unitPrice", "product_code = ?", "DOESNT EXIST!").isPresent()).isFalse();
+    }
+
+    @Test
+    public void minMaxSum() {
+        assertThat(sqlQueries.min(Product.class, "rank", null).get()).isEqualByComparingTo("1");
+        assertThat(sqlQueries.max(Product.class, "rank", null).get()).isEqualByComparingTo("3");
+        assertThat(sqlQueries.sum(Product.class, "rank", null)).isEqualByComparingTo("6");
+        assertThat(sqlQueries.sum(Product.class, "rank", "product_code <> ?", "A1")).isEqualByComparingTo("3");
+
+        assertThat(sqlQueries.min(Product.class, "rank", "product_code = ?", "DOESNT EXIST!")).isEmpty();
+        assertThat(sqlQueries.sum(Product.class, "rank", "product_code = ?", "DOESNT EXIST!")).isEqualByComparingTo("0");
+    }
+
+    @Test
+    public void decimalAggregatesKeepTheirFraction() {
+        assertThat(sqlQueries.min(Product.class, "unitPrice", null).get()).isEqualByComparingTo("12.5");
+        assertThat(sqlQueries.max(Product.class, "unitPrice", null).get()).isEqualByComparingTo("22.5");
+        assertThat(sqlQueries.sum(Product.class, "unitPrice", null)).isEqualByComparingTo("49.0");
+        assertThat(sqlQueries.sum(Product.class, "unit_price", "product_code <> ?", "C3")).isEqualByComparingTo("35.0");
+    }
+
     @Test
     public void insertObject () {
         Product transientProduct = new Product("D4");
@@ -241,6 +320,160 @@ public class SqlQueriesTest {
         assertThat(products.size()).isEqualTo(0);
     }
 
+    @Test
+    public void queryColumns() {
+        ColumnarResult result = sqlQueries.queryColumns("select id, rank, unit_price, introduced from products order by rank");
+
+        assertThat(result.getRowCount()).isEqualTo(3);
+        assertThat(result.getColumnNames()).containsExactly("id", "rank", "unit_price", "introduced");
+
+        assertThat(result.getColumn("rank").getKind()).isEqualTo(ColumnBuffer.Kind.INT);
+        assertThat(result.getInt("rank", 0)).isEqualTo(1);
+        assertThat(result.getLong("rank", 2)).isEqualTo(3l);
+
+        int[] ranks = result.intArray("rank");
+        assertThat(ranks[0] + ranks[1] + ranks[2]).isEqualTo(6);
+
+        assertThat(result.getColumn("unit_price").getKind()).isEqualTo(ColumnBuffer.Kind.OBJECT);
+        assertThat(result.getObject("unit_price", 0)).isEqualTo(new BigDecimal("14.00"));
+        assertThat(result.getObject("unit_price", 2)).isEqualTo(new BigDecimal("12.50"));
+
+        Throwable thrown = catchThrowable(() -> result.getDouble("unit_price", 0));
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(thrown.getMessage()).contains("unit_price").contains("OBJECT");
+
+        ColumnarResult numbers = sqlQueries.queryColumns("select cast(5 as decimal(18,0)) as small, cast(12345678901234567890 as numeric(20,0)) as big");
+        assertThat(numbers.getLong("small", 0)).isEqualTo(5L);
+        assertThat(numbers.getObject("big", 0)).isEqualTo(new BigDecimal("12345678901234567890"));
+
+        assertThat(result.isNull("rank", 0)).isFalse();
+        assertThat(result.isNull("introduced", 0)).isTrue();
+        assertThat(result.getObject("introduced", 1)).isNull();
+    }
+
+    @Test
+    public void publishRowsOnDemand() {
+        List<Product> received = new ArrayList<>();
+        boolean[] completed = {false};
+
+        sqlQueries.publishByClause(Product.class, "rank > ? ORDER BY rank", 0).subscribe(new Subscriber<Product>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Product product) {
+                received.add(product);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+
+        assertThat(completed[0]).isTrue();
+        assertThat(received.stream().map(Product::getProductCode).collect(Collectors.toList())).containsExactly("C3", "B2", "A1");
+    }
+
+    @Test
+    public void publishStopsOnCancel() {
+        List<Product> received = new ArrayList<>();
+
+        sqlQueries.publish(Product.class, "select * from products").subscribe(new Subscriber<Product>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(2);
+            }
+
+            @Override
+            public void onNext(Product product) {
+                received.add(product);
+                subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                throw new AssertionError("cancelled subscription completed");
+            }
+        });
+
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    public void metricsRecorderSeesEveryStage() {
+        HistogramMetricsRecorder recorder = new HistogramMetricsRecorder();
+        Metrics.setRecorder(recorder);
+        try {
+            sqlQueries.queryAll(Product.class);
+            sqlQueries.insertListBatched(Arrays.asList(new Product("Q1"), new Product("W2")));
+            catchThrowable(() -> sqlQueries.query(Product.class, "INVALID"));
+        } finally {
+            Metrics.setRecorder(null);
+        }
+
+        assertThat(recorder.getTimers()).containsKeys("CONNECTION", "PREPARE", "PREPARE:SELECT", "EXECUTE", "HYDRATE:Product", "BATCH:Product", "STATEMENT:SELECT", "STATEMENT:INSERT");
+        assertThat(recorder.getRowCount("HYDRATE:Product")).isEqualTo(3);
+        assertThat(recorder.getBatchSizes().get("Product").getMax()).isEqualTo(2);
+        assertThat(recorder.getErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void slowQueryLogCapturesArgumentsAndPlan() throws InterruptedException {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.NANOSECONDS, 100, ParameterRedactor.MASK_ALL, dataSource);
+        Metrics.setRecorder(slowQueryLog);
+        try {
+            sqlQueries.queryByClause(Product.class, "product_code = ?", "A1");
+        } finally {
+            Metrics.setRecorder(null);
+        }
+
+        SlowQueryLog.Entry entry = slowQueryLog.getRecentEntries().get(0);
+        assertThat(entry.getSql()).contains("product_code = ?");
+        assertThat(entry.getArgs()).containsExactly("***");
+        assertThat(entry.getRowCount()).isEqualTo(1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (entry.getPlan() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(entry.getPlan()).containsIgnoringCase("products");
+    }
+
+    @Test
+    public void slowQueryLogCapturesInsertArguments() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.NANOSECONDS, 100, ParameterRedactor.NONE, null);
+        Metrics.setRecorder(slowQueryLog);
+        try {
+            sqlQueries.insertObject(new Product("S1"));
+        } finally {
+            Metrics.setRecorder(null);
+        }
+
+        SlowQueryLog.Entry entry = slowQueryLog.getRecentEntries().get(0);
+        assertThat(entry.getSql()).containsIgnoringCase("insert into products");
+        assertThat(entry.getArgs()).contains("S1");
+    }
+
     @Test
     public void executeQueryError() {
 
@@ -293,5 +526,342 @@ public class SqlQueriesTest {
         assertThat(newCustomer.getVersion()).isEqualTo(0l);
     }
 
+    @Test
+    public void lobFieldsAreStreamed() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        byte[] bytes = new byte[64 * 1024];
+        Arrays.fill(bytes, (byte) 7);
+
+        sqlQueries.insertObject(new Document("manual", new StringReader(text.toString()), () -> bytes));
+
+        List<String> bodies = new ArrayList<>();
+        List<byte[]> attachments = new ArrayList<>();
+        long rowCount = sqlQueries.forEach(Document.class, "select * from documents", document -> {
+            try (BufferedReader reader = new BufferedReader(document.getBody())) {
+                bodies.add(reader.lines().collect(Collectors.joining("\n", "", "\n")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            attachments.add(document.getAttachment().get());
+        });
+
+        assertThat(rowCount).isEqualTo(1);
+        assertThat(bodies).containsExactly(text.toString());
+        assertThat(attachments.get(0)).isEqualTo(bytes);
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void associationsAreFetchedInBatches() {
+        Customer daffy = sqlQueries.queryAll(Customer.class).get(0);
+        Customer bugs = new Customer("Bugs Bunny");
+        sqlQueries.insertObject(bugs);
+        sqlQueries.insertListNotBatched(Arrays.asList(new Order(daffy, "a"), new Order(daffy, "b"), new Order(bugs, "c")));
+
+        HistogramMetricsRecorder recorder = new HistogramMetricsRecorder();
+        Metrics.setRecorder(recorder);
+        List<Order> orders;
+        List<Customer> customers;
+        try {
+            orders = sqlQueries.queryAll(Order.class);
+            customers = sqlQueries.fetch(sqlQueries.queryAll(Customer.class), Customer.class, "orders");
+        } finally {
+            Metrics.setRecorder(null);
+        }
+
+        // orders + their customers, customers + their orders
+        assertThat(recorder.getTimers().get("STATEMENT:SELECT").getCount()).isEqualTo(4);
+
+        assertThat(orders).extracting(order -> order.getCustomer().getName()).containsOnly("Daffy Duck", "Bugs Bunny");
+
+        Customer fetchedDaffy = customers.stream().filter(customer -> customer.getId() == daffy.getId()).findFirst().get();
+        assertThat(fetchedDaffy.getOrders()).extracting(Order::getDescription).containsExactlyInAnyOrder("a", "b");
+        assertThat(fetchedDaffy.getOrders().get(0).getCustomer()).isSameAs(fetchedDaffy);
+    }
+
+    @Test
+    public void oneToManyWithoutBackReferenceIsGroupedByTheJoinColumn() {
+        Customer daffy = sqlQueries.queryAll(Customer.class).get(0);
+        Customer bugs = new Customer("Bugs Bunny");
+        sqlQueries.insertObject(bugs);
+        sqlQueries.insertListNotBatched(Arrays.asList(new Order(daffy, "a"), new Order(bugs, "b"), new Order(daffy, "c")));
+
+        List<CustomerOrders> customers = sqlQueries.fetch(sqlQueries.queryAll(CustomerOrders.class), CustomerOrders.class, "orders");
+
+        assertThat(customers).hasSize(2);
+        CustomerOrders fetchedDaffy = customers.stream().filter(customer -> customer.getId() == daffy.getId()).findFirst().get();
+        CustomerOrders fetchedBugs = customers.stream().filter(customer -> customer.getId() == bugs.getId()).findFirst().get();
+        assertThat(fetchedDaffy.getOrders()).extracting(OrderSummary::getDescription).containsExactlyInAnyOrder("a", "c");
+        assertThat(fetchedBugs.getOrders()).extracting(OrderSummary::getDescription).containsExactly("b");
+    }
+
+    @Test
+    public void joinedRowsAreMappedIntoTuples() {
+        Customer daffy = sqlQueries.queryAll(Customer.class).get(0);
+        sqlQueries.insertObject(new Customer("Bugs Bunny"));
+        sqlQueries.insertListNotBatched(Arrays.asList(new Order(daffy, "a"), new Order(daffy, "b")));
+
+        List<Object[]> rows = sqlQueries.queryJoined(
+                "select * from orders join customers on customers.id = orders.customer_id order by orders.id",
+                Order.class, Customer.class);
+
+        assertThat(rows).hasSize(2);
+        Order firstOrder = (Order) rows.get(0)[0];
+        Customer customer = (Customer) rows.get(0)[1];
+        assertThat(firstOrder.getDescription()).isEqualTo("a");
+        assertThat(customer.getName()).isEqualTo("Daffy Duck");
+        assertThat(rows.get(1)[1]).isSameAs(customer);
+        assertThat(firstOrder.getCustomer()).isSameAs(customer);
+
+        List<Object[]> outerJoined = sqlQueries.queryJoined(
+                "select c.id as customers__id, c.name as customers__name, o.id as orders__id, o.description as orders__description " +
+                "from customers c left join orders o on o.customer_id = c.id where c.name = ?",
+                new Class<?>[]{Customer.class, Order.class}, "Bugs Bunny");
+
+        assertThat(outerJoined).hasSize(1);
+        assertThat(((Customer) outerJoined.get(0)[0]).getName()).isEqualTo("Bugs Bunny");
+        assertThat(outerJoined.get(0)[1]).isNull();
+    }
+
+    @Test
+    public void compiledQueriesAreReusable() {
+        CompiledQuery<Product> byCode = sqlQueries.compile(Product.class, "product_code = ?");
+
+        assertThat(byCode.list("A1")).extracting(Product::getProductCode).containsExactly("A1");
+        assertThat(byCode.one("B2")).isPresent();
+        assertThat(byCode.one("no such code")).isEmpty();
+
+        CompiledQuery<Product> all = sqlQueries.compile(Product.class, "product_code IS NOT NULL ORDER BY product_code");
+        try (Stream<Product> products = all.stream()) {
+            assertThat(products.map(Product::getProductCode).collect(Collectors.toList())).containsExactly("A1", "B2", "C3");
+        }
+    }
+
+    @Test
+    public void compiledQueryStreamsAreRecordedOnClose() {
+        CompiledQuery<Product> all = sqlQueries.compile(Product.class, "product_code IS NOT NULL ORDER BY product_code");
+        HistogramMetricsRecorder recorder = new HistogramMetricsRecorder();
+        Metrics.setRecorder(recorder);
+        try (Stream<Product> products = all.stream()) {
+            assertThat(products.limit(2).count()).isEqualTo(2);
+            assertThat(recorder.getTimers()).doesNotContainKey("STATEMENT:SELECT");
+        } finally {
+            Metrics.setRecorder(null);
+        }
+
+        assertThat(recorder.getTimers().get("STATEMENT:SELECT").getCount()).isEqualTo(1);
+        assertThat(recorder.getRowCount("STATEMENT:SELECT")).isEqualTo(2);
+    }
+
+    @Test
+    public void namedParameters() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("code", "A1");
+        assertThat(sqlQueries.queryNamed(Product.class, "select * from products where product_code = :code", parameters)).hasSize(1);
+
+        Product product = sqlQueries.queryForOneNamed(Product.class, "select * from products where product_code = :code", parameters).get();
+        assertThat(sqlQueries.queryForOneNamed(Product.class, "select * from products where id = :id", product)).isPresent();
+
+        parameters.put("rank", 10);
+        int rowCount = sqlQueries.executeUpdateNamed("update products set rank = :rank where product_code = :code", parameters);
+        assertThat(rowCount).isEqualTo(1);
+    }
+
+    @Test
+    public void queryIsExportedAsCsvAndJsonLines() {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long rowCount = sqlQueries.exportQuery(Product.class, "product_code IS NOT NULL", new Object[0], Channels.newChannel(csv), ResultSetExporter.Format.CSV);
+
+        String[] lines = new String(csv.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertThat(rowCount).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0].split(",")).containsOnly("id", "product_type", "product_code", "rank", "unit_price", "introduced", "last_modified");
+
+        ByteArrayOutputStream quoted = new ByteArrayOutputStream();
+        sqlQueries.exportQuery("select 'say \"hi\", é' as greeting, rank from products where product_code = ?", new Object[]{"A1"}, Channels.newChannel(quoted), ResultSetExporter.Format.CSV);
+        assertThat(new String(quoted.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("greeting,rank\n\"say \"\"hi\"\", é\",3\n");
+
+        ByteArrayOutputStream jsonLines = new ByteArrayOutputStream();
+        sqlQueries.exportQuery("select product_code, rank, introduced from products where product_code = ?", new Object[]{"A1"}, Channels.newChannel(jsonLines), ResultSetExporter.Format.JSONL);
+        assertThat(new String(jsonLines.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("{\"product_code\":\"A1\",\"rank\":3,\"introduced\":null}\n");
+
+        ByteArrayOutputStream escaped = new ByteArrayOutputStream();
+        sqlQueries.exportQuery("select 1.5e0 as \"say \"\"hi\"\"\", sqrt(-1.0) as nan, cast(1e308 as double) * 10 as infinity", new Object[0], Channels.newChannel(escaped), ResultSetExporter.Format.JSONL);
+        assertThat(new String(escaped.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("{\"say \\\"hi\\\"\":1.5,\"nan\":null,\"infinity\":null}\n");
+    }
+
+    @Test
+    public void csvFileIsImported() throws IOException {
+        Path csvFile = Files.createTempFile("products", ".csv");
+        try {
+            Files.write(csvFile, ("product_type,product_code,rank,unit_price,introduced\n"
+                    + "SMALL,\"D,4\",4,9.90,2017-03-01\n"
+                    + "BIG,E5,5,,\n").getBytes(StandardCharsets.UTF_8));
+
+            ImportResult result = sqlQueries.importCsv(Product.class, csvFile);
+
+            assertThat(result.getRowCount()).isEqualTo(2);
+            Product product = sqlQueries.queryForOneByClause(Product.class, "product_code = ?", "D,4").get();
+            assertThat(product.getRank()).isEqualTo(4);
+            assertThat(product.getIntroduced()).isEqualTo(LocalDate.of(2017, 3, 1));
+            assertThat(sqlQueries.queryForOneByClause(Product.class, "product_code = ?", "E5").get().getUnitPrice()).isNull();
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    @Test
+    public void csvRecordWithMissingFieldsIsRejected() throws IOException {
+        Path csvFile = Files.createTempFile("products", ".csv");
+        try {
+            Files.write(csvFile, "product_code,rank\nF6,6\nG7\n".getBytes(StandardCharsets.UTF_8));
+
+            Throwable thrown = catchThrowable(() -> sqlQueries.importCsv(Product.class, csvFile));
+
+            assertThat(thrown).hasMessageContaining("CSV record 3 has 1 fields, the header has 2");
+        } finally {
+            Files.delete(csvFile);
+        }
+    }
+
+    @Test
+    public void immutableEntitiesAreConstructed() {
+        List<ProductCode> productCodes = sqlQueries.queryByClause(ProductCode.class, "rank > ? ORDER BY rank", 1);
+
+        assertThat(productCodes).extracting(ProductCode::getProductCode).containsExactly("B2", "A1");
+        assertThat(productCodes.get(1).getRank()).isEqualTo(3);
+        assertThat(productCodes.get(1).getId()).isPositive();
+        assertThat(productCodes.get(1).getUnitPrice()).isEqualByComparingTo(new BigDecimal("12.5"));
+    }
+
+    @Test
+    public void unitOfWorkWritesParentsFirst() {
+        Customer daffy = sqlQueries.queryAll(Customer.class).get(0);
+        Customer bugs = new Customer("Bugs Bunny");
+        List<Product> products = sqlQueries.queryAll(Product.class);
+        Product renamed = products.get(0);
+        renamed.setProductCode("A1-renamed");
+        Product removed = products.get(1);
+
+        int rowCount = sqlQueries.unitOfWork()
+                .insert(new Order(bugs, "carrots"))
+                .insert(bugs)
+                .update(daffy)
+                .update(renamed)
+                .delete(removed)
+                .flush();
+
+        assertThat(rowCount).isEqualTo(5);
+        assertThat(bugs.getId()).isPositive();
+        assertThat(daffy.getVersion()).isEqualTo(1);
+        assertThat(sqlQueries.queryByClause(Order.class, "customer_id = ?", bugs.getId())).extracting(Order::getDescription).containsExactly("carrots");
+        assertThat(sqlQueries.queryForOneById(Product.class, renamed.getId()).get().getProductCode()).isEqualTo("A1-renamed");
+        assertThat(sqlQueries.queryForOneById(Product.class, removed.getId())).isEmpty();
+    }
+
+    @Test
+    public void unitOfWorkReportsVersionConflicts() {
+        Customer stale = sqlQueries.queryAll(Customer.class).get(0);
+        sqlQueries.updateObject(sqlQueries.queryAll(Customer.class).get(0));
+
+        Throwable thrown = catchThrowable(() -> sqlQueries.unitOfWork().update(stale).flush());
+
+        assertThat(thrown).isInstanceOf(VersionConflictsException.class);
+        assertThat(((VersionConflictsException) thrown).getConflicts()).hasSize(1);
+        assertThat(stale.getVersion()).isEqualTo(0);
+    }
+
+    @Test
+    public void pooledIdsAreAssignedBeforeInsert() {
+        List<Widget> widgets = Arrays.asList(new Widget("gear"), new Widget("sprocket"), new Widget("cog"));
+
+        sqlQueries.insertListBatched(widgets);
+        Widget spring = new Widget("spring");
+        sqlQueries.insertObject(spring);
+
+        assertThat(widgets.get(0).getId()).isGreaterThan(0);
+        assertThat(widgets.get(1).getId()).isEqualTo(widgets.get(0).getId() + 1);
+        assertThat(widgets.get(2).getId()).isEqualTo(widgets.get(0).getId() + 2);
+        assertThat(spring.getId()).isEqualTo(widgets.get(0).getId() + 3);
+        assertThat(sqlQueries.queryForOneById(Widget.class, spring.getId()).get().getName()).isEqualTo("spring");
+    }
+
+    @Test
+    public void versionedEntitiesWithPooledIdsAreInsertedAndUpdated() {
+        Widget gear = new Widget("gear");
+        List<Widget> batch = Arrays.asList(new Widget("sprocket"), new Widget("cog"));
+
+        assertThat(sqlQueries.insertObject(gear)).isEqualTo(1);
+        sqlQueries.insertListBatched(batch);
+
+        assertThat(gear.getVersion()).isEqualTo(0);
+        assertThat(sqlQueries.queryForOneById(Widget.class, batch.get(1).getId()).get().getName()).isEqualTo("cog");
+
+        Widget stale = sqlQueries.queryForOneById(Widget.class, gear.getId()).get();
+        gear.setName("big gear");
+        assertThat(sqlQueries.updateObject(gear)).isEqualTo(1);
+        assertThat(gear.getVersion()).isEqualTo(1);
+
+        assertThat(catchThrowable(() -> sqlQueries.updateObject(stale))).isInstanceOf(VersionConflictException.class);
+    }
+
+    @Test
+    public void sequenceIncrementMustMatchTheAllocationSize() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            Throwable thrown = catchThrowable(() -> new SequenceIdAllocator("widget_seq", 10).next(connection));
+
+            assertThat(thrown).isInstanceOf(IllegalStateException.class).hasMessageContaining("widget_seq");
+        }
+    }
+
+    @Test
+    public void repeatedLookupsFailAStrictScope() {
+        List<Product> products = sqlQueries.queryAll(Product.class);
+
+        Throwable thrown = catchThrowable(() -> {
+            try (StatementTracker.Scope scope = sqlQueries.trackScope("product lookups", 2, true)) {
+                for (Product product : products) {
+                    sqlQueries.queryForOneById(Product.class, product.getId());
+                    sqlQueries.queryForOneById(Product.class, products.get(0).getId());
+                }
+                assertThat(scope.getFindings()).hasSize(1);
+            }
+        });
+
+        assertThat(thrown).isInstanceOf(RepeatedStatementException.class);
+        StatementTracker.Finding finding = ((RepeatedStatementException) thrown).getFindings().get(0);
+        assertThat(finding.getCount()).isEqualTo(6);
+        assertThat(finding.getCallSite()).contains("SqlQueriesTest");
+    }
+
+    @Test
+    public void failedStatementsLeaveNoBoundArgumentsBehind() {
+        Throwable thrown = catchThrowable(() -> sqlQueries.executeUpdate(() -> "select 1", preparedStatement -> {
+            Metrics.argumentsBound(new Object[]{1});
+            throw new SQLException("failed after binding");
+        }));
+
+        assertThat(thrown).hasRootCauseInstanceOf(SQLException.class);
+        assertThat(Metrics.takeBoundArguments()).isSameAs(Metrics.NO_ARGS);
+    }
+
+    @Test
+    public void repeatedEntityWritesAreReported() {
+        try (StatementTracker.Scope scope = sqlQueries.trackScope("customer writes", 2, false)) {
+            for (int i = 0; i < 3; i++) {
+                Customer customer = new Customer("Customer " + i);
+                sqlQueries.insertObject(customer);
+                customer.setName("Renamed " + i);
+                sqlQueries.updateObject(customer);
+            }
+
+            assertThat(scope.getFindings())
+                    .extracting(StatementTracker.Finding::getFingerprint)
+                    .containsOnly(
+                            "insert into customers(version,name) values (?)",
+                            "update customers set version=?,name=? where id=? and version=?");
+        }
+    }
+}
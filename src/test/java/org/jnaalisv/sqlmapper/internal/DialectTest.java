@@ -0,0 +1,43 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DialectTest {
+
+    @Test
+    public void dialectIsDetectedOncePerDataSource() throws Exception {
+        AtomicInteger metaDataCalls = new AtomicInteger();
+        DatabaseMetaData metaData = proxy(DatabaseMetaData.class, (proxy, method, args) -> "PostgreSQL");
+        Connection connection = proxy(Connection.class, (proxy, method, args) -> {
+            metaDataCalls.incrementAndGet();
+            return metaData;
+        });
+        DataSource dataSource = proxy(DataSource.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        assertThat(Dialect.of(dataSource, connection)).isEqualTo(Dialect.POSTGRESQL);
+        assertThat(Dialect.of(dataSource, connection)).isEqualTo(Dialect.POSTGRESQL);
+        assertThat(metaDataCalls.get()).isEqualTo(1);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(DialectTest.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,99 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.junit.Test;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LobsTest {
+
+    private Supplier<Reader> bodyReader;
+    private Supplier<String> bodyText;
+    private Supplier<InputStream> attachmentStream;
+    private Supplier<byte[]> attachmentBytes;
+
+    @Test
+    public void clobThresholdCountsBytesNotCharacters() throws Exception {
+        char[] chars = new char[600];
+        Arrays.fill(chars, 'ä');
+        String text = new String(chars);
+
+        // 600 characters take 1200 bytes as a string
+        assertThat(Lobs.clobReader(new SerialClob(chars), 1500)).isInstanceOf(StringReader.class);
+        Reader spilled = Lobs.clobReader(new SerialClob(chars), 1000);
+
+        assertThat(spilled).isNotInstanceOf(StringReader.class);
+        assertThat(Lobs.readFully(spilled, 0)).isEqualTo(text);
+    }
+
+    @Test
+    public void blobsOverTheThresholdAreSpilledToDisk() throws Exception {
+        byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        assertThat(Lobs.blobStream(new SerialBlob(bytes), bytes.length + 1)).isInstanceOf(ByteArrayInputStream.class);
+        InputStream spilled = Lobs.blobStream(new SerialBlob(bytes), 1024);
+
+        assertThat(spilled).isNotInstanceOf(ByteArrayInputStream.class);
+        byte[] read = new byte[bytes.length];
+        int offset = 0;
+        int count;
+        while ((count = spilled.read(read, offset, read.length - offset)) > 0) {
+            offset += count;
+        }
+        assertThat(offset).isEqualTo(bytes.length);
+        assertThat(spilled.read()).isEqualTo(-1);
+        assertThat(read).isEqualTo(bytes);
+    }
+
+    @Test
+    public void spilledSuppliersOpenANewStreamOnEveryGet() throws Exception {
+        byte[] bytes = new byte[4096];
+        Arrays.fill(bytes, (byte) 7);
+        Supplier<InputStream> streams = Lobs.blobStreamSupplier(new SerialBlob(bytes), 1024);
+        Supplier<Reader> readers = Lobs.clobReaderSupplier(new SerialClob("spilled body".toCharArray()), 4);
+
+        for (int i = 0; i < 2; i++) {
+            try (InputStream in = streams.get()) {
+                int count = 0;
+                while (in.read() != -1) {
+                    ++count;
+                }
+                assertThat(count).isEqualTo(bytes.length);
+            }
+            try (Reader reader = readers.get()) {
+                assertThat(Lobs.readFully(reader, 0)).isEqualTo("spilled body");
+            }
+        }
+    }
+
+    @Test
+    public void suppliersAreReadByTheirTypeArgument() throws Exception {
+        SerialClob clob = new SerialClob("body".toCharArray());
+        SerialBlob blob = new SerialBlob(new byte[]{1, 2, 3});
+
+        Object reader = readerFor(clob, "bodyReader").convert(clob);
+        Object text = readerFor(clob, "bodyText").convert(clob);
+        Object stream = readerFor(blob, "attachmentStream").convert(blob);
+        Object bytes = readerFor(blob, "attachmentBytes").convert(blob);
+
+        assertThat(((Supplier<?>) reader).get()).isInstanceOf(Reader.class);
+        assertThat(((Supplier<?>) text).get()).isEqualTo("body");
+        assertThat(((Supplier<?>) stream).get()).isInstanceOf(InputStream.class);
+        assertThat(((Supplier<?>) bytes).get()).isEqualTo(new byte[]{1, 2, 3});
+    }
+
+    private static TypeMapper.ValueConverter readerFor(Object columnValue, String fieldName) throws NoSuchFieldException {
+        return TypeMapper.readerFor(columnValue.getClass(), Supplier.class, LobsTest.class.getDeclaredField(fieldName).getGenericType());
+    }
+}
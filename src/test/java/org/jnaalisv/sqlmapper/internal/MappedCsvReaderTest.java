@@ -0,0 +1,87 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+public class MappedCsvReaderTest {
+
+    private Path csvFile;
+
+    @Before
+    public void createFile() throws IOException {
+        csvFile = Files.createTempFile("reader", ".csv");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.delete(csvFile);
+    }
+
+    private List<List<String>> readAll(int windowSize) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (MappedCsvReader reader = new MappedCsvReader(csvFile, windowSize)) {
+            while (reader.next()) {
+                List<String> fields = new ArrayList<>();
+                for (int field = 0; field < reader.fieldCount(); field++) {
+                    fields.add(reader.getString(field));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void recordsAreReadAcrossWindowBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder("\uFEFFcode,name\r\n");
+        for (int i = 0; i < 50; i++) {
+            csv.append(i).append(",\"line ").append(i).append(", \"\"quoted\"\"\nsecond\"\r\n");
+        }
+        csv.append("last,");
+        Files.write(csvFile, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<List<String>> records = readAll(40);
+
+        assertThat(records).hasSize(52);
+        assertThat(records.get(0)).containsExactly("code", "name");
+        assertThat(records.get(8)).containsExactly("7", "line 7, \"quoted\"\nsecond");
+        assertThat(records.get(51)).containsExactly("last", null);
+        assertThat(records).isEqualTo(readAll(64 * 1024));
+    }
+
+    @Test
+    public void recordLongerThanTheWindowIsRejected() throws IOException {
+        Files.write(csvFile, "a,b\nthis record is longer than the window\n".getBytes(StandardCharsets.UTF_8));
+
+        Throwable thrown = catchThrowable(() -> readAll(16));
+
+        assertThat(thrown).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void integersAreParsedWithoutOverflow() throws IOException {
+        Files.write(csvFile, "9223372036854775807,-9223372036854775808,9223372036854775808,2147483648\n".getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(csvFile)) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.getLong(0)).isEqualTo(Long.MAX_VALUE);
+            assertThat(reader.getLong(1)).isEqualTo(Long.MIN_VALUE);
+            assertThat(catchThrowable(() -> reader.getLong(2))).isInstanceOf(NumberFormatException.class);
+            assertThat(catchThrowable(() -> reader.get(3, int.class))).isInstanceOf(NumberFormatException.class);
+            assertThat(reader.get(3, Long.class)).isEqualTo(2147483648L);
+            assertThat(Arrays.asList(reader.get(0, String.class), reader.get(4, Long.class))).containsExactly("9223372036854775807", null);
+        }
+    }
+}
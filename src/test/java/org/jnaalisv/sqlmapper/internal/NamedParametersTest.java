@@ -0,0 +1,70 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+public class NamedParametersTest {
+
+    public static class Range {
+        private final int low;
+        public final int high = 9;
+
+        Range(int low) {
+            this.low = low;
+        }
+
+        public int getLow() {
+            return low;
+        }
+    }
+
+    @Test
+    public void parsedSqlIsCached() {
+        String sql = "select * from t where id = :id";
+
+        assertThat(NamedParameters.parse(sql)).isSameAs(NamedParameters.parse(sql));
+    }
+
+    @Test
+    public void namesAreReplacedByPlaceholders() {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse("select * from t where a = :a and (b > :low or b < :a)");
+
+        assertThat(parsedSql.getSql()).isEqualTo("select * from t where a = ? and (b > ? or b < ?)");
+        assertThat(parsedSql.getParameterNames()).containsExactly("a", "low", "a");
+    }
+
+    @Test
+    public void literalsCommentsAndCastsAreIgnored() {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse(
+                "select ':x', \"col:y\", v::text -- :z\n from t /* :w */ where id = :id");
+
+        assertThat(parsedSql.getSql()).isEqualTo("select ':x', \"col:y\", v::text -- :z\n from t /* :w */ where id = ?");
+        assertThat(parsedSql.getParameterNames()).containsExactly("id");
+    }
+
+    @Test
+    public void parseResultIsCached() {
+        String sql = "select * from t where id = :id";
+        assertThat(NamedParameters.parse(sql)).isSameAs(NamedParameters.parse(sql));
+    }
+
+    @Test
+    public void argumentsFromMapOrBean() {
+        NamedParameters.ParsedSql parsedSql = NamedParameters.parse("select * from t where b between :low and :high");
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("low", 1);
+        parameters.put("high", 2);
+        assertThat(parsedSql.toArgs(parameters)).containsExactly(1, 2);
+
+        assertThat(parsedSql.toArgs(new Range(3))).containsExactly(3, 9);
+
+        parameters.remove("high");
+        assertThat(catchThrowable(() -> parsedSql.toArgs(parameters))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
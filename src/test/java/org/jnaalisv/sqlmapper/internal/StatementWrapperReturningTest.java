@@ -0,0 +1,90 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import com.zaxxer.sansorm.internal.Introspector;
+import org.h2.jdbcx.JdbcDataSource;
+import org.jnaalisv.sqlmapper.entities.Customer;
+import org.jnaalisv.sqlmapper.entities.Widget;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+/**
+ * H2 has no {@code RETURNING}, so these run selects with the same parameters and result columns as the
+ * PostgreSQL statements built for {@link Customer}.
+ */
+public class StatementWrapperReturningTest {
+
+    private Introspected introspected;
+    private Connection connection;
+
+    @Before
+    public void openConnection() throws Exception {
+        introspected = Introspector.getIntrospected(Customer.class);
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:returning");
+        connection = dataSource.getConnection();
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void insertReturningCopiesGeneratedValues() throws Exception {
+        Customer customer = new Customer("Daffy");
+
+        // INSERT INTO customers(version,name) VALUES (?,?) RETURNING id,version
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT 42 AS id, CAST(? AS BIGINT) AS version FROM DUAL WHERE CAST(? AS VARCHAR) = 'Daffy'")) {
+            assertThat(StatementWrapper.insertReturning(stmt, introspected, customer)).isEqualTo(1);
+        }
+
+        assertThat(customer.getId()).isEqualTo(42);
+        assertThat(customer.getVersion()).isEqualTo(0);
+    }
+
+    @Test
+    public void updateReturningCopiesTheReturnedVersion() throws Exception {
+        Customer customer = new Customer("Daffy");
+        introspected.set(customer, "id", 42L);
+
+        // UPDATE customers SET version=?,name=? WHERE id=? AND version=? RETURNING version
+        String sql = "SELECT CAST(? AS BIGINT) + 10 AS version FROM DUAL WHERE CAST(? AS VARCHAR) IS NOT NULL AND CAST(? AS BIGINT) = 42 AND CAST(? AS BIGINT) = %d";
+        try (PreparedStatement stmt = connection.prepareStatement(String.format(sql, 0))) {
+            assertThat(StatementWrapper.updateReturning(stmt, introspected, customer)).isEqualTo(1);
+        }
+        assertThat(customer.getVersion()).isEqualTo(11);
+
+        try (PreparedStatement stmt = connection.prepareStatement(String.format(sql, 0))) {
+            Throwable thrown = catchThrowable(() -> StatementWrapper.updateReturning(stmt, introspected, customer));
+            assertThat(thrown).isInstanceOf(VersionConflictException.class);
+        }
+    }
+
+    @Test
+    public void multiRowInsertReturningMatchesRowsById() throws Exception {
+        Introspected widgets = Introspector.getIntrospected(Widget.class);
+        List<Widget> items = Arrays.asList(new Widget("gear"), new Widget("sprocket"), new Widget("cog"));
+        for (int i = 0; i < items.size(); i++) {
+            widgets.set(items.get(i), "id", i + 1L);
+        }
+
+        // INSERT INTO widgets(id,version,name) VALUES (?,?,?),(?,?,?),(?,?,?) RETURNING id,version, rows out of order
+        String row = "SELECT %d AS id, %d AS version FROM DUAL WHERE CAST(? AS VARCHAR) IS NOT NULL AND CAST(? AS VARCHAR) IS NOT NULL AND CAST(? AS VARCHAR) IS NOT NULL";
+        String sql = String.format(row, 3, 30) + " UNION ALL " + String.format(row, 1, 10) + " UNION ALL " + String.format(row, 2, 20);
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            assertThat(new StatementWrapper(stmt).insertRowsReturning(widgets, items)).containsExactly(1, 1, 1);
+        }
+
+        assertThat(items).extracting(Widget::getVersion).containsExactly(10L, 20L, 30L);
+    }
+}
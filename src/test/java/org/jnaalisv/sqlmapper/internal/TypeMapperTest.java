@@ -0,0 +1,104 @@
+package org.jnaalisv.sqlmapper.internal;
+
+import com.zaxxer.sansorm.internal.Introspected;
+import com.zaxxer.sansorm.internal.Introspector;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TypeMapperTest {
+
+    private static final class Cents {
+        private final long value;
+
+        Cents(long value) {
+            this.value = value;
+        }
+    }
+
+    @Table(name = "prices")
+    private static final class Price {
+        @Id
+        private long id;
+
+        private Cents amount;
+    }
+
+    private final TypeMapper.ValueConverter centsReader = value -> new Cents((Long) value);
+    private final TypeMapper.ValueConverter centsWriter = value -> ((Cents) value).value;
+
+    @Test
+    public void builtInReaders() throws Exception {
+        assertThat(TypeMapper.readerFor(Integer.class, boolean.class).convert(1)).isEqualTo(true);
+        assertThat(TypeMapper.readerFor(BigDecimal.class, Long.class).convert(new BigDecimal("42"))).isEqualTo(42L);
+        assertThat(TypeMapper.readerFor(BigDecimal.class, BigInteger.class).convert(new BigDecimal("42"))).isEqualTo(BigInteger.valueOf(42));
+        assertThat(TypeMapper.readerFor(Date.class, LocalDate.class).convert(Date.valueOf("2016-01-02"))).isEqualTo(LocalDate.of(2016, 1, 2));
+        assertThat(TypeMapper.readerFor(String.class, String.class)).isSameAs(TypeMapper.IDENTITY);
+        assertThat(TypeMapper.readerFor(String.class, boolean.class)).isSameAs(TypeMapper.IDENTITY);
+        assertThat(TypeMapper.readerFor(String.class, Long.class)).isSameAs(TypeMapper.IDENTITY);
+    }
+
+    @Test
+    public void builtInWriters() throws Exception {
+        LocalDateTime localDateTime = LocalDateTime.of(2016, 1, 2, 3, 4);
+        assertThat(TypeMapper.mapSqlType(localDateTime, Types.TIMESTAMP)).isEqualTo(Timestamp.valueOf(localDateTime));
+        assertThat(TypeMapper.mapSqlType(BigInteger.TEN, Types.DECIMAL)).isEqualTo(BigDecimal.TEN);
+        assertThat(TypeMapper.mapSqlType(true, Types.SMALLINT)).isEqualTo((short) 1);
+        assertThat(TypeMapper.mapSqlType("abc", Types.VARCHAR)).isEqualTo("abc");
+    }
+
+    @After
+    public void unregisterCents() {
+        TypeMapper.unregister(centsReader);
+        TypeMapper.unregister(centsWriter);
+    }
+
+    @Test
+    public void customConvertersAreRegistered() throws Exception {
+        assertThat(TypeMapper.mapSqlType(new Cents(5), Types.BIGINT)).isInstanceOf(Cents.class);
+
+        TypeMapper.registerReader(Long.class, Cents.class, centsReader);
+        TypeMapper.registerWriter(Cents.class, TypeMapper.ANY_SQL_TYPE, centsWriter);
+
+        assertThat(((Cents) TypeMapper.readerFor(Long.class, Cents.class).convert(7L)).value).isEqualTo(7L);
+        assertThat(TypeMapper.mapSqlType(new Cents(5), Types.BIGINT)).isEqualTo(5L);
+    }
+
+    @Test
+    public void unregisteredConvertersAreNoLongerUsed() throws Exception {
+        TypeMapper.registerWriter(Cents.class, TypeMapper.ANY_SQL_TYPE, centsWriter);
+        int generation = TypeMapper.generation();
+
+        assertThat(TypeMapper.unregister(centsWriter)).isTrue();
+
+        assertThat(TypeMapper.generation()).isNotEqualTo(generation);
+        assertThat(TypeMapper.mapSqlType(new Cents(5), Types.BIGINT)).isInstanceOf(Cents.class);
+    }
+
+    @Test
+    public void convertersRegisteredAfterIntrospectionAreUsed() throws Exception {
+        Introspected.FieldColumnInfo amount = Introspector.getIntrospected(Price.class).getFieldColumnInfo("amount");
+        assertThat(amount.toDatabaseValue(new Cents(5), Types.BIGINT)).isInstanceOf(Cents.class);
+
+        TypeMapper.registerReader(Long.class, Cents.class, centsReader);
+        TypeMapper.registerWriter(Cents.class, TypeMapper.ANY_SQL_TYPE, centsWriter);
+
+        assertThat(((Cents) amount.toFieldValue(7L)).value).isEqualTo(7L);
+        assertThat(amount.toDatabaseValue(new Cents(5), Types.BIGINT)).isEqualTo(5L);
+
+        TypeMapper.unregister(centsWriter);
+
+        assertThat(amount.toDatabaseValue(new Cents(5), Types.BIGINT)).isInstanceOf(Cents.class);
+    }
+}
@@ -0,0 +1,58 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ConcurrentHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = ConcurrentHistogram.bucketIndex(value);
+            assertThat(ConcurrentHistogram.highestValueInBucket(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(ConcurrentHistogram.highestValueInBucket(index - 1)).isLessThan(value);
+            }
+        }
+        assertThat(ConcurrentHistogram.bucketIndex(Long.MAX_VALUE)).isEqualTo(3711);
+    }
+
+    @Test
+    public void percentiles() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat(histogram.getMax()).isEqualTo(10_000_000);
+        assertThat(histogram.getMean()).isCloseTo(5_000_500.0, within(0.1));
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(5_000_000.0, within(5_000_000 * 0.016));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(9_900_000.0, within(9_900_000 * 0.016));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    public void coarseHistogramCapsValues() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram(4, 1_000_000);
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 10);
+        }
+        histogram.record(5_000_000);
+
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(50_000.0, within(50_000 * 0.0625));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1_000_000);
+        assertThat(ConcurrentHistogram.highestValueInBucket(ConcurrentHistogram.bucketIndex(300, 4), 4)).isBetween(300l, 319l);
+    }
+
+    @Test
+    public void emptyHistogram() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(0);
+        assertThat(histogram.getMean()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,43 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlowQueryLogTest {
+
+    @Test
+    public void fastStatementsAreIgnored() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(10, TimeUnit.MILLISECONDS);
+
+        slowQueryLog.statementCompleted("select 1", Metrics.NO_ARGS, TimeUnit.MILLISECONDS.toNanos(9), 1);
+        assertThat(slowQueryLog.getRecentEntries()).isEmpty();
+
+        slowQueryLog.statementCompleted("select 2", Metrics.NO_ARGS, TimeUnit.MILLISECONDS.toNanos(11), 1);
+        assertThat(slowQueryLog.getRecentEntries()).hasSize(1);
+        assertThat(slowQueryLog.getRecentEntries().get(0).getElapsedMillis()).isEqualTo(11);
+    }
+
+    @Test
+    public void argumentsAreRedacted() {
+        ParameterRedactor redactor = (sql, index, value) -> index == 1 ? "<password>" : value;
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 10, redactor, null);
+
+        slowQueryLog.statementCompleted("select * from users where name = ? and password = ?", new Object[]{"daffy", "secret"}, 1, 0);
+
+        assertThat(slowQueryLog.getRecentEntries().get(0).getArgs()).containsExactly("daffy", "<password>");
+    }
+
+    @Test
+    public void outputIsRateLimited() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 5, ParameterRedactor.NONE, null);
+
+        for (int i = 0; i < 50; i++) {
+            slowQueryLog.statementCompleted("select " + i, Metrics.NO_ARGS, 1, 0);
+        }
+
+        assertThat(slowQueryLog.getRecentEntries().size()).isBetween(5, 10);
+    }
+}
@@ -0,0 +1,76 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatementStatisticsTest {
+
+    @Test
+    public void fingerprintIgnoresLiteralsAndWhitespace() {
+        assertThat(SqlFingerprint.normalize("SELECT * FROM products  WHERE product_code = 'A1' AND rank > 3"))
+                .isEqualTo("select * from products where product_code = ? and rank > ?");
+
+        assertThat(SqlFingerprint.normalize("select * from products where id in (?, ?, ?)"))
+                .isEqualTo(SqlFingerprint.normalize("select * from products where id in (?)"));
+
+        assertThat(SqlFingerprint.normalize("select t1.id from t1 where t1.name = 'it''s'"))
+                .isEqualTo("select t1.id from t1 where t1.name = ?");
+    }
+
+    @Test
+    public void aggregatesPerFingerprint() {
+        StatementStatistics statistics = new StatementStatistics(10);
+
+        statistics.statementCompleted("select * from products where id = 1", Metrics.NO_ARGS, 2_000_000, 1);
+        statistics.statementCompleted("select * from products where id = 2", Metrics.NO_ARGS, 4_000_000, 1);
+        statistics.statementFailed("select * from products where id = 3", Metrics.NO_ARGS, 1_000_000, new SQLException());
+        statistics.statementCompleted("delete from products", Metrics.NO_ARGS, 1_000_000, 3);
+
+        List<StatementSnapshot> snapshots = statistics.snapshot();
+        assertThat(snapshots).hasSize(2);
+
+        StatementSnapshot select = snapshots.get(0);
+        assertThat(select.getFingerprint()).isEqualTo("select * from products where id = ?");
+        assertThat(select.getCalls()).isEqualTo(3);
+        assertThat(select.getErrors()).isEqualTo(1);
+        assertThat(select.getRows()).isEqualTo(2);
+        assertThat(select.getTotalMillis()).isEqualTo(7.0);
+        assertThat(select.getP99Millis()).isGreaterThanOrEqualTo(3.9);
+
+        assertThat(statistics.snapshot("DELETE FROM products").getRows()).isEqualTo(3);
+    }
+
+    @Test
+    public void memoryIsBounded() {
+        StatementStatistics statistics = new StatementStatistics(20);
+
+        for (int i = 0; i < 100; i++) {
+            statistics.statementCompleted("select * from table_" + (char) ('a' + i % 26) + i / 26, Metrics.NO_ARGS, 1000, 1);
+        }
+
+        assertThat(statistics.getStatementCount()).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    public void readableThroughJmx() throws JMException {
+        StatementStatistics statistics = new StatementStatistics(10);
+        statistics.statementCompleted("select 1", Metrics.NO_ARGS, 1000, 1);
+
+        ObjectName objectName = statistics.registerMBean("test");
+        try {
+            CompositeData[] topStatements = (CompositeData[]) ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "TopStatements");
+            assertThat(topStatements).hasSize(1);
+            assertThat(topStatements[0].get("fingerprint")).isEqualTo("select ?");
+        } finally {
+            statistics.unregisterMBean();
+        }
+    }
+}
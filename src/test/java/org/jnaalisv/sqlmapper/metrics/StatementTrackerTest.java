@@ -0,0 +1,94 @@
+package org.jnaalisv.sqlmapper.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+
+public class StatementTrackerTest {
+
+    @Test
+    public void repeatsAreCountedInTheInnermostScope() {
+        try (StatementTracker.Scope outer = StatementTracker.open("outer", 2, false)) {
+            for (int id = 0; id < 4; id++) {
+                StatementTracker.statementExecuted("select * from products where id = ?", new Object[]{id});
+            }
+
+            Throwable thrown = catchThrowable(() -> {
+                try (StatementTracker.Scope inner = StatementTracker.open("inner", 2, true)) {
+                    for (int id = 0; id < 3; id++) {
+                        StatementTracker.statementExecuted("select * from products where id in (?, ?)", new Object[]{id, id + 1});
+                    }
+                    assertThat(inner.getFindings()).hasSize(1);
+                }
+            });
+
+            assertThat(thrown).isInstanceOf(RepeatedStatementException.class);
+            StatementTracker.Finding repeated = ((RepeatedStatementException) thrown).getFindings().get(0);
+            assertThat(repeated.getFingerprint()).isEqualTo("select * from products where id in (?)");
+            assertThat(repeated.getCount()).isEqualTo(3);
+
+            assertThat(outer.getFindings()).hasSize(1);
+            StatementTracker.Finding nPlusOne = outer.getFindings().get(0);
+            assertThat(nPlusOne.getFingerprint()).isEqualTo("select * from products where id = ?");
+            assertThat(nPlusOne.getCount()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    public void repeatsWithTheSameArgumentsAreNotReported() {
+        try (StatementTracker.Scope scope = StatementTracker.open("same arguments", 2, true)) {
+            for (int i = 0; i < 5; i++) {
+                StatementTracker.statementExecuted("select * from products where id = ?", new Object[]{1});
+            }
+            StatementTracker.statementExecuted("select * from products where id = ?", new Object[]{2});
+
+            assertThat(scope.getFindings()).isEmpty();
+        }
+    }
+
+    @Test
+    public void misorderedCloseStillClosesTheScope() {
+        StatementTracker.Scope outer = StatementTracker.open("outer", 1, true);
+        StatementTracker.Scope inner = StatementTracker.open("inner", 1, true);
+
+        assertThat(catchThrowable(outer::close)).isInstanceOf(IllegalStateException.class);
+        inner.close();
+
+        // no scope is left open on this thread to count against
+        for (int id = 0; id < 3; id++) {
+            StatementTracker.statementExecuted("select * from products where id = ?", new Object[]{id});
+        }
+        assertThat(outer.getFindings()).isEmpty();
+        assertThat(inner.getFindings()).isEmpty();
+    }
+
+    @Test
+    public void closeOnAnotherThreadLeavesTheScopeOpen() throws Exception {
+        try (StatementTracker.Scope scope = StatementTracker.open("owned", 1, false)) {
+            Throwable[] thrown = new Throwable[1];
+            Thread other = new Thread(() -> thrown[0] = catchThrowable(scope::close));
+            other.start();
+            other.join();
+
+            assertThat(thrown[0]).isInstanceOf(IllegalStateException.class);
+            for (int id = 0; id < 2; id++) {
+                StatementTracker.statementExecuted("select * from products where id = ?", new Object[]{id});
+            }
+            assertThat(scope.getFindings()).hasSize(1);
+        }
+        assertThat(StatementTracker.isTracking()).isFalse();
+    }
+
+    @Test
+    public void callSiteSkipsLibraryFrames() {
+        StackTraceElement[] stackTrace = {
+                new StackTraceElement("org.jnaalisv.sqlmapper.SqlQueries", "prepareStatement", "SqlQueries.java", 1),
+                new StackTraceElement("org.jnaalisv.sqlmapper.SqlQueries$$Lambda$1/1", "consume", null, -1),
+                new StackTraceElement("org.jnaalisv.sqlmapper.internal.StatementWrapper", "insert", "StatementWrapper.java", 1),
+                new StackTraceElement("com.example.OrderService", "loadLines", "OrderService.java", 42)
+        };
+
+        assertThat(StatementTracker.callSite(stackTrace)).isEqualTo("com.example.OrderService.loadLines(OrderService.java:42)");
+    }
+}
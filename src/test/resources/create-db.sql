@@ -1,5 +1,9 @@
 drop table products if exists;
 drop table customers if exists;
+drop table documents if exists;
+drop table orders if exists;
+drop table widgets if exists;
+drop sequence widget_seq if exists;
 
 CREATE TABLE products (
   id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY,
@@ -17,4 +21,28 @@ CREATE TABLE customers (
   name varchar(255),
   version INTEGER not null default 0,
   primary key (id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE documents (
+  id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+  title varchar(255),
+  body clob,
+  attachment blob,
+  primary key (id)
+);
+
+CREATE TABLE orders (
+  id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+  customer_id INTEGER,
+  description varchar(255),
+  primary key (id)
+);
+
+CREATE SEQUENCE widget_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE widgets (
+  id BIGINT NOT NULL,
+  name varchar(255),
+  version INTEGER not null default 0,
+  primary key (id)
+);